@@ -18,6 +18,11 @@ import net.minecraft.world.level.block.Rotation;
 import net.minecraft.world.phys.shapes.Shapes;
 import net.minecraft.world.phys.shapes.VoxelShape;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.BitSet;
+import java.util.Map;
+import java.util.function.Predicate;
 
 /**
  * Represents the block entity with the state data, which under-ly the information
@@ -79,6 +84,22 @@ public interface IMultiStateBlockEntity extends IWorldAreaAccessor,
     */
    void initializeWith(IBlockInformation initialInformation);
 
+   /**
+    * Replaces the block information of all entries selected by the mask which match the given filter, in a single operation.
+    * Replacing with air clears the entries, which skips block information that can not be chiseled.
+    *
+    * @param filter           Selects the block information which is replaced.
+    * @param blockInformation The block information to replace it with.
+    * @param mask             The entries to consider, indexed by {@code x * size * size + y * size + z}, or null to consider all entries.
+    * @return The amount of replaced entries, per block information they contained before.
+    */
+   Map<IBlockInformation, Integer> replaceInArea(Predicate<IBlockInformation> filter, IBlockInformation blockInformation, @Nullable BitSet mask);
+
+   @Override
+   default Map<IBlockInformation, Integer> replaceInArea(final Predicate<IBlockInformation> filter, final IBlockInformation blockInformation) {
+      return replaceInArea(filter, blockInformation, null);
+   }
+
    /**
     * Returns the current blocks shape for the given collision type.
     *
@@ -0,0 +1,23 @@
+package mod.chiselsandbits.api.block.storage;
+
+import mod.chiselsandbits.api.blockinformation.IBlockInformation;
+
+/**
+ * Consumer of boxes of positions in a storage, which all contain the same block information.
+ */
+@FunctionalInterface
+public interface IStateEntryBoxConsumer
+{
+    /**
+     * Invoked for each box.
+     *
+     * @param minX The inclusive lower x coordinate of the box.
+     * @param minY The inclusive lower y coordinate of the box.
+     * @param minZ The inclusive lower z coordinate of the box.
+     * @param maxX The exclusive upper x coordinate of the box.
+     * @param maxY The exclusive upper y coordinate of the box.
+     * @param maxZ The exclusive upper z coordinate of the box.
+     * @param blockInformation The block information contained in all positions of the box.
+     */
+    void accept(int minX, int minY, int minZ, int maxX, int maxY, int maxZ, IBlockInformation blockInformation);
+}
@@ -9,7 +9,9 @@ import net.minecraft.core.Vec3i;
 import net.minecraft.nbt.CompoundTag;
 import net.minecraft.world.level.block.Blocks;
 import net.minecraft.world.level.chunk.LevelChunkSection;
+import org.jetbrains.annotations.Nullable;
 
+import java.util.BitSet;
 import java.util.List;
 import java.util.function.BiConsumer;
 
@@ -71,6 +73,113 @@ public interface IStateEntryStorage extends IPacketBufferSerializable, IMirrorAn
      */
     void setBlockInformation(int x, int y, int z, IBlockInformation blockState);
 
+    /**
+     * Sets the block information on all positions in the given box.
+     *
+     * @param min The inclusive lower corner of the box.
+     * @param max The exclusive upper corner of the box.
+     * @param blockInformation The block information to set.
+     */
+    default void fillBox(Vec3i min, Vec3i max, IBlockInformation blockInformation) {
+        fillBox(min, max, blockInformation, null);
+    }
+
+    /**
+     * Sets the block information on all positions in the given box, which are also selected by the mask.
+     * The mask is indexed by {@code x * size * size + y * size + z}, which is the same layout as the collision data of a block.
+     *
+     * @param min The inclusive lower corner of the box.
+     * @param max The exclusive upper corner of the box.
+     * @param blockInformation The block information to set.
+     * @param mask The positions to set, or null to set all positions in the box.
+     */
+    void fillBox(Vec3i min, Vec3i max, IBlockInformation blockInformation, @Nullable BitSet mask);
+
+    /**
+     * Replaces the given block information with another on all positions.
+     *
+     * @param from The block information to replace.
+     * @param to The block information to replace it with.
+     * @return The amount of positions which were changed.
+     */
+    default int replaceAll(IBlockInformation from, IBlockInformation to) {
+        return replaceAll(from, to, null);
+    }
+
+    /**
+     * Replaces the given block information with another on all positions which are selected by the mask.
+     * The mask uses the same layout as the mask of {@link #fillBox(Vec3i, Vec3i, IBlockInformation, BitSet)}.
+     *
+     * @param from The block information to replace.
+     * @param to The block information to replace it with.
+     * @param mask The positions to consider, or null to consider all positions.
+     * @return The amount of positions which were changed.
+     */
+    int replaceAll(IBlockInformation from, IBlockInformation to, @Nullable BitSet mask);
+
+    /**
+     * Copies the block information in a box of the given source storage into this storage.
+     * The source is allowed to be this storage, in which case the copied data is read before anything is written.
+     *
+     * @param source The storage to copy from.
+     * @param sourceMin The inclusive lower corner of the box in the source.
+     * @param sourceMax The exclusive upper corner of the box in the source.
+     * @param targetOffset The position in this storage the lower corner of the box is copied to.
+     */
+    void copyFrom(IStateEntryStorage source, Vec3i sourceMin, Vec3i sourceMax, Vec3i targetOffset);
+
+    /**
+     * Counts the positions in the given box which contain the given block information.
+     *
+     * @param blockInformation The block information to count.
+     * @param min The inclusive lower corner of the box.
+     * @param max The exclusive upper corner of the box.
+     * @return The amount of positions which contain the block information.
+     */
+    int countInBox(IBlockInformation blockInformation, Vec3i min, Vec3i max);
+
+    /**
+     * Visits all positions which do not contain air, grouped into boxes of positions with the same block information.
+     * Every such position is part of exactly one box, positions containing air are never visited.
+     * Sparse implementations only visit the occupied parts of the storage, so the cost is proportional to the occupied volume.
+     *
+     * @param consumer The consumer of the boxes.
+     */
+    default void forEachNonAirBox(IStateEntryBoxConsumer consumer) {
+        for (int x = 0; x < getSize(); x++)
+        {
+            for (int y = 0; y < getSize(); y++)
+            {
+                int z = 0;
+                while (z < getSize())
+                {
+                    final IBlockInformation blockInformation = getBlockInformation(x, y, z);
+                    int end = z + 1;
+                    while (end < getSize() && getBlockInformation(x, y, end).equals(blockInformation))
+                    {
+                        end++;
+                    }
+
+                    if (!blockInformation.isAir())
+                        consumer.accept(x, y, z, x + 1, y + 1, end, blockInformation);
+
+                    z = end;
+                }
+            }
+        }
+    }
+
+    /**
+     * Indicates if all positions in the storage contain the same block information.
+     * Implementations are allowed to return false for a storage which happens to only contain a single block information,
+     * if determining that would be expensive.
+     *
+     * @return True when all positions are known to contain the same block information.
+     */
+    default boolean isUniform() {
+        return false;
+    }
+
     /**
      * Counts the entries of this storage and passes the results into the consumer.
      *
@@ -44,4 +44,36 @@ public interface ICommonConfiguration
      * @return A supplier that determines the number of threads to use for block saving.
      */
     Supplier<Integer> getBlockSaveThreadCount();
+
+    /**
+     * Determines how many milliseconds changes to a chiseled block are collected, before they are saved off-thread.
+     * All changes within this interval are saved together, chunk saves always receive the latest data regardless.
+     *
+     * @return A supplier that determines the save coalescing interval in milliseconds.
+     */
+    Supplier<Integer> getBlockSaveCoalescingInterval();
+
+    /**
+     * Determines how many saves of chiseled blocks can be queued at the same time.
+     * Saves which are requested while the queue is full are retried after the coalescing interval.
+     *
+     * @return A supplier that determines the capacity of the save queue.
+     */
+    Supplier<Integer> getBlockSaveQueueCapacity();
+
+    /**
+     * Indicates if chiseled blocks loaded on the server should keep their data encoded until it is first needed.
+     * The values needed for the behaviour of the block are available without decoding.
+     *
+     * @return A supplier that indicates if lazy decoding is enabled.
+     */
+    Supplier<Boolean> getLazyBlockDecoding();
+
+    /**
+     * Determines from which size on the data of chiseled block updates is compressed before it is sent to the clients.
+     * Smaller updates are sent as they are, since compressing them does not pay off.
+     *
+     * @return A supplier that determines the compression threshold in bytes.
+     */
+    Supplier<Integer> getNetworkCompressionThreshold();
 }
@@ -2,10 +2,13 @@ package mod.chiselsandbits.api.multistate.mutator;
 
 import mod.chiselsandbits.api.blockinformation.IBlockInformation;
 import mod.chiselsandbits.api.exceptions.SpaceOccupiedException;
+import com.google.common.collect.Maps;
 import mod.chiselsandbits.api.multistate.accessor.IAreaAccessor;
 import net.minecraft.core.BlockPos;
 import net.minecraft.world.phys.Vec3;
 
+import java.util.Map;
+import java.util.function.Predicate;
 import java.util.stream.Stream;
 
 /**
@@ -105,4 +108,49 @@ public interface IAreaMutator extends IAreaAccessor {
         } catch (SpaceOccupiedException ignored) {
         }
     }
+
+    /**
+     * Replaces the block information of all entries in the current area which match the given filter.
+     * Replacing with air clears the entries.
+     * <p>
+     * The default implementation goes entry by entry, implementations which are backed by a storage replace whole blocks at once.
+     *
+     * @param filter           Selects the block information which is replaced.
+     * @param blockInformation The block information to replace it with.
+     * @return The amount of replaced entries, per block information they contained before.
+     */
+    default Map<IBlockInformation, Integer> replaceInArea(
+            Predicate<IBlockInformation> filter,
+            IBlockInformation blockInformation
+    ) {
+        final Map<IBlockInformation, Integer> replaced = Maps.newHashMap();
+        mutableStream().forEach(entry -> {
+            final IBlockInformation currentInformation = entry.getBlockInformation();
+            if (currentInformation.equals(blockInformation) || !filter.test(currentInformation))
+                return;
+
+            if (blockInformation.isAir())
+                entry.clear();
+            else
+                entry.overrideState(blockInformation);
+            replaced.merge(currentInformation, 1, Integer::sum);
+        });
+        return replaced;
+    }
+
+    /**
+     * Overrides the entries of the current area with all entries of the given source which do not contain air.
+     * The source is aligned with the start of the current area, entries of the area for which the source contains air are left untouched.
+     * <p>
+     * The default implementation goes entry by entry, implementations which are backed by a storage write whole blocks at once.
+     *
+     * @param source The accessor to take the entries from.
+     */
+    default void imposeInArea(
+            IAreaAccessor source
+    ) {
+        source.stream()
+                .filter(entry -> !entry.getBlockInformation().isAir())
+                .forEach(entry -> overrideInAreaTarget(entry.getBlockInformation(), entry.getStartPoint()));
+    }
 }
@@ -64,4 +64,5 @@ public class NbtConstants
     public static final String BLOCK_ENTITY_DATA = "BlockEntityTag";
     public static final String COMPRESSED = "compressed";
     public static final String DATA = "data";
+    public static final String SUMMARY = "summary";
 }
@@ -11,16 +11,19 @@ import com.google.common.collect.HashBasedTable;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Table;
-import mod.chiselsandbits.ChiselsAndBits;
+import io.netty.buffer.Unpooled;
 import mod.chiselsandbits.api.axissize.CollisionType;
 import mod.chiselsandbits.api.block.entity.IMultiStateBlockEntity;
 import mod.chiselsandbits.api.block.entity.INetworkUpdatableEntity;
 import mod.chiselsandbits.api.block.storage.IStateEntryStorage;
 import mod.chiselsandbits.api.blockinformation.IBlockInformation;
 import mod.chiselsandbits.blockinformation.BlockInformation;
+import mod.chiselsandbits.blockinformation.BlockInformationRegistry;
+import mod.chiselsandbits.blockinformation.BlockInformationTable;
 import mod.chiselsandbits.api.change.IChangeTracker;
 import mod.chiselsandbits.api.chiseling.conversion.IConversionManager;
 import mod.chiselsandbits.api.chiseling.eligibility.IEligibilityManager;
+import mod.chiselsandbits.api.config.ICommonConfiguration;
 import mod.chiselsandbits.api.exceptions.SpaceOccupiedException;
 import mod.chiselsandbits.api.multistate.StateEntrySize;
 import mod.chiselsandbits.api.multistate.accessor.IStateEntryInfo;
@@ -36,16 +39,26 @@ import mod.chiselsandbits.api.multistate.snapshot.IMultiStateSnapshot;
 import mod.chiselsandbits.api.multistate.statistics.IMultiStateObjectStatistics;
 import mod.chiselsandbits.api.util.*;
 import mod.chiselsandbits.api.util.constants.NbtConstants;
+import mod.chiselsandbits.block.entities.storage.DeduplicatingStorageCache;
 import mod.chiselsandbits.block.entities.storage.SimpleStateEntryStorage;
+import mod.chiselsandbits.block.entities.storage.StateEntryStorageDelta;
+import mod.chiselsandbits.block.entities.storage.StateEntryStorageSelector;
 import mod.chiselsandbits.client.model.data.ChiseledBlockModelDataManager;
+import mod.chiselsandbits.network.BlockInformationDictionary;
+import mod.chiselsandbits.network.PayloadCompression;
+import mod.chiselsandbits.network.packets.ChiseledBlockDeltaPacket;
+import mod.chiselsandbits.network.packets.ModPacket;
 import mod.chiselsandbits.network.packets.UpdateChiseledBlockPacket;
 import mod.chiselsandbits.registrars.ModBlockEntityTypes;
 import mod.chiselsandbits.storage.IMultiThreadedStorageEngine;
 import mod.chiselsandbits.storage.IStorageHandler;
+import mod.chiselsandbits.storage.IThreadAwareStorageHandler;
 import mod.chiselsandbits.storage.StorageEngineBuilder;
 import mod.chiselsandbits.utils.BlockPosUtils;
 import mod.chiselsandbits.utils.LZ4DataCompressionUtils;
 import mod.chiselsandbits.utils.MultiStateSnapshotUtils;
+import mod.chiselsandbits.utils.PackedLongArray;
+import mod.chiselsandbits.utils.PaletteRunLengthCodec;
 import mod.chiselsandbits.voxelshape.MultiStateBlockEntityDiscreteVoxelShape;
 import mod.chiselsandbits.voxelshape.SingleBlockVoxelShapeCache;
 import net.minecraft.client.Minecraft;
@@ -59,6 +72,7 @@ import net.minecraft.network.FriendlyByteBuf;
 import net.minecraft.server.MinecraftServer;
 import net.minecraft.server.TickTask;
 import net.minecraft.server.level.ServerLevel;
+import net.minecraft.server.level.ServerPlayer;
 import net.minecraft.world.entity.player.Player;
 import net.minecraft.world.level.Level;
 import net.minecraft.world.level.LevelAccessor;
@@ -69,14 +83,25 @@ import net.minecraft.world.level.lighting.LightEngine;
 import net.minecraft.world.phys.AABB;
 import net.minecraft.world.phys.Vec3;
 import net.minecraft.world.phys.shapes.CubeVoxelShape;
+import net.minecraft.world.phys.shapes.Shapes;
 import net.minecraft.world.phys.shapes.VoxelShape;
-import org.apache.commons.lang3.Validate;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
+import java.io.IOException;
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
 import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
 import java.util.function.Supplier;
 import java.util.stream.IntStream;
 import java.util.stream.Stream;
@@ -85,17 +110,45 @@ public class ChiseledBlockEntity extends BlockEntity implements
         IMultiStateBlockEntity, INetworkUpdatableEntity, IBlockEntityWithModelData {
     public static final float ONE_THOUSANDS = 1 / 1000f;
 
+    private static final Logger LOGGER = LogManager.getLogger();
+    private static final AtomicLong SYNC_VERSIONS = new AtomicLong();
+
     private MutableStatistics mutableStatistics;
     private final Map<UUID, IBatchMutation> batchMutations = Maps.newConcurrentMap();
     private final Object tagSyncHandle = new Object();
     private IStateEntryStorage storage;
+    private DeduplicatingStorageCache.SharedStorage sharedStorage = null;
     private IMultiThreadedStorageEngine storageEngine;
     private boolean isInitialized = false;
     private IBlockModelData modelData = IModelDataBuilder.create().build();
     private CompoundTag lastTag = null;
+    /**
+     * Incremented on every change which needs to be saved, guarded by {@link #tagSyncHandle}.
+     */
+    private long changeGeneration = 0;
+    /**
+     * The change generation which was captured by {@link #lastTag}, guarded by {@link #tagSyncHandle}.
+     */
+    private long lastTagGeneration = 0;
     private CompletableFuture<Void> storageFuture = null;
+    /**
+     * The loaded data of a lazily loaded block entity, which is decoded on first access to the storage or the full statistics.
+     */
+    private volatile CompoundTag pendingDecodingTag = null;
+    private final Object decodingLock = new Object();
+    private boolean isDecoding = false;
     private final List<CompoundTag> deserializationQueue = Collections.synchronizedList(Lists.newArrayList());
     private final SingleBlockVoxelShapeCache voxelShapeCache = new SingleBlockVoxelShapeCache(this);
+    /**
+     * The version of the contents which were last sent to the clients, or on the client the version it holds.
+     * Versions are unique across all chiseled blocks, so a client never mistakes a recreated block for the one it knew.
+     * Zero indicates that no version was sent or received yet.
+     */
+    private long syncVersion = 0;
+    /**
+     * The contents which were last sent to the clients, only used on the server thread.
+     */
+    private IStateEntryStorage syncedStorage = null;
 
     public ChiseledBlockEntity(BlockPos position, BlockState state) {
         super(ModBlockEntityTypes.CHISELED.get(), position, state);
@@ -121,6 +174,8 @@ public class ChiseledBlockEntity extends BlockEntity implements
     private void createStorageEngine() {
         storageEngine = StorageEngineBuilder.create()
                 .with(new LZ4StorageBasedStorageHandler())
+                .with(new BinaryStorageHandler())
+                .with(new PaletteRunLengthStorageHandler())
                 .buildMultiThreaded(getExecutor());
     }
 
@@ -163,14 +218,107 @@ public class ChiseledBlockEntity extends BlockEntity implements
 
     @Override
     public IAreaShapeIdentifier createNewShapeIdentifier() {
+        ensureDecoded();
+        final DeduplicatingStorageCache.SharedStorage shared = this.sharedStorage;
+        if (shared != null)
+            return shared.getIdentifier(() -> new Identifier(shared.createStorage()));
+
         return new Identifier(this.storage);
     }
 
+    /**
+     * Gives access to the storage, decoding the loaded data first if the block entity was loaded lazily.
+     *
+     * @return The storage.
+     */
+    private IStateEntryStorage getStorage() {
+        ensureDecoded();
+        return this.storage;
+    }
+
+    /**
+     * Decodes the loaded data if the block entity was loaded lazily and the data was not needed so far.
+     * Concurrent callers wait for the decoding to complete, calls made while decoding on the decoding thread return immediately.
+     */
+    private void ensureDecoded() {
+        if (this.pendingDecodingTag == null)
+            return;
+
+        synchronized (this.decodingLock) {
+            final CompoundTag nbt = this.pendingDecodingTag;
+            if (nbt == null || this.isDecoding)
+                return;
+
+            this.isDecoding = true;
+            try {
+                this.storageEngine.deserializeNBT(nbt);
+                if (this.mutableStatistics.isRequiresRecalculation()) {
+                    //Decoding can happen on any thread, while recalculating may update the world, so it is left to the game thread.
+                    getExecutor().execute(this::recalculateDecodedStatistics);
+                }
+
+                //The world already holds the block which matches the primary state, it was saved together with this data.
+                this.mutableStatistics.updatePrimaryState(false);
+            } catch (RuntimeException e) {
+                LOGGER.error("Failed to decode the chiseled block at %s.".formatted(getBlockPos()), e);
+            } finally {
+                this.isDecoding = false;
+                this.pendingDecodingTag = null;
+            }
+        }
+    }
+
+    /**
+     * Recalculates the statistics of a lazily decoded block, if its data did not carry usable statistics.
+     * Like a load which upgraded the data, the result is saved and sent to the clients again.
+     * Needs to be invoked on the game thread.
+     */
+    private void recalculateDecodedStatistics() {
+        if (isRemoved() || !this.mutableStatistics.isRequiresRecalculation())
+            return;
+
+        this.mutableStatistics.recalculate(this.storage);
+        voxelShapeCache.reset();
+
+        synchronized (this.tagSyncHandle) {
+            this.changeGeneration++;
+            scheduleOffThreadSave();
+        }
+
+        ChiseledBlockSyncManager.getInstance().markChanged(this);
+    }
+
+    /**
+     * Indicates if the given data can be loaded lazily.
+     * This is only the case on the server, for the first load of a block entity, and when the data carries the values
+     * which are needed for the behaviour of the block.
+     */
+    private boolean canDecodeLazily(final CompoundTag nbt) {
+        return !this.isInitialized
+                && getLevel() instanceof ServerLevel
+                && nbt.contains(NbtConstants.SUMMARY, Tag.TAG_COMPOUND)
+                && ICommonConfiguration.getInstance().getLazyBlockDecoding().get();
+    }
+
+    /**
+     * Switches the current storage to the representation which suits its contents best, and then replaces it with the shared storage
+     * of identical contents, if any other block entity already holds the same contents.
+     * The storage is then shared with all those block entities until it is mutated.
+     */
+    private void optimizeStorage() {
+        if (!this.batchMutations.isEmpty())
+            return;
+
+        this.storage = StateEntryStorageSelector.getInstance().select(this.storage);
+        this.sharedStorage = DeduplicatingStorageCache.getInstance().share(this.storage);
+        this.storage = this.sharedStorage.createStorage();
+    }
+
     @Override
     public Stream<IStateEntryInfo> stream() {
         return BlockPosStreamProvider.getForRange(StateEntrySize.current().getBitsPerBlockSide())
                 .map(blockPos -> new StateEntry(
-                        storage.getBlockInformation(
+                        getStorage().getBlockInformation(
                                 blockPos.getX(),
                                 blockPos.getY(),
                                 blockPos.getZ()
@@ -213,7 +361,7 @@ public class ChiseledBlockEntity extends BlockEntity implements
         final Vec3 exactAreaPos = inAreaTarget.multiply(StateEntrySize.current().getBitsPerBlockSide(), StateEntrySize.current().getBitsPerBlockSide(), StateEntrySize.current().getBitsPerBlockSide());
         final BlockPos inAreaPos = VectorUtils.toBlockPos(exactAreaPos);
 
-        final IBlockInformation blockInformation = this.storage.getBlockInformation(
+        final IBlockInformation blockInformation = getStorage().getBlockInformation(
                 inAreaPos.getX(),
                 inAreaPos.getY(),
                 inAreaPos.getZ()
@@ -260,7 +408,7 @@ public class ChiseledBlockEntity extends BlockEntity implements
 
     @Override
     public IMultiStateSnapshot createSnapshot() {
-        return MultiStateSnapshotUtils.createFromStorage(this.storage);
+        return MultiStateSnapshotUtils.createFromStorage(getStorage());
     }
 
     @Override
@@ -281,20 +429,92 @@ public class ChiseledBlockEntity extends BlockEntity implements
     }
 
     public void deserializeNBT(final CompoundTag nbt, Runnable onLoaded) {
-        this.storageEngine.deserializeOffThread(nbt)
-                .thenRun(onLoaded)
-                .thenRunAsync(() -> {
-                    if (mutableStatistics.isRequiresRecalculation()) {
-                        mutableStatistics.recalculate(this.storage, shouldUpdateWorld());
-                    }
+        if (canDecodeLazily(nbt)) {
+            //Only the values needed for the behaviour of the block are restored now, everything else is decoded on first access.
+            this.mutableStatistics.deserializeSummary(nbt.getCompound(NbtConstants.SUMMARY));
+            this.pendingDecodingTag = nbt;
+            this.isInitialized = true;
 
-                    mutableStatistics.updatePrimaryState(shouldUpdateWorld());
+            synchronized (this.tagSyncHandle) {
+                this.lastTag = nbt;
+                this.lastTagGeneration = this.changeGeneration;
+            }
+            return;
+        }
 
-                    if (shouldUpdateWorld()) {
-                        setChanged();
-                    }
-                }, getExecutor());
-        this.lastTag = nbt;
+        //Newer data replaces whatever was still waiting to be decoded.
+        synchronized (this.decodingLock) {
+            this.pendingDecodingTag = null;
+        }
+
+        if (getLevel() instanceof final ServerLevel serverLevel) {
+            //The server loads whole chunks at once, so all chiseled blocks of the chunk are loaded together.
+            ChunkBatchedDeserializer.getInstance().enqueue(serverLevel, this, nbt);
+        } else {
+            this.storageEngine.deserializeOffThread(nbt)
+                    .thenRun(onLoaded)
+                    .thenRunAsync(() -> {
+                        if (mutableStatistics.isRequiresRecalculation()) {
+                            mutableStatistics.recalculate(this.storage, shouldUpdateWorld());
+                        }
+
+                        mutableStatistics.updatePrimaryState(shouldUpdateWorld());
+
+                        if (shouldUpdateWorld()) {
+                            setChanged();
+                        }
+                    }, getExecutor());
+        }
+
+        synchronized (this.tagSyncHandle) {
+            this.lastTag = nbt;
+            this.lastTagGeneration = this.changeGeneration;
+        }
+    }
+
+    /**
+     * Reads the given data for a load made by the {@link ChunkBatchedDeserializer}, on the calling thread.
+     *
+     * @param nbt The data to read.
+     * @return The task which applies the read data, to be passed to {@link #applyBatchedLoad(CompoundTag, Runnable)} on the game thread.
+     */
+    Runnable prepareBatchedLoad(final CompoundTag nbt) {
+        return this.storageEngine.prepareDeserialization(nbt);
+    }
+
+    /**
+     * Applies data read by {@link #prepareBatchedLoad(CompoundTag)} on the game thread.
+     * Marking the chunk as changed, as well as the light and neighbor updates, are left to the {@link ChunkBatchedDeserializer},
+     * which does them once for all chiseled blocks of the chunk.
+     *
+     * @param nbt The data which was read.
+     * @param apply The task which applies the read data.
+     * @return True when the loaded data needs to be saved again, because it was upgraded while loading.
+     */
+    boolean applyBatchedLoad(final CompoundTag nbt, final Runnable apply) {
+        //The chunk wide updates replace the update of the first load.
+        this.isInitialized = true;
+        apply.run();
+
+        final boolean requiresSave = mutableStatistics.isRequiresRecalculation() || !nbt.contains(NbtConstants.SUMMARY, Tag.TAG_COMPOUND);
+        if (mutableStatistics.isRequiresRecalculation()) {
+            mutableStatistics.recalculate(this.storage, shouldUpdateWorld());
+        }
+
+        mutableStatistics.updatePrimaryState(shouldUpdateWorld());
+        voxelShapeCache.reset();
+
+        synchronized (this.tagSyncHandle) {
+            //Unless the data was upgraded, the loaded tag is still current and does not need to be saved again.
+            if (requiresSave) {
+                this.changeGeneration++;
+                scheduleOffThreadSave();
+            }
+        }
+
+        ChiseledBlockSyncManager.getInstance().markChanged(this);
+
+        return requiresSave;
     }
 
     @Override
@@ -306,28 +526,33 @@ public class ChiseledBlockEntity extends BlockEntity implements
     public void saveAdditional(@NotNull final CompoundTag compound) {
         super.saveAdditional(compound);
 
+        final long generation;
+        final boolean hasOutdatedTag;
         synchronized (this.tagSyncHandle) {
-            if (this.lastTag != null) {
-                //Off-Thread completed.)
+            if (this.lastTag != null && this.lastTagGeneration == this.changeGeneration) {
+                ChiseledBlockSaveStatistics.getInstance().record(ChiseledBlockSaveStatistics.SavePath.CURRENT_TAG);
                 final CompoundTag nbt = this.lastTag.copy();
                 nbt.getAllKeys().forEach(key -> compound.put(key, nbt.get(key)));
                 return;
             }
-        }
-
-        if (this.storageFuture != null) {
-            this.storageFuture.join();
 
-            //Now the tag needs to be there!
-            Validate.notNull(this.lastTag, "The storage future did not complete.");
-            final CompoundTag nbt = this.lastTag.copy();
-            nbt.getAllKeys().forEach(key -> compound.put(key, nbt.get(key)));
-            return;
+            generation = this.changeGeneration;
+            hasOutdatedTag = this.lastTag != null;
         }
 
-        this.storageEngine.serializeNBTInto(compound);
+        //The chunk may be unloaded right after this save, and it needs the data before this returns, so it never receives outdated
+        //data. Blocks which were changed within the coalescing interval, or whose save is still queued, are serialized right here,
+        //on the saving thread, which is the game thread for regular chunk saves.
+        ChiseledBlockSaveStatistics.getInstance().record(hasOutdatedTag ? ChiseledBlockSaveStatistics.SavePath.SYNCHRONOUS_OUTDATED_TAG : ChiseledBlockSaveStatistics.SavePath.SYNCHRONOUS);
+        ensureDecoded();
+        final CompoundTag nbt = this.storageEngine.serializeNBT();
+        nbt.put(NbtConstants.SUMMARY, this.mutableStatistics.serializeSummary());
+        setSaveResult(nbt, generation);
+
+        final CompoundTag copy = nbt.copy();
+        copy.getAllKeys().forEach(key -> compound.put(key, copy.get(key)));
     }
-    
+
     @Override
     public boolean isCanBeFlooded() {
         return mutableStatistics.isCanBeFlooded();
@@ -335,6 +560,7 @@ public class ChiseledBlockEntity extends BlockEntity implements
     
     @Override
     public void setCanBeFlooded(boolean canBeFlooded) {
+        ensureDecoded();
         this.mutableStatistics.setCanBeFlooded(canBeFlooded);
         setChanged();
     }
@@ -346,6 +572,7 @@ public class ChiseledBlockEntity extends BlockEntity implements
     
     @Override
     public void setEmitsLightBasedOnFullBlock(boolean emitsLightBasedOnFullBlock) {
+        ensureDecoded();
         mutableStatistics.setEmitsLightBasedOnFullBlock(emitsLightBasedOnFullBlock);
         setChanged();
     }
@@ -374,30 +601,238 @@ public class ChiseledBlockEntity extends BlockEntity implements
         voxelShapeCache.reset();
 
         if (!getLevel().isClientSide()) {
+            //The primary state is derived from the full statistics, which a lazily loaded block entity does not have yet.
+            ensureDecoded();
             this.mutableStatistics.updatePrimaryState(true);
 
             synchronized (this.tagSyncHandle) {
-                if (this.storageFuture != null) {
-                    this.storageFuture.cancel(false);
-                }
-                this.lastTag = null;
+                this.changeGeneration++;
+                scheduleOffThreadSave();
+            }
 
-                this.storageFuture = this.storageEngine.serializeOffThread(
-                        tag -> CompletableFuture.runAsync(
-                                () -> this.setOffThreadSaveResult(tag), this.storageEngine
-                        ));
+            //All changes of a tick are sent together once the tick ends.
+            ChiseledBlockSyncManager.getInstance().markChanged(this);
+        }
+    }
 
-                ChiselsAndBits.getInstance().getNetworkChannel().sendToTrackingChunk(
-                        new UpdateChiseledBlockPacket(this),
-                        getLevel().getChunkAt(getBlockPos())
-                );
+    /**
+     * Creates the packet which brings the clients from the last sent version to the current contents.
+     * Changes to a small part of the block are sent as a delta, everything else as a full update.
+     * Needs to be invoked on the server thread.
+     */
+    ModPacket createSyncPacket() {
+        final IStateEntryStorage current = getStorage();
+        if (this.syncedStorage == null)
+            return new UpdateChiseledBlockPacket(this, null);
+
+        final FriendlyByteBuf buffer = new FriendlyByteBuf(Unpooled.buffer());
+        try {
+            final BlockInformationDictionary.Writer writer = BlockInformationDictionary.getInstance().createWriter();
+            final int changedEntries = StateEntryStorageDelta.write(this.syncedStorage, current, buffer, writer::write);
+            if (changedEntries > StateEntrySize.current().getBitsPerBlock() / 2) {
+                //The full update moves the sync version on by itself, the contents differ from the synced ones.
+                return new UpdateChiseledBlockPacket(this, null);
             }
+
+            //The flags are not derived from the contents, so the client can not recalculate them.
+            buffer.writeBoolean(this.mutableStatistics.isCanBeFlooded());
+            buffer.writeBoolean(this.mutableStatistics.isEmitsLightBasedOnFullBlock());
+
+            final long baseVersion = this.syncVersion;
+            markSynced(current);
+            return new ChiseledBlockDeltaPacket(getBlockPos(), baseVersion, this.syncVersion, PayloadCompression.encode(buffer), writer.getReferencedIds());
+        } finally {
+            buffer.release();
+        }
+    }
+
+    /**
+     * Creates a packet which carries the full contents of this block.
+     * The sync version only changes if the contents did, so clients which already hold the contents can keep applying deltas.
+     * Needs to be invoked on the server thread.
+     *
+     * @param recipient The player the packet is sent to.
+     * @return The packet with the full contents.
+     */
+    public UpdateChiseledBlockPacket createFullSyncPacket(final ServerPlayer recipient) {
+        return new UpdateChiseledBlockPacket(this, recipient);
+    }
+
+    /**
+     * Writes the full contents of this block as part of a chunk batch or a full update, which is read by
+     * {@link #prepareBatchedSync(FriendlyByteBuf, BlockInformationTable, long)}.
+     * All block information is written as indices into the given table, which is shared by all blocks of a batch.
+     * Pending changes of this block are sent to all other players tracking it first, based on the version they hold.
+     * Needs to be invoked on the server thread.
+     *
+     * @param buffer The buffer to write into.
+     * @param table The table of the batch.
+     * @param recipient The only player the contents are sent to, or null when they are sent to every player tracking this block.
+     */
+    public void serializeIntoBatch(final FriendlyByteBuf buffer, final BlockInformationTable table, @Nullable final ServerPlayer recipient) {
+        updateSyncVersion(recipient);
+        buffer.writeVarLong(this.syncVersion);
+        new PaletteRunLengthStorageHandler().writeBody(buffer, table);
+    }
+
+    /**
+     * Reads the contents written by {@link #serializeIntoBatch(FriendlyByteBuf, BlockInformationTable, ServerPlayer)}, on the calling thread.
+     *
+     * @param buffer The buffer to read from.
+     * @param table The table of the batch.
+     * @param expectedVersion The sync version this block had when the batch was received.
+     * @return The task which applies the read contents on the game thread. It does nothing if this block was updated in the meantime.
+     */
+    public Runnable prepareBatchedSync(final FriendlyByteBuf buffer, final BlockInformationTable table, final long expectedVersion) {
+        final long version = buffer.readVarLong();
+        final SimpleStateEntryStorage readStorage = new SimpleStateEntryStorage();
+        final MutableStatistics readStatistics = new MutableStatistics(this::getLevel, this::getBlockPos);
+        new PaletteRunLengthStorageHandler().readBody(buffer, table, readStorage, readStatistics);
+        final IStateEntryStorage selectedStorage = StateEntryStorageSelector.getInstance().select(readStorage);
+
+        return () -> {
+            //A newer full update or delta was applied while the batch was read, its contents are more recent.
+            if (isRemoved() || this.syncVersion != expectedVersion)
+                return;
+
+            this.syncVersion = version;
+            this.storage = selectedStorage;
+            this.mutableStatistics = readStatistics;
+            optimizeStorage();
+            voxelShapeCache.reset();
+            updateModelDataIfInLoadedChunk();
+        };
+    }
+
+    /**
+     * Returns the sync version of the contents this block holds, zero if it did not receive any yet.
+     *
+     * @return The sync version.
+     */
+    public long getSyncVersion() {
+        return this.syncVersion;
+    }
+
+    private void updateSyncVersion(@Nullable final ServerPlayer recipient) {
+        //The recipient is about to receive the full contents, a delta against a version it does not hold would only be rejected.
+        ChiseledBlockSyncManager.getInstance().sendPendingUpdate(this, recipient);
+
+        final IStateEntryStorage current = getStorage();
+        if (this.syncedStorage == null || StateEntryStorageDelta.hasChanges(this.syncedStorage, current))
+            markSynced(current);
+    }
+
+    private void markSynced(final IStateEntryStorage current) {
+        this.syncVersion = SYNC_VERSIONS.incrementAndGet();
+        this.syncedStorage = current.createSnapshot();
+    }
+
+    /**
+     * Applies a delta which was sent by the server, if this block holds the version the delta is based on.
+     *
+     * @param baseVersion The version the delta is based on.
+     * @param version The version the delta brings this block to.
+     * @param buffer The buffer with the delta.
+     * @return False when the delta could not be applied, in which case a full update is needed.
+     */
+    public boolean applySyncDelta(final long baseVersion, final long version, final FriendlyByteBuf buffer) {
+        if (this.syncVersion == 0 || this.syncVersion != baseVersion)
+            return false;
+
+        this.sharedStorage = null;
+        final IStateEntryStorage target = getStorage();
+        try {
+            StateEntryStorageDelta.read(buffer, target.getSize(), BlockInformationDictionary.getInstance()::read, (x, y, z, newInformation) -> {
+                final IBlockInformation currentInformation = target.getBlockInformation(x, y, z);
+                target.setBlockInformation(x, y, z, newInformation);
+
+                //The same incremental updates the server made, the world itself is updated by the server.
+                final BlockPos inAreaPos = new BlockPos(x, y, z);
+                if (newInformation.isAir() && !currentInformation.isAir()) {
+                    mutableStatistics.onBlockStateRemoved(currentInformation, inAreaPos, false);
+                } else if (!newInformation.isAir() && currentInformation.isAir()) {
+                    mutableStatistics.onBlockStateAdded(newInformation, inAreaPos, false);
+                } else if (!newInformation.isAir() && !currentInformation.isAir()) {
+                    mutableStatistics.onBlockStateReplaced(currentInformation, newInformation, inAreaPos, false);
+                }
+            });
+
+            mutableStatistics.setCanBeFlooded(buffer.readBoolean());
+            mutableStatistics.setEmitsLightBasedOnFullBlock(buffer.readBoolean());
+        } catch (RuntimeException e) {
+            //The contents are partially updated, only a full update can repair them.
+            LOGGER.warn("Failed to apply the update of the chiseled block at %s.".formatted(getBlockPos()), e);
+            this.syncVersion = 0;
+            return false;
+        }
+
+        this.syncVersion = version;
+        optimizeStorage();
+        voxelShapeCache.reset();
+        updateModelDataIfInLoadedChunk();
+        return true;
+    }
+
+    /**
+     * Schedules an off-thread save, unless one is already pending.
+     * A pending save picks up all changes which are made before it starts, so rapid changes are coalesced into a single save
+     * per configured interval. Changes made while a save is running cause a follow-up save once it completes.
+     * Needs to be invoked while holding {@link #tagSyncHandle}.
+     */
+    private void scheduleOffThreadSave() {
+        if (this.storageFuture != null)
+            return;
+
+        final Executor delayedGameExecutor = CompletableFuture.delayedExecutor(
+                ICommonConfiguration.getInstance().getBlockSaveCoalescingInterval().get(),
+                TimeUnit.MILLISECONDS,
+                getExecutor()
+        );
+
+        //The generation, the summary and the data are captured together on the game thread, only the writing happens off-thread.
+        this.storageFuture = CompletableFuture.supplyAsync(() -> {
+                    final long generation = getChangeGeneration();
+                    final CompoundTag summary = this.mutableStatistics.serializeSummary();
+                    return this.storageEngine.serializeOffThread(
+                            tag -> CompletableFuture.runAsync(
+                                    () -> {
+                                        tag.put(NbtConstants.SUMMARY, summary);
+                                        this.setSaveResult(tag, generation);
+                                    }, this.storageEngine
+                            ));
+                }, delayedGameExecutor)
+                .thenCompose(Function.identity())
+                .whenComplete((result, throwable) -> {
+                    final Throwable cause = throwable instanceof CompletionException ? throwable.getCause() : throwable;
+                    if (cause instanceof RejectedExecutionException)
+                        LOGGER.debug("The save queue is full, the save of the chiseled block at %s is retried later.".formatted(getBlockPos()));
+                    else if (cause != null)
+                        LOGGER.error("Failed to save chiseled block at %s off-thread.".formatted(getBlockPos()), cause);
+
+                    synchronized (this.tagSyncHandle) {
+                        this.storageFuture = null;
+                        if (this.lastTagGeneration != this.changeGeneration && !isRemoved())
+                            scheduleOffThreadSave();
+                    }
+                });
+    }
+
+    private long getChangeGeneration() {
+        synchronized (this.tagSyncHandle) {
+            return this.changeGeneration;
         }
     }
 
-    private void setOffThreadSaveResult(final CompoundTag tag) {
+    /**
+     * Stores the given serialized data as the last known save result, unless a result of a later generation is already known.
+     */
+    private void setSaveResult(final CompoundTag tag, final long generation) {
         synchronized (this.tagSyncHandle) {
+            if (this.lastTag != null && generation <= this.lastTagGeneration)
+                return;
+
             this.lastTag = tag;
+            this.lastTagGeneration = generation;
         }
     }
 
@@ -407,14 +842,17 @@ public class ChiseledBlockEntity extends BlockEntity implements
 
     @Override
     public void serializeInto(@NotNull final FriendlyByteBuf packetBuffer) {
-        storage.serializeInto(packetBuffer);
+        packetBuffer.writeVarLong(this.syncVersion);
+        getStorage().serializeInto(packetBuffer);
         mutableStatistics.serializeInto(packetBuffer);
     }
 
     @Override
     public void deserializeFrom(@NotNull final FriendlyByteBuf packetBuffer) {
+        this.syncVersion = packetBuffer.readVarLong();
         storage.deserializeFrom(packetBuffer);
         mutableStatistics.deserializeFrom(packetBuffer);
+        optimizeStorage();
         updateModelDataIfInLoadedChunk();
     }
 
@@ -427,7 +865,7 @@ public class ChiseledBlockEntity extends BlockEntity implements
     public Stream<IMutableStateEntryInfo> mutableStream() {
         return BlockPosStreamProvider.getForRange(StateEntrySize.current().getBitsPerBlockSide())
                 .map(blockPos -> new StateEntry(
-                        storage.getBlockInformation(blockPos.getX(), blockPos.getY(), blockPos.getZ()),
+                        getStorage().getBlockInformation(blockPos.getX(), blockPos.getY(), blockPos.getZ()),
                         getLevel(),
                         getBlockPos(),
                         blockPos,
@@ -454,7 +892,7 @@ public class ChiseledBlockEntity extends BlockEntity implements
         final Vec3 exactAreaPos = inAreaTarget.multiply(StateEntrySize.current().getBitsPerBlockSide(), StateEntrySize.current().getBitsPerBlockSide(), StateEntrySize.current().getBitsPerBlockSide());
         final BlockPos inAreaPos = VectorUtils.toBlockPos(exactAreaPos);
 
-        final IBlockInformation information = this.storage.getBlockInformation(
+        final IBlockInformation information = getStorage().getBlockInformation(
                 inAreaPos.getX(),
                 inAreaPos.getY(),
                 inAreaPos.getZ()
@@ -468,7 +906,8 @@ public class ChiseledBlockEntity extends BlockEntity implements
             return;
         }
 
-        this.storage.setBlockInformation(
+        this.sharedStorage = null;
+        getStorage().setBlockInformation(
                 inAreaPos.getX(),
                 inAreaPos.getY(),
                 inAreaPos.getZ(),
@@ -537,7 +976,7 @@ public class ChiseledBlockEntity extends BlockEntity implements
             return;
         }
 
-        final IBlockInformation currentInformation = this.storage.getBlockInformation(
+        final IBlockInformation currentInformation = getStorage().getBlockInformation(
                 inAreaPos.getX(),
                 inAreaPos.getY(),
                 inAreaPos.getZ()
@@ -553,7 +992,8 @@ public class ChiseledBlockEntity extends BlockEntity implements
 
         final IBlockInformation blockState = BlockInformation.AIR;
 
-        this.storage.setBlockInformation(
+        this.sharedStorage = null;
+        getStorage().setBlockInformation(
                 inAreaPos.getX(),
                 inAreaPos.getY(),
                 inAreaPos.getZ(),
@@ -603,7 +1043,8 @@ public class ChiseledBlockEntity extends BlockEntity implements
 
         //Large operation, better batch this together to prevent weird updates.
         try (final IBatchMutation ignored = batch()) {
-            this.storage.rotate(axis, rotationCount);
+            this.sharedStorage = null;
+            getStorage().rotate(axis, rotationCount);
             this.mutableStatistics.recalculate(this.storage);
         }
     }
@@ -616,7 +1057,8 @@ public class ChiseledBlockEntity extends BlockEntity implements
 
         //Large operation, better batch this together to prevent weird updates.
         try (final IBatchMutation ignored = batch()) {
-            this.storage.mirror(axis);
+            this.sharedStorage = null;
+            getStorage().mirror(axis);
             this.mutableStatistics.recalculate(this.storage);
         }
     }
@@ -628,16 +1070,52 @@ public class ChiseledBlockEntity extends BlockEntity implements
         }
 
         try (IBatchMutation ignored = batch()) {
-            this.storage.initializeWith(newInitialInformation);
+            this.sharedStorage = null;
+            getStorage().initializeWith(newInitialInformation);
             this.mutableStatistics.initializeWith(newInitialInformation);
         }
     }
 
+    @Override
+    public Map<IBlockInformation, Integer> replaceInArea(final Predicate<IBlockInformation> filter, final IBlockInformation blockInformation, final @Nullable BitSet mask) {
+        final Map<IBlockInformation, Integer> replaced = Maps.newHashMap();
+        if (getLevel() == null) {
+            return replaced;
+        }
+
+        //Large operation, better batch this together to prevent weird updates.
+        try (final IBatchMutation ignored = batch()) {
+            this.sharedStorage = null;
+            final IStateEntryStorage storage = getStorage();
+            for (final IBlockInformation currentInformation : storage.getContainedPalette()) {
+                if (currentInformation.equals(blockInformation) || !filter.test(currentInformation)) {
+                    continue;
+                }
+
+                //Clearing a single entry skips block information which can not be chiseled, so this does as well.
+                if (blockInformation.isAir() && !IEligibilityManager.getInstance().canBeChiseled(currentInformation)) {
+                    continue;
+                }
+
+                final int count = storage.replaceAll(currentInformation, blockInformation, mask);
+                if (count > 0) {
+                    replaced.merge(currentInformation, count, Integer::sum);
+                }
+            }
+
+            if (!replaced.isEmpty()) {
+                this.mutableStatistics.recalculate(this.storage);
+            }
+        }
+
+        return replaced;
+    }
+
     @Override
     public Stream<IInWorldMutableStateEntryInfo> inWorldMutableStream() {
         return BlockPosStreamProvider.getForRange(StateEntrySize.current().getBitsPerBlockSide())
                 .map(blockPos -> new StateEntry(
-                        storage.getBlockInformation(blockPos.getX(), blockPos.getY(), blockPos.getZ()),
+                        getStorage().getBlockInformation(blockPos.getX(), blockPos.getY(), blockPos.getZ()),
                         getLevel(),
                         getBlockPos(),
                         blockPos,
@@ -653,7 +1131,7 @@ public class ChiseledBlockEntity extends BlockEntity implements
                         {
                             final Vec3i pos = positionMutator.mutate(blockPos);
                             return new StateEntry(
-                                    storage.getBlockInformation(pos.getX(), pos.getY(), pos.getZ()),
+                                    getStorage().getBlockInformation(pos.getX(), pos.getY(), pos.getZ()),
                                     getLevel(),
                                     getBlockPos(),
                                     pos,
@@ -670,7 +1148,7 @@ public class ChiseledBlockEntity extends BlockEntity implements
         {
             final Vec3i pos = positionMutator.mutate(blockPos);
             consumer.accept(new StateEntry(
-                    storage.getBlockInformation(pos.getX(), pos.getY(), pos.getZ()),
+                    getStorage().getBlockInformation(pos.getX(), pos.getY(), pos.getZ()),
                     getLevel(),
                     getBlockPos(),
                     pos,
@@ -682,7 +1160,7 @@ public class ChiseledBlockEntity extends BlockEntity implements
     @Override
     public IBatchMutation batch() {
         final UUID id = UUID.randomUUID();
-        final IBatchMutation storageBatch = storage.batch();
+        final IBatchMutation storageBatch = getStorage().batch();
 
         this.batchMutations.put(id, new BatchMutationLock(() ->
         {
@@ -690,6 +1168,7 @@ public class ChiseledBlockEntity extends BlockEntity implements
             storageBatch.close();
 
             if (this.batchMutations.isEmpty()) {
+                optimizeStorage();
                 setChanged();
             }
         }));
@@ -720,6 +1199,15 @@ public class ChiseledBlockEntity extends BlockEntity implements
     @Override
     public VoxelShape provideShape(
             final CollisionType type, final BlockPos offset, final boolean simplify) {
+        if (getStorage().isUniform()) {
+            //Uniform blocks are either completely solid or completely empty for a given collision type.
+            final IBlockInformation blockInformation = getStorage().getBlockInformation(0, 0, 0);
+            if (!type.isValidFor(blockInformation.getBlockState()))
+                return Shapes.empty();
+
+            return offset == BlockPos.ZERO ? Shapes.block() : Shapes.block().move(offset.getX(), offset.getY(), offset.getZ());
+        }
+
         VoxelShape shape = new CubeVoxelShape(new MultiStateBlockEntityDiscreteVoxelShape(
                 this.getStatistics().getCollideableEntries(type)
         ));
@@ -828,10 +1316,15 @@ public class ChiseledBlockEntity extends BlockEntity implements
     }
 
     private static final class Identifier implements IArrayBackedAreaShapeIdentifier {
+        private static final long[] NO_DATA = new long[0];
+
         private final IStateEntryStorage snapshot;
+        private final IBlockInformation uniformBlockInformation;
 
         private Identifier(final IStateEntryStorage section) {
-            this.snapshot = section.createSnapshot();
+            //Uniform blocks are fully described by their single block information, no snapshot of the data is needed.
+            this.uniformBlockInformation = section.isUniform() ? section.getBlockInformation(0, 0, 0) : null;
+            this.snapshot = this.uniformBlockInformation == null ? section.createSnapshot() : null;
         }
 
         @Override
@@ -843,12 +1336,19 @@ public class ChiseledBlockEntity extends BlockEntity implements
                 return false;
             }
 
+            if (this.uniformBlockInformation != null && that instanceof final Identifier other && other.uniformBlockInformation != null) {
+                return this.uniformBlockInformation.equals(other.uniformBlockInformation);
+            }
+
             return Arrays.equals(this.getBackingData(), that.getBackingData()) &&
                     this.getPalette().equals(that.getPalette());
         }
 
         @Override
         public int hashCode() {
+            if (uniformBlockInformation != null)
+                return uniformBlockInformation.hashCode();
+
             return snapshot.hashCode();
         }
 
@@ -856,16 +1356,23 @@ public class ChiseledBlockEntity extends BlockEntity implements
         public String toString() {
             return "Identifier{" +
                     "snapshot=" + snapshot +
+                    ", uniformBlockInformation=" + uniformBlockInformation +
                     '}';
         }
 
         @Override
         public long[] getBackingData() {
+            if (uniformBlockInformation != null)
+                return NO_DATA;
+
             return snapshot.getRawData();
         }
 
         @Override
         public List<IBlockInformation> getPalette() {
+            if (uniformBlockInformation != null)
+                return List.of(uniformBlockInformation);
+
             return snapshot.getContainedPalette();
         }
     }
@@ -907,11 +1414,13 @@ public class ChiseledBlockEntity extends BlockEntity implements
 
         @Override
         public boolean isEmpty() {
+            ensureDecoded();
             return this.countMap.size() == 1 && this.countMap.getOrDefault(BlockInformation.AIR, 0) == 4096;
         }
 
         @Override
         public Map<IBlockInformation, Integer> getStateCounts() {
+            ensureDecoded();
             return Collections.unmodifiableMap(countMap);
         }
 
@@ -927,6 +1436,7 @@ public class ChiseledBlockEntity extends BlockEntity implements
 
         @Override
         public float getSlipperiness() {
+            ensureDecoded();
             return (float) this.columnStatisticsTable.values()
                     .stream()
                     .filter(columnStatistics -> columnStatistics.getHighestBit() >= 0)
@@ -948,6 +1458,7 @@ public class ChiseledBlockEntity extends BlockEntity implements
 
         @Override
         public float getRelativeBlockHardness(final Player player) {
+            ensureDecoded();
             final double totalRelativeHardness = (this.countMap.entrySet().stream()
                     .mapToDouble(entry -> (double) entry.getKey().getBlockState().getDestroyProgress(
                             player,
@@ -970,30 +1481,31 @@ public class ChiseledBlockEntity extends BlockEntity implements
 
         @Override
         public boolean canPropagateSkylight() {
+            ensureDecoded();
             return columnStatisticsTable.values()
                     .stream().allMatch(ColumnStatistics::canPropagateSkylightDown);
         }
 
         @Override
         public boolean canSustainGrassBelow() {
+            ensureDecoded();
             return columnStatisticsTable.values()
                     .stream().anyMatch(ColumnStatistics::canLowestBitSustainGrass);
         }
 
         @Override
         public BitSet getCollideableEntries(final CollisionType collisionType) {
+            ensureDecoded();
             final BitSet collisionDataSet = collisionData.computeIfAbsent(collisionType, type ->
             {
                 if (!shouldUpdateWorld())
                     return null;
 
-                final BitSet bitSet = new BitSet(StateEntrySize.current().getBitsPerBlock());
-                BlockPosForEach.forEachInRange(StateEntrySize.current().getBitsPerBlockSide(), blockPos -> bitSet.set(
-                        BlockPosUtils.getCollisionIndex(blockPos),
-                        type.isValidFor(storage.getBlockInformation(blockPos).getBlockState())
-                ));
+                final DeduplicatingStorageCache.SharedStorage shared = sharedStorage;
+                if (shared != null)
+                    return shared.getCollisionData(type, sharedContents -> calculateCollisionData(type, sharedContents));
 
-                return bitSet;
+                return calculateCollisionData(type, storage);
             });
 
             if (collisionDataSet == null)
@@ -1002,6 +1514,32 @@ public class ChiseledBlockEntity extends BlockEntity implements
             return collisionDataSet;
         }
 
+        private BitSet calculateCollisionData(final CollisionType type, final IStateEntryStorage storage) {
+            final BitSet bitSet = new BitSet(StateEntrySize.current().getBitsPerBlock());
+            final boolean airIsValid = type.isValidFor(BlockInformation.AIR.getBlockState());
+            if (airIsValid)
+                bitSet.set(0, StateEntrySize.current().getBitsPerBlock());
+
+            //Only the occupied boxes can differ from air, so those are the only ones which need to be visited.
+            final int size = storage.getSize();
+            storage.forEachNonAirBox((minX, minY, minZ, maxX, maxY, maxZ, blockInformation) -> {
+                final boolean valid = type.isValidFor(blockInformation.getBlockState());
+                if (valid == airIsValid)
+                    return;
+
+                for (int x = minX; x < maxX; x++)
+                {
+                    for (int y = minY; y < maxY; y++)
+                    {
+                        final int rowStart = x * size * size + y * size;
+                        bitSet.set(rowStart + minZ, rowStart + maxZ, valid);
+                    }
+                }
+            });
+
+            return bitSet;
+        }
+
         private void onBlockStateAdded(final IBlockInformation blockInformation, final BlockPos pos, final boolean updateWorld) {
             countMap.putIfAbsent(blockInformation, 0);
             countMap.computeIfPresent(blockInformation, (state, currentCount) -> currentCount + 1);
@@ -1045,7 +1583,7 @@ public class ChiseledBlockEntity extends BlockEntity implements
 
             this.columnStatisticsTable.get(pos.getX(), pos.getZ()).onBlockStateAdded(blockInformation, pos);
 
-            this.collisionData.forEach((collisionType, bitSet) -> bitSet.set(BlockPosUtils.getCollisionIndex(pos), collisionType.isValidFor(blockInformation.getBlockState())));
+            updateCollisionData(pos, blockInformation.getBlockState());
         }
 
         private void updatePrimaryState(final boolean updateWorld) {
@@ -1128,7 +1666,7 @@ public class ChiseledBlockEntity extends BlockEntity implements
             }
 
             this.columnStatisticsTable.get(pos.getX(), pos.getZ()).onBlockStateRemoved(blockInformation, pos);
-            this.collisionData.forEach((collisionType, bitSet) -> bitSet.set(BlockPosUtils.getCollisionIndex(pos), collisionType.isValidFor(Blocks.AIR.defaultBlockState())));
+            updateCollisionData(pos, Blocks.AIR.defaultBlockState());
         }
 
         private void onBlockStateReplaced(final IBlockInformation currentInformation, final IBlockInformation newInformation, final BlockPos pos, final boolean updateWorld) {
@@ -1204,16 +1742,35 @@ public class ChiseledBlockEntity extends BlockEntity implements
 
             this.columnStatisticsTable.get(pos.getX(), pos.getZ()).onBlockStateReplaced(currentInformation, newInformation, pos);
 
-            this.collisionData.forEach((collisionType, bitSet) -> bitSet.set(BlockPosUtils.getCollisionIndex(pos), collisionType.isValidFor(newInformation.getBlockState())));
+            updateCollisionData(pos, newInformation.getBlockState());
+        }
+
+        private void updateCollisionData(final BlockPos pos, final BlockState blockState) {
+            //The collision sets can be shared between identical block entities, so they are replaced instead of modified in place.
+            this.collisionData.replaceAll((collisionType, bitSet) -> {
+                final BitSet updated = (BitSet) bitSet.clone();
+                updated.set(BlockPosUtils.getCollisionIndex(pos), collisionType.isValidFor(blockState));
+                return updated;
+            });
         }
 
         @Override
         public void serializeInto(@NotNull final FriendlyByteBuf packetBuffer) {
-            this.primaryState.serializeInto(packetBuffer);
+            serializeInto(packetBuffer, (buffer, blockInformation) -> blockInformation.serializeInto(buffer));
+        }
+
+        /**
+         * Writes the statistics into the given buffer, using the given writer for all block information.
+         *
+         * @param packetBuffer The buffer to write into.
+         * @param blockInformationWriter The writer for the block information.
+         */
+        private void serializeInto(@NotNull final FriendlyByteBuf packetBuffer, final BiConsumer<FriendlyByteBuf, IBlockInformation> blockInformationWriter) {
+            blockInformationWriter.accept(packetBuffer, this.primaryState);
 
             packetBuffer.writeVarInt(this.countMap.size());
             for (final Map.Entry<IBlockInformation, Integer> blockStateIntegerEntry : this.countMap.entrySet()) {
-                blockStateIntegerEntry.getKey().serializeInto(packetBuffer);
+                blockInformationWriter.accept(packetBuffer, blockStateIntegerEntry.getKey());
                 packetBuffer.writeVarInt(blockStateIntegerEntry.getValue());
             }
 
@@ -1245,16 +1802,26 @@ public class ChiseledBlockEntity extends BlockEntity implements
 
         @Override
         public void deserializeFrom(@NotNull final FriendlyByteBuf packetBuffer) {
+            deserializeFrom(packetBuffer, BlockInformationRegistry.getInstance()::fromBuffer);
+        }
+
+        /**
+         * Reads the statistics from the given buffer, using the given reader for all block information.
+         *
+         * @param packetBuffer The buffer to read from.
+         * @param blockInformationReader The reader for the block information.
+         */
+        private void deserializeFrom(@NotNull final FriendlyByteBuf packetBuffer, final Function<FriendlyByteBuf, IBlockInformation> blockInformationReader) {
             this.countMap.clear();
             this.columnStatisticsTable.clear();
             this.collisionData.clear();
 
-            this.primaryState = new BlockInformation(packetBuffer);
+            this.primaryState = blockInformationReader.apply(packetBuffer);
 
             final int stateCount = packetBuffer.readVarInt();
             for (int i = 0; i < stateCount; i++) {
                 this.countMap.put(
-                        new BlockInformation(packetBuffer),
+                        blockInformationReader.apply(packetBuffer),
                         packetBuffer.readVarInt()
                 );
             }
@@ -1337,14 +1904,14 @@ public class ChiseledBlockEntity extends BlockEntity implements
         public void deserializeNBT(final CompoundTag nbt) {
             this.countMap.clear();
 
-            this.primaryState = new BlockInformation(nbt.getCompound(NbtConstants.PRIMARY_BLOCK_INFORMATION));
+            this.primaryState = BlockInformationRegistry.getInstance().fromNBT(nbt.getCompound(NbtConstants.PRIMARY_BLOCK_INFORMATION));
 
             if (nbt.contains(NbtConstants.BLOCK_STATES, Tag.TAG_LIST)) {
                 final ListTag blockStateList = nbt.getList(NbtConstants.BLOCK_STATES, Tag.TAG_COMPOUND);
                 for (int i = 0; i < blockStateList.size(); i++) {
                     final CompoundTag stateNbt = blockStateList.getCompound(i);
 
-                    BlockInformation blockInformation = new BlockInformation(stateNbt.getCompound(NbtConstants.BLOCK_INFORMATION));
+                    final IBlockInformation blockInformation = BlockInformationRegistry.getInstance().fromNBT(stateNbt.getCompound(NbtConstants.BLOCK_INFORMATION));
 
                     this.countMap.put(
                             blockInformation,
@@ -1408,6 +1975,41 @@ public class ChiseledBlockEntity extends BlockEntity implements
             this.emitsLightBasedOnFullBlock = nbt.contains(NbtConstants.EMITS_LIGHT_BASED_ON_FULL_BLOCK) && nbt.getBoolean(NbtConstants.EMITS_LIGHT_BASED_ON_FULL_BLOCK);
         }
 
+        /**
+         * Writes the values which are needed for the behaviour of the block, without the block needing to be decoded.
+         *
+         * @return The summary.
+         */
+        public CompoundTag serializeSummary() {
+            final CompoundTag nbt = new CompoundTag();
+
+            nbt.put(NbtConstants.PRIMARY_BLOCK_INFORMATION, this.primaryState.serializeNBT());
+            nbt.putInt(NbtConstants.TOTAL_BLOCK_COUNT, totalUsedBlockCount);
+            nbt.putInt(NbtConstants.TOTAL_SHOULD_CHECK_WEAK_POWER_COUNT, totalUsedChecksWeakPowerCount);
+            nbt.putInt(NbtConstants.TOTAL_LIGHT_LEVEL, totalLightLevel);
+            nbt.putInt(NbtConstants.TOTAL_LIGHT_BLOCK_LEVEL, totalLightBlockLevel);
+            nbt.putBoolean(NbtConstants.CAN_BE_FLOODED, canBeFlooded);
+            nbt.putBoolean(NbtConstants.EMITS_LIGHT_BASED_ON_FULL_BLOCK, emitsLightBasedOnFullBlock);
+
+            return nbt;
+        }
+
+        /**
+         * Restores the values written by {@link #serializeSummary()}.
+         * All other statistics remain empty until the block is decoded.
+         *
+         * @param nbt The summary.
+         */
+        public void deserializeSummary(final CompoundTag nbt) {
+            this.primaryState = BlockInformationRegistry.getInstance().fromNBT(nbt.getCompound(NbtConstants.PRIMARY_BLOCK_INFORMATION));
+            this.totalUsedBlockCount = nbt.getInt(NbtConstants.TOTAL_BLOCK_COUNT);
+            this.totalUsedChecksWeakPowerCount = nbt.getInt(NbtConstants.TOTAL_SHOULD_CHECK_WEAK_POWER_COUNT);
+            this.totalLightLevel = nbt.getInt(NbtConstants.TOTAL_LIGHT_LEVEL);
+            this.totalLightBlockLevel = nbt.getInt(NbtConstants.TOTAL_LIGHT_BLOCK_LEVEL);
+            this.canBeFlooded = nbt.getBoolean(NbtConstants.CAN_BE_FLOODED);
+            this.emitsLightBasedOnFullBlock = nbt.getBoolean(NbtConstants.EMITS_LIGHT_BASED_ON_FULL_BLOCK);
+        }
+
         public void initializeWith(final IBlockInformation blockInformation) {
             clear();
             final boolean isAir = blockInformation.isAir();
@@ -1470,6 +2072,30 @@ public class ChiseledBlockEntity extends BlockEntity implements
             }
         }
 
+        /**
+         * Creates a copy of these statistics, which is not affected by later changes to them.
+         * Used to capture the statistics for an off-thread save.
+         *
+         * @return The copy.
+         */
+        private MutableStatistics copy() {
+            final MutableStatistics copy = new MutableStatistics(this.worldReaderSupplier, this.positionSupplier);
+            copy.countMap.putAll(this.countMap);
+            this.columnStatisticsTable.cellSet()
+                    .forEach(cell -> copy.columnStatisticsTable.put(cell.getRowKey(), cell.getColumnKey(), cell.getValue().copy()));
+            //The collision sets are replaced instead of modified in place, so they can be shared with the copy.
+            copy.collisionData.putAll(this.collisionData);
+            copy.primaryState = this.primaryState;
+            copy.totalUsedBlockCount = this.totalUsedBlockCount;
+            copy.totalUsedChecksWeakPowerCount = this.totalUsedChecksWeakPowerCount;
+            copy.totalLightLevel = this.totalLightLevel;
+            copy.totalLightBlockLevel = this.totalLightBlockLevel;
+            copy.canBeFlooded = this.canBeFlooded;
+            copy.emitsLightBasedOnFullBlock = this.emitsLightBasedOnFullBlock;
+            copy.requiresRecalculation = this.requiresRecalculation;
+            return copy;
+        }
+
         private void clear() {
             this.primaryState = BlockInformation.AIR;
 
@@ -1591,6 +2217,17 @@ public class ChiseledBlockEntity extends BlockEntity implements
             this.positionSupplier = positionSupplier;
         }
 
+        private ColumnStatistics copy() {
+            final ColumnStatistics copy = new ColumnStatistics(this.worldReaderSupplier, this.positionSupplier);
+            copy.skylightBlockingBits.or(this.skylightBlockingBits);
+            copy.noneAirBits.or(this.noneAirBits);
+            copy.highestBit = this.highestBit;
+            copy.highestBitFriction = this.highestBitFriction;
+            copy.canPropagateSkylightDown = this.canPropagateSkylightDown;
+            copy.canLowestBitSustainGrass = this.canLowestBitSustainGrass;
+            return copy;
+        }
+
         @SuppressWarnings("unused")
         public BitSet getSkylightBlockingBits() {
             return skylightBlockingBits;
@@ -1817,10 +2454,25 @@ public class ChiseledBlockEntity extends BlockEntity implements
         }
     }
 
-    private final class LZ4StorageBasedStorageHandler implements IStorageHandler<LZ4StorageBasedStorageHandler.Payload> {
+    private void applyPayload(final StoragePayload payload) {
+        storage = payload.storage();
+        mutableStatistics = payload.mutableStatistics();
+        optimizeStorage();
+
+        if (!isInitialized) {
+            setChanged();
+        }
+
+        isInitialized = true;
+    }
+
+    private record StoragePayload(IStateEntryStorage storage, MutableStatistics mutableStatistics) {
+    }
+
+    private final class LZ4StorageBasedStorageHandler implements IStorageHandler<StoragePayload> {
 
         @Override
-        public Payload readPayloadOffThread(CompoundTag nbt) {
+        public StoragePayload readPayloadOffThread(CompoundTag nbt) {
             return LZ4DataCompressionUtils.decompress(nbt, compoundTag -> {
                 final IStateEntryStorage storage = new SimpleStateEntryStorage();
                 final MutableStatistics mutableStatistics = new MutableStatistics(ChiseledBlockEntity.this::getLevel, ChiseledBlockEntity.this::getBlockPos);
@@ -1828,20 +2480,14 @@ public class ChiseledBlockEntity extends BlockEntity implements
                 storage.deserializeNBT(compoundTag.getCompound(NbtConstants.CHISELED_DATA));
                 mutableStatistics.deserializeNBT(compoundTag.getCompound(NbtConstants.STATISTICS));
 
-                return new Payload(storage, mutableStatistics);
+                //Pick the representation here already, so that the conversion does not happen on the game thread.
+                return new StoragePayload(StateEntryStorageSelector.getInstance().select(storage), mutableStatistics);
             });
         }
 
         @Override
-        public void syncPayloadOnGameThread(Payload payload) {
-            storage = payload.storage;
-            mutableStatistics = payload.mutableStatistics;
-
-            if (!isInitialized) {
-                setChanged();
-            }
-
-            isInitialized = true;
+        public void syncPayloadOnGameThread(StoragePayload payload) {
+            applyPayload(payload);
         }
 
         @Override
@@ -1860,6 +2506,7 @@ public class ChiseledBlockEntity extends BlockEntity implements
                 storage.deserializeNBT(compoundTag.getCompound(NbtConstants.CHISELED_DATA));
                 mutableStatistics.deserializeNBT(compoundTag.getCompound(NbtConstants.STATISTICS));
             });
+            optimizeStorage();
         }
 
         @Override
@@ -1872,9 +2519,191 @@ public class ChiseledBlockEntity extends BlockEntity implements
         public void deserializeFrom(@NotNull FriendlyByteBuf packetBuffer) {
             storage.deserializeFrom(packetBuffer);
             mutableStatistics.deserializeFrom(packetBuffer);
+            optimizeStorage();
+        }
+    }
+
+    /**
+     * Stores the block entity as a single binary payload, which is compressed once as a whole.
+     * <p>
+     * The payload starts with a {@link BlockInformationTable} of all block information it refers to. It is followed by the palette
+     * of the storage as indices into that table, the packed data words and the statistics, which also refer to block information
+     * by their index in the table. Network synchronization is unchanged.
+     */
+    private class BinaryStorageHandler implements IThreadAwareStorageHandler<StoragePayload> {
+
+        @Override
+        public StoragePayload readPayloadOffThread(final CompoundTag nbt) {
+            final SimpleStateEntryStorage storage = new SimpleStateEntryStorage();
+            final MutableStatistics mutableStatistics = new MutableStatistics(ChiseledBlockEntity.this::getLevel, ChiseledBlockEntity.this::getBlockPos);
+
+            readPayload(nbt, storage, mutableStatistics);
+
+            //Pick the representation here already, so that the conversion does not happen on the game thread.
+            return new StoragePayload(StateEntryStorageSelector.getInstance().select(storage), mutableStatistics);
         }
 
-        private record Payload(IStateEntryStorage storage, MutableStatistics mutableStatistics) {
+        @Override
+        public void syncPayloadOnGameThread(final StoragePayload payload) {
+            applyPayload(payload);
+        }
+
+        @Override
+        public StoragePayload createPayloadSnapshot() {
+            //The storage is copied on write, so only the statistics are actually copied here.
+            return new StoragePayload(getStorage().createSnapshot(), mutableStatistics.copy());
+        }
+
+        @Override
+        public CompoundTag serializeNBT() {
+            return serializePayload(new StoragePayload(storage, mutableStatistics));
+        }
+
+        @Override
+        public CompoundTag serializePayload(final StoragePayload source) {
+            final BlockInformationTable table = BlockInformationTable.forSharedSpecs();
+            final FriendlyByteBuf body = new FriendlyByteBuf(Unpooled.buffer());
+            writeBody(body, table, source);
+
+            //The table is only complete once everything else is written, but it needs to be read first.
+            final FriendlyByteBuf payload = new FriendlyByteBuf(Unpooled.buffer());
+            table.serializeInto(payload);
+            payload.writeBytes(body);
+
+            final byte[] uncompressedData = new byte[payload.readableBytes()];
+            payload.readBytes(uncompressedData);
+
+            final CompoundTag nbt = new CompoundTag();
+            try {
+                nbt.putByteArray(NbtConstants.DATA, LZ4DataCompressionUtils.compress(uncompressedData));
+                nbt.putBoolean(NbtConstants.COMPRESSED, true);
+            } catch (IOException e) {
+                LOGGER.error("Failed to compress the chiseled block data. Uncompressed data will be stored.", e);
+                nbt.putByteArray(NbtConstants.DATA, uncompressedData);
+                nbt.putBoolean(NbtConstants.COMPRESSED, false);
+            }
+            return nbt;
+        }
+
+        @Override
+        public void deserializeNBT(final CompoundTag nbt) {
+            final SimpleStateEntryStorage readStorage = new SimpleStateEntryStorage();
+            if (!readPayload(nbt, readStorage, mutableStatistics))
+                return;
+
+            storage = readStorage;
+            optimizeStorage();
+        }
+
+        private boolean readPayload(final CompoundTag nbt, final SimpleStateEntryStorage target, final MutableStatistics targetStatistics) {
+            byte[] data = nbt.getByteArray(NbtConstants.DATA);
+            if (nbt.getBoolean(NbtConstants.COMPRESSED)) {
+                try {
+                    data = LZ4DataCompressionUtils.decompress(data);
+                } catch (IOException e) {
+                    LOGGER.error("Failed to decompress the chiseled block data. No data will be loaded.", e);
+                    return false;
+                }
+            }
+
+            final FriendlyByteBuf payload = new FriendlyByteBuf(Unpooled.wrappedBuffer(data));
+            readBody(payload, BlockInformationTable.readFrom(payload), target, targetStatistics);
+            return true;
+        }
+
+        /**
+         * Writes the storage and the statistics, referring to all block information by their index in the given table.
+         *
+         * @param body The buffer to write into.
+         * @param table The table to add the block information to.
+         */
+        void writeBody(final FriendlyByteBuf body, final BlockInformationTable table) {
+            writeBody(body, table, new StoragePayload(storage, mutableStatistics));
+        }
+
+        private void writeBody(final FriendlyByteBuf body, final BlockInformationTable table, final StoragePayload source) {
+            //The palette hands out its shared specs and the storage its words, nothing is copied on the way into the buffer.
+            final SimpleStateEntryStorage packed = StateEntryStorageSelector.getInstance().toPacked(source.storage());
+            packed.serializeInto(body, table::getIndex, entries -> writeEntries(body, packed.getSize(), entries));
+            source.mutableStatistics().serializeInto(body, (buffer, blockInformation) -> buffer.writeVarInt(table.getIndex(blockInformation)));
+        }
+
+        /**
+         * Reads what {@link #writeBody(FriendlyByteBuf, BlockInformationTable)} wrote into the given targets.
+         *
+         * @param payload The buffer to read from.
+         * @param table The table the block information indices refer to.
+         * @param target The storage to read into.
+         * @param targetStatistics The statistics to read into.
+         */
+        void readBody(final FriendlyByteBuf payload, final BlockInformationTable table, final SimpleStateEntryStorage target, final MutableStatistics targetStatistics) {
+            //The storage reads the table entries straight from the shared specs, so no block information is parsed more than once.
+            target.deserializeFrom(payload, table::getSpec, bitsPerEntry -> readEntries(payload, target.getSize(), bitsPerEntry));
+            targetStatistics.deserializeFrom(payload, buffer -> table.getBlockInformation(buffer.readVarInt()));
+        }
+
+        /**
+         * Writes the palette indices of all entries of the storage.
+         *
+         * @param buffer The buffer to write into.
+         * @param sideLength The amount of entries on each side of the storage.
+         * @param entries The palette indices, which must not be modified.
+         */
+        protected void writeEntries(final FriendlyByteBuf buffer, final int sideLength, final PackedLongArray entries) {
+            buffer.writeLongArray(entries.getWords());
+        }
+
+        /**
+         * Reads the palette indices written by {@link #writeEntries(FriendlyByteBuf, int, PackedLongArray)}.
+         *
+         * @param buffer The buffer to read from.
+         * @param sideLength The amount of entries on each side of the storage.
+         * @param bitsPerEntry The width of the palette indices.
+         * @return The palette indices.
+         */
+        protected PackedLongArray readEntries(final FriendlyByteBuf buffer, final int sideLength, final int bitsPerEntry) {
+            //The words are read straight into the array, instead of into an intermediate array which would then be copied.
+            final PackedLongArray entries = new PackedLongArray(sideLength * sideLength * sideLength, bitsPerEntry);
+            final long[] words = entries.getWords();
+            final int wordCount = buffer.readVarInt();
+            if (wordCount > words.length)
+                throw new IllegalArgumentException("Expected at most %d words of palette indices, got: %d".formatted(words.length, wordCount));
+
+            for (int i = 0; i < wordCount; i++) {
+                words[i] = buffer.readLong();
+            }
+            return entries;
+        }
+
+        @Override
+        public void serializeInto(@NotNull FriendlyByteBuf packetBuffer) {
+            storage.serializeInto(packetBuffer);
+            mutableStatistics.serializeInto(packetBuffer);
+        }
+
+        @Override
+        public void deserializeFrom(@NotNull FriendlyByteBuf packetBuffer) {
+            storage.deserializeFrom(packetBuffer);
+            mutableStatistics.deserializeFrom(packetBuffer);
+            optimizeStorage();
+        }
+    }
+
+    /**
+     * Stores the block entity like the {@link BinaryStorageHandler}, but writes the palette indices as runs in Morton order,
+     * using the {@link PaletteRunLengthCodec}, instead of as packed words.
+     * Runs are byte aligned, which lets the compression of the whole payload work a lot better than on the packed words.
+     */
+    private final class PaletteRunLengthStorageHandler extends BinaryStorageHandler {
+
+        @Override
+        protected void writeEntries(final FriendlyByteBuf buffer, final int sideLength, final PackedLongArray entries) {
+            PaletteRunLengthCodec.encode(entries, sideLength, buffer);
+        }
+
+        @Override
+        protected PackedLongArray readEntries(final FriendlyByteBuf buffer, final int sideLength, final int bitsPerEntry) {
+            return PaletteRunLengthCodec.decode(buffer, sideLength, bitsPerEntry);
         }
     }
 
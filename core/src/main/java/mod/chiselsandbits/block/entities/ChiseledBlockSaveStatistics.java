@@ -0,0 +1,67 @@
+package mod.chiselsandbits.block.entities;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts how chunk saves obtained the data of chiseled blocks.
+ * The counters are process wide and are reported by the {@code /candb saving} command.
+ */
+public final class ChiseledBlockSaveStatistics
+{
+    private static final ChiseledBlockSaveStatistics INSTANCE = new ChiseledBlockSaveStatistics();
+
+    public static ChiseledBlockSaveStatistics getInstance()
+    {
+        return INSTANCE;
+    }
+
+    private final Map<SavePath, LongAdder> counters = new EnumMap<>(SavePath.class);
+
+    private ChiseledBlockSaveStatistics()
+    {
+        for (final SavePath path : SavePath.values())
+        {
+            counters.put(path, new LongAdder());
+        }
+    }
+
+    /**
+     * Records that a chunk save took the given path.
+     *
+     * @param path The path that was taken.
+     */
+    public void record(final SavePath path)
+    {
+        counters.get(path).increment();
+    }
+
+    /**
+     * Returns how often the given path was taken since the game started.
+     *
+     * @param path The path.
+     * @return The number of times the path was taken.
+     */
+    public long getCount(final SavePath path)
+    {
+        return counters.get(path).sum();
+    }
+
+    public enum SavePath
+    {
+        /**
+         * The last off-thread save result was up-to-date and was used as is.
+         */
+        CURRENT_TAG,
+        /**
+         * The last off-thread save result was outdated, so the block was serialized on the saving thread instead.
+         * This is the case for every block which was changed within the coalescing interval before the chunk save.
+         */
+        SYNCHRONOUS_OUTDATED_TAG,
+        /**
+         * No save result was available yet, so the block was serialized on the saving thread.
+         */
+        SYNCHRONOUS
+    }
+}
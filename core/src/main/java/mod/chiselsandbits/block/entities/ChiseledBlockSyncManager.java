@@ -0,0 +1,180 @@
+package mod.chiselsandbits.block.entities;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import mod.chiselsandbits.ChiselsAndBits;
+import mod.chiselsandbits.network.packets.ModPacket;
+import net.minecraft.core.BlockPos;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.server.level.ServerPlayer;
+import net.minecraft.world.level.ChunkPos;
+import net.minecraft.world.level.Level;
+import net.minecraft.world.level.chunk.LevelChunk;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Collects the chiseled blocks which changed on the server during a tick, and sends their updates once the tick ends.
+ * <p>
+ * A block can be changed many times within a single tick, for example by multi-click modes, neighbor updates or commands
+ * which do not use a batch. Each block is only sent once per tick, with all of its changes of the tick, and blocks are sent
+ * chunk by chunk. The counters are process wide and are reported by the {@code /candb network} command.
+ */
+public final class ChiseledBlockSyncManager
+{
+    private static final ChiseledBlockSyncManager INSTANCE = new ChiseledBlockSyncManager();
+
+    public static ChiseledBlockSyncManager getInstance()
+    {
+        return INSTANCE;
+    }
+
+    private final Set<ChiseledBlockEntity> changedBlockEntities = Sets.newLinkedHashSet();
+    private final Set<SyncRequest>         answeredSyncRequests = Sets.newHashSet();
+    private long requestedUpdates = 0;
+    private long sentUpdates = 0;
+
+    private ChiseledBlockSyncManager()
+    {
+    }
+
+    private record ChunkKey(Level level, ChunkPos chunkPos)
+    {
+    }
+
+    private record SyncRequest(ServerPlayer player, BlockPos blockPos)
+    {
+    }
+
+    /**
+     * Marks the given block entity as changed, its update is sent at the end of the current tick.
+     * Needs to be invoked on the server thread.
+     *
+     * @param blockEntity The changed block entity.
+     */
+    public void markChanged(final ChiseledBlockEntity blockEntity)
+    {
+        requestedUpdates++;
+        changedBlockEntities.add(blockEntity);
+    }
+
+    /**
+     * Sends the updates of all blocks which changed since the last flush.
+     * Needs to be invoked on the server thread, at the end of a tick.
+     */
+    public void flush()
+    {
+        answeredSyncRequests.clear();
+        if (changedBlockEntities.isEmpty())
+            return;
+
+        final Map<ChunkKey, List<ChiseledBlockEntity>> changesByChunk = Maps.newLinkedHashMap();
+        for (final ChiseledBlockEntity blockEntity : changedBlockEntities)
+        {
+            final Level level = blockEntity.getLevel();
+            if (level == null || blockEntity.isRemoved())
+                continue;
+
+            changesByChunk.computeIfAbsent(new ChunkKey(level, new ChunkPos(blockEntity.getBlockPos())), key -> Lists.newArrayList())
+              .add(blockEntity);
+        }
+        changedBlockEntities.clear();
+
+        changesByChunk.forEach((key, blockEntities) -> {
+            final LevelChunk chunk = key.level().getChunk(key.chunkPos().x, key.chunkPos().z);
+            for (final ChiseledBlockEntity blockEntity : blockEntities)
+            {
+                ChiselsAndBits.getInstance().getNetworkChannel().sendToTrackingChunk(blockEntity.createSyncPacket(), chunk);
+                sentUpdates++;
+            }
+        });
+    }
+
+    /**
+     * Sends the pending update of the given block entity right away, if it has one.
+     * Used before a full update is written, so that the players which are already tracking the block receive the changes of
+     * the current tick based on the version they hold. The player which receives the full update is skipped, it might not
+     * hold that version.
+     *
+     * @param blockEntity The block entity.
+     * @param recipient The player which receives the full update, or null when it is sent to every player tracking the block.
+     */
+    void sendPendingUpdate(final ChiseledBlockEntity blockEntity, @Nullable final ServerPlayer recipient)
+    {
+        if (!changedBlockEntities.remove(blockEntity) || !(blockEntity.getLevel() instanceof ServerLevel level))
+            return;
+
+        //Creating the packet moves the synced version on, so it is needed even if nobody else is tracking the block.
+        final ModPacket packet = blockEntity.createSyncPacket();
+        for (final ServerPlayer player : level.getChunkSource().chunkMap.getPlayers(new ChunkPos(blockEntity.getBlockPos()), false))
+        {
+            if (player != recipient)
+                ChiselsAndBits.getInstance().getNetworkChannel().sendToPlayer(packet, player);
+        }
+        sentUpdates++;
+    }
+
+    /**
+     * Sends a full update of the block at the given position to a player whose client could not apply an update of it.
+     * Only players which are tracking the chunk of the block are answered, and only once per block and tick, so that a client
+     * can neither read blocks it is not tracking nor make the server serialize the same block over and over.
+     * Needs to be invoked on the server thread.
+     *
+     * @param player The player which asked for the update.
+     * @param blockPos The position of the block.
+     */
+    public void answerSyncRequest(final ServerPlayer player, final BlockPos blockPos)
+    {
+        //Never load a chunk on behalf of a client, a client can only be behind on blocks in chunks it is tracking anyway.
+        final ServerLevel level = player.serverLevel();
+        if (!level.isLoaded(blockPos))
+            return;
+
+        if (!level.getChunkSource().chunkMap.getPlayers(new ChunkPos(blockPos), false).contains(player))
+            return;
+
+        if (!answeredSyncRequests.add(new SyncRequest(player, blockPos.immutable())))
+            return;
+
+        if (level.getBlockEntity(blockPos) instanceof ChiseledBlockEntity chiseledBlockEntity)
+        {
+            ChiselsAndBits.getInstance().getNetworkChannel().sendToPlayer(
+              chiseledBlockEntity.createFullSyncPacket(player),
+              player
+            );
+        }
+    }
+
+    /**
+     * Drops all pending updates, used when a server starts, so that no block of a previous server is kept alive.
+     */
+    public void clear()
+    {
+        changedBlockEntities.clear();
+        answeredSyncRequests.clear();
+    }
+
+    /**
+     * Returns how often an update of a block was requested since the game started.
+     *
+     * @return The number of requested updates.
+     */
+    public long getRequestedUpdates()
+    {
+        return requestedUpdates;
+    }
+
+    /**
+     * Returns how many updates were sent since the game started, requests for the same block within a tick are sent as one update.
+     *
+     * @return The number of sent updates.
+     */
+    public long getSentUpdates()
+    {
+        return sentUpdates;
+    }
+}
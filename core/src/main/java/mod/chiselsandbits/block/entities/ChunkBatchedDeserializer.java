@@ -0,0 +1,144 @@
+package mod.chiselsandbits.block.entities;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import mod.chiselsandbits.storage.StorageTaskExecutor;
+import net.minecraft.core.BlockPos;
+import net.minecraft.nbt.CompoundTag;
+import net.minecraft.server.TickTask;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.world.level.ChunkPos;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Loads the chiseled block entities of a chunk together.
+ * <p>
+ * All block entities of a chunk are registered while the chunk is loaded, within a single game thread task.
+ * The first one queues a flush of its chunk on the game thread, which then reads the data of all of them in a single off-thread
+ * task, and applies the results in a single game thread pass, with one light and neighbor update pass for the whole chunk.
+ */
+public final class ChunkBatchedDeserializer
+{
+    private static final ChunkBatchedDeserializer INSTANCE = new ChunkBatchedDeserializer();
+    private static final Logger                   LOGGER   = LogManager.getLogger();
+
+    public static ChunkBatchedDeserializer getInstance()
+    {
+        return INSTANCE;
+    }
+
+    private final Map<ChunkKey, List<PendingLoad>> pendingLoads = Maps.newHashMap();
+
+    private ChunkBatchedDeserializer()
+    {
+    }
+
+    /**
+     * Queues the given data to be loaded into the given block entity, together with all other block entities of its chunk.
+     *
+     * @param level The level the block entity is in.
+     * @param blockEntity The block entity to load.
+     * @param nbt The data to load.
+     */
+    void enqueue(final ServerLevel level, final ChiseledBlockEntity blockEntity, final CompoundTag nbt)
+    {
+        final ChunkKey key = new ChunkKey(level, new ChunkPos(blockEntity.getBlockPos()));
+        synchronized (pendingLoads)
+        {
+            final List<PendingLoad> loads = pendingLoads.get(key);
+            if (loads != null)
+            {
+                loads.add(new PendingLoad(blockEntity, nbt));
+                return;
+            }
+
+            pendingLoads.put(key, Lists.newArrayList(new PendingLoad(blockEntity, nbt)));
+        }
+
+        //The other block entities of the chunk are registered within the currently running task, so they are all queued once this runs.
+        level.getServer().tell(new TickTask(level.getServer().getTickCount(), () -> flush(key)));
+    }
+
+    private void flush(final ChunkKey key)
+    {
+        final List<PendingLoad> loads;
+        synchronized (pendingLoads)
+        {
+            loads = pendingLoads.remove(key);
+        }
+
+        if (loads == null || loads.isEmpty())
+            return;
+
+        CompletableFuture.supplyAsync(() -> read(loads), StorageTaskExecutor.getInstance())
+          .thenAcceptAsync(results -> apply(key, results), command -> key.level().getServer().tell(new TickTask(key.level().getServer().getTickCount(), command)))
+          .exceptionally(throwable -> {
+              LOGGER.error("Failed to load the chiseled blocks of chunk %s.".formatted(key.chunkPos()), throwable);
+              return null;
+          });
+    }
+
+    private static List<LoadResult> read(final List<PendingLoad> loads)
+    {
+        final List<LoadResult> results = Lists.newArrayListWithCapacity(loads.size());
+        for (final PendingLoad load : loads)
+        {
+            try
+            {
+                results.add(new LoadResult(load.blockEntity(), load.nbt(), load.blockEntity().prepareBatchedLoad(load.nbt())));
+            }
+            catch (RuntimeException e)
+            {
+                LOGGER.error("Failed to read the chiseled block at %s.".formatted(load.blockEntity().getBlockPos()), e);
+            }
+        }
+
+        return results;
+    }
+
+    private static void apply(final ChunkKey key, final List<LoadResult> results)
+    {
+        final List<ChiseledBlockEntity> loaded = Lists.newArrayListWithCapacity(results.size());
+        boolean requiresSave = false;
+        for (final LoadResult result : results)
+        {
+            if (result.blockEntity().isRemoved())
+                continue;
+
+            try
+            {
+                requiresSave |= result.blockEntity().applyBatchedLoad(result.nbt(), result.apply());
+                loaded.add(result.blockEntity());
+            }
+            catch (RuntimeException e)
+            {
+                LOGGER.error("Failed to apply the chiseled block at %s.".formatted(result.blockEntity().getBlockPos()), e);
+            }
+        }
+
+        final ServerLevel level = key.level();
+        if (loaded.isEmpty() || !level.hasChunk(key.chunkPos().x, key.chunkPos().z))
+            return;
+
+        if (requiresSave)
+            level.getChunk(key.chunkPos().x, key.chunkPos().z).setUnsaved(true);
+
+        for (final ChiseledBlockEntity blockEntity : loaded)
+        {
+            final BlockPos pos = blockEntity.getBlockPos();
+            level.getLightEngine().checkBlock(pos);
+            level.updateNeighborsAt(pos, level.getBlockState(pos).getBlock());
+        }
+    }
+
+    private record ChunkKey(ServerLevel level, ChunkPos chunkPos) {}
+
+    private record PendingLoad(ChiseledBlockEntity blockEntity, CompoundTag nbt) {}
+
+    private record LoadResult(ChiseledBlockEntity blockEntity, CompoundTag nbt, Runnable apply) {}
+}
@@ -0,0 +1,140 @@
+package mod.chiselsandbits.block.entities.storage;
+
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
+import mod.chiselsandbits.api.axissize.CollisionType;
+import mod.chiselsandbits.api.block.storage.IStateEntryStorage;
+import mod.chiselsandbits.api.multistate.accessor.identifier.IAreaShapeIdentifier;
+
+import java.util.BitSet;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Content addressed cache which makes storages with identical contents share a single immutable canonical storage.
+ * <p>
+ * Storages handed out by this cache are copy on write snapshots of the canonical storage, so they share its data until they are
+ * modified. Artifacts which are derived purely from the contents of a storage, like collision bitsets and shape identifiers, are
+ * computed once per distinct content and shared as well.
+ * <p>
+ * Canonical storages are only weakly referenced and are released once no holder of a {@link SharedStorage} remains.
+ */
+public final class DeduplicatingStorageCache
+{
+    private static final DeduplicatingStorageCache INSTANCE = new DeduplicatingStorageCache();
+
+    public static DeduplicatingStorageCache getInstance()
+    {
+        return INSTANCE;
+    }
+
+    private final Interner<SharedStorage> interner = Interners.newWeakInterner();
+
+    private DeduplicatingStorageCache()
+    {
+    }
+
+    /**
+     * Looks up the shared storage with the same contents as the given storage, registering the contents if they are new.
+     *
+     * @param storage The storage to deduplicate.
+     * @return The shared storage with the same contents.
+     */
+    public SharedStorage share(final IStateEntryStorage storage)
+    {
+        return interner.intern(new SharedStorage(storage.createSnapshot()));
+    }
+
+    /**
+     * A canonical storage, together with the artifacts derived from its contents.
+     * The canonical storage itself is never modified.
+     */
+    public static final class SharedStorage
+    {
+        private final IStateEntryStorage         canonical;
+        private final int                        hashCode;
+        private final Map<CollisionType, BitSet> collisionData = new EnumMap<>(CollisionType.class);
+        private volatile IAreaShapeIdentifier    identifier;
+
+        private SharedStorage(final IStateEntryStorage canonical)
+        {
+            this.canonical = canonical;
+            this.hashCode = canonical.hashCode();
+        }
+
+        /**
+         * Creates a new storage with the shared contents.
+         * The returned storage shares its data with all other storages of the same contents until it is modified.
+         *
+         * @return The new storage.
+         */
+        public IStateEntryStorage createStorage()
+        {
+            return canonical.createSnapshot();
+        }
+
+        /**
+         * Gives access to the collision bitset of the shared contents, computing it if needed.
+         * The returned bitset is shared and must not be modified.
+         *
+         * @param collisionType The collision type to get the bitset for.
+         * @param calculator The calculator used to compute the bitset from the canonical storage.
+         * @return The shared bitset.
+         */
+        public BitSet getCollisionData(final CollisionType collisionType, final Function<IStateEntryStorage, BitSet> calculator)
+        {
+            synchronized (collisionData)
+            {
+                return collisionData.computeIfAbsent(collisionType, type -> calculator.apply(canonical));
+            }
+        }
+
+        /**
+         * Gives access to the shape identifier of the shared contents, creating it if needed.
+         *
+         * @param identifierFactory The factory used to create the identifier.
+         * @return The shared identifier.
+         */
+        public IAreaShapeIdentifier getIdentifier(final Supplier<IAreaShapeIdentifier> identifierFactory)
+        {
+            IAreaShapeIdentifier result = identifier;
+            if (result == null)
+            {
+                result = identifierFactory.get();
+                identifier = result;
+            }
+            return result;
+        }
+
+        @Override
+        public boolean equals(final Object o)
+        {
+            if (this == o)
+            {
+                return true;
+            }
+            if (!(o instanceof final SharedStorage that))
+            {
+                return false;
+            }
+
+            return hashCode == that.hashCode && canonical.equals(that.canonical);
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return hashCode;
+        }
+
+        @Override
+        public String toString()
+        {
+            return "SharedStorage{" +
+                     "canonical=" + canonical +
+                     '}';
+        }
+    }
+}
@@ -0,0 +1,731 @@
+package mod.chiselsandbits.block.entities.storage;
+
+import com.google.common.math.LongMath;
+import mod.chiselsandbits.api.block.storage.IStateEntryBoxConsumer;
+import mod.chiselsandbits.api.block.storage.IStateEntryStorage;
+import mod.chiselsandbits.api.blockinformation.IBlockInformation;
+import mod.chiselsandbits.api.config.IServerConfiguration;
+import mod.chiselsandbits.api.util.IBatchMutation;
+import mod.chiselsandbits.utils.PackedLongArray;
+import net.minecraft.core.Direction;
+import net.minecraft.core.Vec3i;
+import net.minecraft.nbt.CompoundTag;
+import net.minecraft.network.FriendlyByteBuf;
+import net.minecraft.world.level.chunk.LevelChunkSection;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.math.RoundingMode;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.function.BiConsumer;
+
+/**
+ * A sparse storage which keeps its entries in an octree, in which every cube that only contains a single block information is
+ * collapsed into a single node.
+ * <p>
+ * This is a lot smaller than a packed storage for blocks which are mostly empty, and operations which visit the storage by box
+ * only need to visit the occupied parts of it. Nodes are immutable, so snapshots share the whole tree and mutations only copy
+ * the path to the changed entry.
+ * <p>
+ * The serialized form is the same as the one of {@link SimpleStateEntryStorage}, so both storages can read each others data.
+ */
+public class OctreeStateEntryStorage implements IStateEntryStorage
+{
+    private static final int AIR_INDEX = 0;
+
+    private final int                     size;
+    private final SimpleStateEntryPalette palette;
+
+    private Node root = Node.leaf(AIR_INDEX);
+
+    public OctreeStateEntryStorage()
+    {
+        this(IServerConfiguration.getInstance().getBitSize().get().getBitsPerBlockSide());
+    }
+
+    public OctreeStateEntryStorage(final int size)
+    {
+        if (Integer.bitCount(size) != 1)
+            throw new IllegalArgumentException("The size of an octree storage needs to be a power of two, got: " + size);
+
+        this.size = size;
+        this.palette = new SimpleStateEntryPalette(newSize -> {}, this::onPaletteIndexChanged);
+    }
+
+    @SuppressWarnings("CopyConstructorMissesField")
+    private OctreeStateEntryStorage(final OctreeStateEntryStorage storage)
+    {
+        this.size = storage.size;
+        this.palette = new SimpleStateEntryPalette(newSize -> {}, this::onPaletteIndexChanged, storage.palette);
+        this.root = storage.root;
+    }
+
+    /**
+     * Creates a new octree storage with the same contents as the given storage.
+     *
+     * @param source The storage to copy.
+     * @return The octree storage.
+     */
+    public static OctreeStateEntryStorage copyOf(final IStateEntryStorage source)
+    {
+        if (source instanceof final OctreeStateEntryStorage octree)
+            return new OctreeStateEntryStorage(octree);
+
+        final OctreeStateEntryStorage result = new OctreeStateEntryStorage(source.getSize());
+        final int[] values = new int[result.getTotalEntryCount()];
+        source.forEachNonAirBox((minX, minY, minZ, maxX, maxY, maxZ, blockInformation) -> {
+            final int blockStateId = result.palette.getIndex(blockInformation);
+            for (int x = minX; x < maxX; x++)
+            {
+                for (int y = minY; y < maxY; y++)
+                {
+                    final int rowStart = result.getIndex(x, y, 0);
+                    Arrays.fill(values, rowStart + minZ, rowStart + maxZ, blockStateId);
+                }
+            }
+        });
+
+        result.root = result.build(values, 0, 0, 0, result.size);
+        return result;
+    }
+
+    @Override
+    public int getSize()
+    {
+        return size;
+    }
+
+    private int getTotalEntryCount()
+    {
+        return size * size * size;
+    }
+
+    private int getIndex(final int x, final int y, final int z)
+    {
+        return x * size * size + y * size + z;
+    }
+
+    /**
+     * Indicates how many of the positions in this storage do not contain air.
+     *
+     * @return The amount of occupied positions.
+     */
+    public int getOccupiedCount()
+    {
+        final int[] occupied = new int[1];
+        forEachNonAirBox((minX, minY, minZ, maxX, maxY, maxZ, blockInformation) ->
+                           occupied[0] += (maxX - minX) * (maxY - minY) * (maxZ - minZ));
+        return occupied[0];
+    }
+
+    @Override
+    public void clear()
+    {
+        this.palette.clear();
+        this.root = Node.leaf(AIR_INDEX);
+    }
+
+    @Override
+    public void initializeWith(final IBlockInformation currentState)
+    {
+        clear();
+        if (currentState.isAir())
+            return;
+
+        this.root = Node.leaf(palette.getIndex(currentState));
+    }
+
+    @Override
+    public void loadFromChunkSection(final LevelChunkSection chunkSection)
+    {
+        final SimpleStateEntryStorage packed = new SimpleStateEntryStorage(size);
+        packed.loadFromChunkSection(chunkSection);
+        loadFrom(packed);
+    }
+
+    @Override
+    public IBlockInformation getBlockInformation(final int x, final int y, final int z)
+    {
+        Node node = root;
+        int half = size >> 1;
+        int localX = x, localY = y, localZ = z;
+        while (!node.isLeaf())
+        {
+            node = node.children[getOctant(localX, localY, localZ, half)];
+            localX &= half - 1;
+            localY &= half - 1;
+            localZ &= half - 1;
+            half >>= 1;
+        }
+
+        return palette.getBlockState(node.value);
+    }
+
+    @Override
+    public void setBlockInformation(final int x, final int y, final int z, final IBlockInformation blockState)
+    {
+        this.root = set(root, size, x, y, z, palette.getIndex(blockState));
+    }
+
+    private static Node set(final Node node, final int nodeSize, final int x, final int y, final int z, final int value)
+    {
+        if (node.isLeaf() && node.value == value)
+            return node;
+
+        if (nodeSize == 1)
+            return Node.leaf(value);
+
+        final int half = nodeSize >> 1;
+        final Node[] children = node.isLeaf() ? node.split() : node.children.clone();
+        final int octant = getOctant(x, y, z, half);
+        children[octant] = set(children[octant], half, x & (half - 1), y & (half - 1), z & (half - 1), value);
+        return Node.of(children);
+    }
+
+    private static int getOctant(final int x, final int y, final int z, final int half)
+    {
+        return ((x & half) != 0 ? 4 : 0) | ((y & half) != 0 ? 2 : 0) | ((z & half) != 0 ? 1 : 0);
+    }
+
+    @Override
+    public void fillBox(final Vec3i min, final Vec3i max, final IBlockInformation blockInformation, final @Nullable BitSet mask)
+    {
+        checkBox(size, min, max);
+        final int blockStateId = palette.getIndex(blockInformation);
+        if (mask == null) {
+            this.root = fill(root, 0, 0, 0, size, min, max, blockStateId);
+            return;
+        }
+
+        final int[] values = toIndexArray();
+        for (int x = min.getX(); x < max.getX(); x++)
+        {
+            for (int y = min.getY(); y < max.getY(); y++)
+            {
+                final int rowStart = getIndex(x, y, 0);
+                for (int i = mask.nextSetBit(rowStart + min.getZ()); i >= 0 && i < rowStart + max.getZ(); i = mask.nextSetBit(i + 1))
+                {
+                    values[i] = blockStateId;
+                }
+            }
+        }
+        this.root = build(values, 0, 0, 0, size);
+    }
+
+    private static Node fill(final Node node, final int originX, final int originY, final int originZ, final int nodeSize, final Vec3i min, final Vec3i max, final int value)
+    {
+        if (originX >= max.getX() || originY >= max.getY() || originZ >= max.getZ() ||
+              originX + nodeSize <= min.getX() || originY + nodeSize <= min.getY() || originZ + nodeSize <= min.getZ())
+            return node;
+
+        if (node.isLeaf() && node.value == value)
+            return node;
+
+        if (originX >= min.getX() && originY >= min.getY() && originZ >= min.getZ() &&
+              originX + nodeSize <= max.getX() && originY + nodeSize <= max.getY() && originZ + nodeSize <= max.getZ())
+            return Node.leaf(value);
+
+        final int half = nodeSize >> 1;
+        final Node[] children = node.isLeaf() ? node.split() : node.children.clone();
+        for (int octant = 0; octant < 8; octant++)
+        {
+            children[octant] = fill(children[octant], originX + getOctantOffsetX(octant, half), originY + getOctantOffsetY(octant, half), originZ + getOctantOffsetZ(octant, half), half, min, max, value);
+        }
+        return Node.of(children);
+    }
+
+    @Override
+    public int replaceAll(final IBlockInformation from, final IBlockInformation to, final @Nullable BitSet mask)
+    {
+        final int fromId = palette.findIndex(from);
+        if (fromId < 0 || from.equals(to))
+            return 0;
+
+        final int toId = palette.getIndex(to);
+        final int[] values = toIndexArray();
+        int replaced = 0;
+        for (int i = 0; i < values.length; i++)
+        {
+            if (values[i] == fromId && (mask == null || mask.get(i))) {
+                values[i] = toId;
+                replaced++;
+            }
+        }
+
+        if (replaced > 0)
+            this.root = build(values, 0, 0, 0, size);
+        return replaced;
+    }
+
+    @Override
+    public void copyFrom(final IStateEntryStorage source, final Vec3i sourceMin, final Vec3i sourceMax, final Vec3i targetOffset)
+    {
+        checkBox(source.getSize(), sourceMin, sourceMax);
+        final Vec3i targetMax = targetOffset.offset(sourceMax.subtract(sourceMin));
+        checkBox(size, targetOffset, targetMax);
+
+        //Read everything first, this keeps copies within the same storage correct, even when the boxes overlap.
+        final IBlockInformation[] copied = new IBlockInformation[(sourceMax.getX() - sourceMin.getX()) * (sourceMax.getY() - sourceMin.getY()) * (sourceMax.getZ() - sourceMin.getZ())];
+        int offset = 0;
+        for (int x = sourceMin.getX(); x < sourceMax.getX(); x++)
+        {
+            for (int y = sourceMin.getY(); y < sourceMax.getY(); y++)
+            {
+                for (int z = sourceMin.getZ(); z < sourceMax.getZ(); z++)
+                {
+                    copied[offset++] = source.getBlockInformation(x, y, z);
+                }
+            }
+        }
+
+        final int[] values = toIndexArray();
+        offset = 0;
+        for (int x = targetOffset.getX(); x < targetMax.getX(); x++)
+        {
+            for (int y = targetOffset.getY(); y < targetMax.getY(); y++)
+            {
+                for (int z = targetOffset.getZ(); z < targetMax.getZ(); z++)
+                {
+                    values[getIndex(x, y, z)] = palette.getIndex(copied[offset++]);
+                }
+            }
+        }
+        this.root = build(values, 0, 0, 0, size);
+    }
+
+    @Override
+    public int countInBox(final IBlockInformation blockInformation, final Vec3i min, final Vec3i max)
+    {
+        checkBox(size, min, max);
+        final int blockStateId = palette.findIndex(blockInformation);
+        if (blockStateId < 0)
+            return 0;
+
+        return count(root, 0, 0, 0, size, min, max, blockStateId);
+    }
+
+    private static int count(final Node node, final int originX, final int originY, final int originZ, final int nodeSize, final Vec3i min, final Vec3i max, final int value)
+    {
+        if (node.isLeaf()) {
+            if (node.value != value)
+                return 0;
+
+            final int sizeX = Math.min(originX + nodeSize, max.getX()) - Math.max(originX, min.getX());
+            final int sizeY = Math.min(originY + nodeSize, max.getY()) - Math.max(originY, min.getY());
+            final int sizeZ = Math.min(originZ + nodeSize, max.getZ()) - Math.max(originZ, min.getZ());
+            return sizeX <= 0 || sizeY <= 0 || sizeZ <= 0 ? 0 : sizeX * sizeY * sizeZ;
+        }
+
+        if (originX >= max.getX() || originY >= max.getY() || originZ >= max.getZ() ||
+              originX + nodeSize <= min.getX() || originY + nodeSize <= min.getY() || originZ + nodeSize <= min.getZ())
+            return 0;
+
+        final int half = nodeSize >> 1;
+        int result = 0;
+        for (int octant = 0; octant < 8; octant++)
+        {
+            result += count(node.children[octant], originX + getOctantOffsetX(octant, half), originY + getOctantOffsetY(octant, half), originZ + getOctantOffsetZ(octant, half), half, min, max, value);
+        }
+        return result;
+    }
+
+    @Override
+    public void forEachNonAirBox(final IStateEntryBoxConsumer consumer)
+    {
+        forEachLeaf(root, 0, 0, 0, size, (originX, originY, originZ, nodeSize, value) -> {
+            final IBlockInformation blockInformation = palette.getBlockState(value);
+            if (!blockInformation.isAir())
+                consumer.accept(originX, originY, originZ, originX + nodeSize, originY + nodeSize, originZ + nodeSize, blockInformation);
+        });
+    }
+
+    @Override
+    public boolean isUniform()
+    {
+        return root.isLeaf();
+    }
+
+    @Override
+    public void count(final BiConsumer<IBlockInformation, Integer> storageConsumer)
+    {
+        final int[] counts = new int[palette.size()];
+        forEachLeaf(root, 0, 0, 0, size, (originX, originY, originZ, nodeSize, value) -> counts[value] += nodeSize * nodeSize * nodeSize);
+
+        for (int i = 0; i < counts.length; i++)
+        {
+            if (counts[i] > 0)
+                storageConsumer.accept(palette.getBlockState(i), counts[i]);
+        }
+    }
+
+    @Override
+    public long[] getRawData()
+    {
+        final int entryWidth = LongMath.log2(palette.size(), RoundingMode.CEILING);
+        final PackedLongArray packed = new PackedLongArray(getTotalEntryCount(), entryWidth);
+        packed.setRange(0, toIndexArray(), 0, getTotalEntryCount());
+        return packed.getWords();
+    }
+
+    @Override
+    public IStateEntryStorage createSnapshot()
+    {
+        return new OctreeStateEntryStorage(this);
+    }
+
+    @Override
+    public void fillFromBottom(final IBlockInformation state, final int entries)
+    {
+        clear();
+        final int loopCount = Math.max(0, Math.min(entries, getTotalEntryCount()));
+        if (loopCount == 0)
+            return;
+
+        final int blockStateId = palette.getIndex(state);
+        final int[] values = new int[getTotalEntryCount()];
+        int filled = 0;
+        for (int y = 0; y < size && filled < loopCount; y++)
+        {
+            for (int x = 0; x < size && filled < loopCount; x++)
+            {
+                for (int z = 0; z < size && filled < loopCount; z++)
+                {
+                    values[getIndex(x, y, z)] = blockStateId;
+                    filled++;
+                }
+            }
+        }
+        this.root = build(values, 0, 0, 0, size);
+    }
+
+    @Override
+    public List<IBlockInformation> getContainedPalette()
+    {
+        return palette.getStates();
+    }
+
+    @Override
+    public void rotate(final Direction.Axis axis, final int rotationCount)
+    {
+        final int rotations = Math.floorMod(rotationCount, 4);
+        if (rotations == 0 || isUniform())
+            return;
+
+        permute(StoragePermutations.forSize(size).getRotation(axis, rotations));
+    }
+
+    @Override
+    public void mirror(final Direction.Axis axis)
+    {
+        if (isUniform())
+            return;
+
+        permute(StoragePermutations.forSize(size).getMirror(axis));
+    }
+
+    private void permute(final int[] sourceIndices)
+    {
+        final int[] values = toIndexArray();
+        final int[] permuted = new int[values.length];
+        for (int i = 0; i < permuted.length; i++)
+        {
+            permuted[i] = values[sourceIndices[i]];
+        }
+        this.root = build(permuted, 0, 0, 0, size);
+    }
+
+    @Override
+    public CompoundTag serializeNBT()
+    {
+        return toPacked().serializeNBT();
+    }
+
+    @Override
+    public void deserializeNBT(final CompoundTag nbt)
+    {
+        final SimpleStateEntryStorage packed = new SimpleStateEntryStorage(size);
+        packed.deserializeNBT(nbt);
+        loadFrom(packed);
+    }
+
+    @Override
+    public void serializeInto(final @NotNull FriendlyByteBuf packetBuffer)
+    {
+        toPacked().serializeInto(packetBuffer);
+    }
+
+    @Override
+    public void deserializeFrom(final @NotNull FriendlyByteBuf packetBuffer)
+    {
+        final SimpleStateEntryStorage packed = new SimpleStateEntryStorage(size);
+        packed.deserializeFrom(packetBuffer);
+        loadFrom(packed);
+    }
+
+    @Override
+    public IBatchMutation batch()
+    {
+        //Cubes are collapsed on every mutation, so there is nothing to do once a batch completes.
+        return () -> {};
+    }
+
+    /**
+     * Converts this storage into an equivalent packed storage.
+     *
+     * @return The packed storage.
+     */
+    public SimpleStateEntryStorage toPacked()
+    {
+        final SimpleStateEntryStorage packed = new SimpleStateEntryStorage(size);
+        try (IBatchMutation ignored = packed.batch())
+        {
+            forEachNonAirBox((minX, minY, minZ, maxX, maxY, maxZ, blockInformation) ->
+                               packed.fillBox(new Vec3i(minX, minY, minZ), new Vec3i(maxX, maxY, maxZ), blockInformation));
+        }
+        return packed;
+    }
+
+    private void loadFrom(final IStateEntryStorage source)
+    {
+        final OctreeStateEntryStorage loaded = copyOf(source);
+        this.palette.clear();
+        final int[] remapping = new int[loaded.palette.size()];
+        for (int i = 0; i < remapping.length; i++)
+        {
+            remapping[i] = this.palette.getIndex(loaded.palette.getBlockState(i));
+        }
+        this.root = remap(loaded.root, remapping);
+    }
+
+    private void onPaletteIndexChanged(final int[] remapping)
+    {
+        this.root = remap(this.root, remapping);
+    }
+
+    private static Node remap(final Node node, final int[] remapping)
+    {
+        if (node.isLeaf()) {
+            if (node.value >= remapping.length)
+                return node;
+
+            //Entries whose state was removed from the palette fall back to air.
+            final int value = remapping[node.value] < 0 ? AIR_INDEX : remapping[node.value];
+            return value == node.value ? node : Node.leaf(value);
+        }
+
+        final Node[] children = new Node[8];
+        for (int octant = 0; octant < 8; octant++)
+        {
+            children[octant] = remap(node.children[octant], remapping);
+        }
+        return Node.of(children);
+    }
+
+    /**
+     * Flattens the tree into an array of palette indices, using the same layout as the packed storage.
+     */
+    private int[] toIndexArray()
+    {
+        final int[] values = new int[getTotalEntryCount()];
+        forEachLeaf(root, 0, 0, 0, size, (originX, originY, originZ, nodeSize, value) -> {
+            if (value == 0)
+                return;
+
+            for (int x = originX; x < originX + nodeSize; x++)
+            {
+                for (int y = originY; y < originY + nodeSize; y++)
+                {
+                    final int rowStart = getIndex(x, y, originZ);
+                    Arrays.fill(values, rowStart, rowStart + nodeSize, value);
+                }
+            }
+        });
+        return values;
+    }
+
+    /**
+     * Builds the tree for the given cube from an array of palette indices, collapsing uniform cubes on the way.
+     */
+    private Node build(final int[] values, final int originX, final int originY, final int originZ, final int nodeSize)
+    {
+        if (nodeSize == 1)
+            return Node.leaf(values[getIndex(originX, originY, originZ)]);
+
+        final int half = nodeSize >> 1;
+        final Node[] children = new Node[8];
+        for (int octant = 0; octant < 8; octant++)
+        {
+            children[octant] = build(values, originX + getOctantOffsetX(octant, half), originY + getOctantOffsetY(octant, half), originZ + getOctantOffsetZ(octant, half), half);
+        }
+        return Node.of(children);
+    }
+
+    private static void forEachLeaf(final Node node, final int originX, final int originY, final int originZ, final int nodeSize, final LeafConsumer consumer)
+    {
+        if (node.isLeaf()) {
+            consumer.accept(originX, originY, originZ, nodeSize, node.value);
+            return;
+        }
+
+        final int half = nodeSize >> 1;
+        for (int octant = 0; octant < 8; octant++)
+        {
+            forEachLeaf(node.children[octant], originX + getOctantOffsetX(octant, half), originY + getOctantOffsetY(octant, half), originZ + getOctantOffsetZ(octant, half), half, consumer);
+        }
+    }
+
+    private static int getOctantOffsetX(final int octant, final int half)
+    {
+        return (octant & 4) != 0 ? half : 0;
+    }
+
+    private static int getOctantOffsetY(final int octant, final int half)
+    {
+        return (octant & 2) != 0 ? half : 0;
+    }
+
+    private static int getOctantOffsetZ(final int octant, final int half)
+    {
+        return (octant & 1) != 0 ? half : 0;
+    }
+
+    private static void checkBox(final int size, final Vec3i min, final Vec3i max)
+    {
+        if (min.getX() < 0 || min.getY() < 0 || min.getZ() < 0 ||
+              max.getX() > size || max.getY() > size || max.getZ() > size ||
+              min.getX() > max.getX() || min.getY() > max.getY() || min.getZ() > max.getZ())
+            throw new IllegalArgumentException("The box from %s to %s is not inside a storage of size %d".formatted(min, max, size));
+    }
+
+    @Override
+    public boolean equals(final Object o)
+    {
+        if (this == o)
+        {
+            return true;
+        }
+        if (!(o instanceof final OctreeStateEntryStorage that))
+        {
+            return false;
+        }
+
+        return size == that.size && palette.equals(that.palette) && root.equals(that.root);
+    }
+
+    @Override
+    public int hashCode()
+    {
+        int result = size;
+        result = 31 * result + palette.hashCode();
+        result = 31 * result + root.hashCode();
+        return result;
+    }
+
+    @Override
+    public String toString()
+    {
+        return "OctreeStateEntryStorage{" +
+                 "size=" + size +
+                 ", palette=" + palette +
+                 '}';
+    }
+
+    @FunctionalInterface
+    private interface LeafConsumer
+    {
+        void accept(int originX, int originY, int originZ, int nodeSize, int value);
+    }
+
+    /**
+     * An immutable node of the tree, either a leaf with a single palette index or a branch with eight children.
+     * Children are ordered by octant, where bit 2 selects the upper x half, bit 1 the upper y half and bit 0 the upper z half.
+     */
+    private static final class Node
+    {
+        private static final Node[] SHARED_LEAVES = new Node[16];
+
+        static
+        {
+            for (int i = 0; i < SHARED_LEAVES.length; i++)
+            {
+                SHARED_LEAVES[i] = new Node(i, null);
+            }
+        }
+
+        private final int    value;
+        private final Node[] children;
+        private       int    hashCode;
+
+        private Node(final int value, final Node[] children)
+        {
+            this.value = value;
+            this.children = children;
+        }
+
+        private static Node leaf(final int value)
+        {
+            return value < SHARED_LEAVES.length ? SHARED_LEAVES[value] : new Node(value, null);
+        }
+
+        /**
+         * Creates a branch with the given children, or a single leaf if all children are leaves with the same value.
+         */
+        private static Node of(final Node[] children)
+        {
+            final Node first = children[0];
+            if (first.isLeaf()) {
+                boolean uniform = true;
+                for (int i = 1; i < children.length && uniform; i++)
+                {
+                    uniform = children[i].isLeaf() && children[i].value == first.value;
+                }
+
+                if (uniform)
+                    return first;
+            }
+
+            return new Node(-1, children);
+        }
+
+        private boolean isLeaf()
+        {
+            return children == null;
+        }
+
+        private Node[] split()
+        {
+            final Node[] split = new Node[8];
+            Arrays.fill(split, this);
+            return split;
+        }
+
+        @Override
+        public boolean equals(final Object o)
+        {
+            if (this == o)
+            {
+                return true;
+            }
+            if (!(o instanceof final Node node))
+            {
+                return false;
+            }
+
+            return value == node.value && Arrays.equals(children, node.children);
+        }
+
+        @Override
+        public int hashCode()
+        {
+            int result = hashCode;
+            if (result == 0)
+            {
+                result = 31 * value + Arrays.hashCode(children);
+                hashCode = result;
+            }
+            return result;
+        }
+    }
+}
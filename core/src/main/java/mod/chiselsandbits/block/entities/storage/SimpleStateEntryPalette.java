@@ -1,11 +1,10 @@
 package mod.chiselsandbits.block.entities.storage;
 
-import com.google.common.collect.BiMap;
-import com.google.common.collect.HashBiMap;
-import com.google.common.collect.Lists;
-import com.google.common.collect.Maps;
+import it.unimi.dsi.fastutil.objects.Object2IntMap;
+import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
 import mod.chiselsandbits.api.blockinformation.IBlockInformation;
 import mod.chiselsandbits.blockinformation.BlockInformation;
+import mod.chiselsandbits.blockinformation.BlockInformationRegistry;
 import mod.chiselsandbits.api.util.INBTSerializable;
 import mod.chiselsandbits.api.util.IPacketBufferSerializable;
 import net.minecraft.nbt.CompoundTag;
@@ -13,159 +12,289 @@ import net.minecraft.nbt.ListTag;
 import net.minecraft.network.FriendlyByteBuf;
 import org.jetbrains.annotations.NotNull;
 
+import java.util.Arrays;
 import java.util.Collection;
-import java.util.Collections;
 import java.util.List;
-import java.util.Map;
 import java.util.Objects;
 import java.util.function.Consumer;
-import java.util.function.Function;
 import java.util.function.IntConsumer;
-import java.util.stream.Collectors;
+import java.util.function.IntFunction;
+import java.util.function.ToIntFunction;
 
 public class SimpleStateEntryPalette implements IPacketBufferSerializable, INBTSerializable<ListTag>
 {
+    private static final int   INITIAL_CAPACITY = 4;
+    private static final int   MISSING_INDEX    = -1;
 
-    private final List<Entry>                    paletteEntries = Lists.newCopyOnWriteArrayList();
-    private final Map<IBlockInformation, Entry> paletteMap     = Maps.newConcurrentMap();
-    private final IntConsumer                    onNewSizeAddedConsumer;
-    private final Consumer<Map<Integer, Integer>> onPaletteIndexChanged;
+    private final Object2IntMap<IBlockInformation> paletteMap;
+    private final IntConsumer                      onNewSizeAddedConsumer;
+    private final Consumer<int[]>                  onPaletteIndexChanged;
+    private       Entry[]                          paletteEntries;
+    private       int                              paletteSize = 0;
 
-    public SimpleStateEntryPalette(final IntConsumer onNewSizeAddedConsumer, final Consumer<Map<Integer, Integer>> onPaletteIndexChanged) {
+    public SimpleStateEntryPalette(final IntConsumer onNewSizeAddedConsumer, final Consumer<int[]> onPaletteIndexChanged) {
         this.onNewSizeAddedConsumer = onNewSizeAddedConsumer;
         this.onPaletteIndexChanged = onPaletteIndexChanged;
+        this.paletteMap = new Object2IntOpenHashMap<>();
+        this.paletteMap.defaultReturnValue(MISSING_INDEX);
+        this.paletteEntries = new Entry[INITIAL_CAPACITY];
         clear(); //Reset to initial state
     }
 
-    public SimpleStateEntryPalette(final IntConsumer onPaletteResize, final Consumer<Map<Integer, Integer>> onPaletteIndexChanged, final SimpleStateEntryPalette palette)
+    public SimpleStateEntryPalette(final IntConsumer onPaletteResize, final Consumer<int[]> onPaletteIndexChanged, final SimpleStateEntryPalette palette)
     {
         this.onNewSizeAddedConsumer = onPaletteResize;
         this.onPaletteIndexChanged = onPaletteIndexChanged;
-        this.paletteEntries.addAll(palette.paletteEntries);
-        this.paletteMap.putAll(palette.paletteMap);
+        this.paletteMap = new Object2IntOpenHashMap<>(palette.paletteMap);
+        this.paletteMap.defaultReturnValue(MISSING_INDEX);
+        this.paletteEntries = palette.paletteEntries.clone();
+        this.paletteSize = palette.paletteSize;
     }
 
     @Override
     public ListTag serializeNBT()
     {
-        return paletteEntries.stream().map(INBTSerializable::serializeNBT).collect(Collectors.toCollection(ListTag::new));
+        final ListTag result = new ListTag();
+        for (int i = 0; i < paletteSize; i++)
+        {
+            result.add(paletteEntries[i].serializeNBT());
+        }
+        return result;
+    }
+
+    /**
+     * Serializes only the entry with the given index, producing a palette in which that entry has index zero.
+     *
+     * @param index The index of the entry to serialize.
+     * @return The serialized single entry palette.
+     */
+    public ListTag serializeSingleEntryNBT(final int index)
+    {
+        final ListTag result = new ListTag();
+        result.add(this.paletteEntries[index].serializeNBT());
+        return result;
     }
 
     @Override
     public void deserializeNBT(final ListTag nbt)
     {
-        final int currentSize = this.paletteEntries.size();
-        this.paletteMap.clear();
-        this.paletteEntries.clear();
-
-        nbt.stream()
-                .filter(CompoundTag.class::isInstance)
-                .map(CompoundTag.class::cast)
-                .map(Entry::new)
-                .forEach(this.paletteEntries::add);
+        final int currentSize = this.paletteSize;
+        reset();
 
-        this.paletteEntries.forEach(entry -> this.paletteMap.put(entry.get(), entry));
+        for (int i = 0; i < nbt.size(); i++)
+        {
+            if (nbt.get(i) instanceof final CompoundTag entryTag)
+            {
+                addEntry(new Entry(entryTag));
+            }
+        }
 
-        if (paletteEntries.isEmpty()) {
+        if (paletteSize == 0) {
             clear();
         }
 
-        if (currentSize != this.paletteEntries.size()) {
-            this.onNewSizeAddedConsumer.accept(this.paletteEntries.size());
+        if (currentSize != this.paletteSize) {
+            this.onNewSizeAddedConsumer.accept(this.paletteSize);
         }
     }
 
     @Override
     public void serializeInto(final @NotNull FriendlyByteBuf packetBuffer)
     {
-        packetBuffer.writeVarInt(this.paletteEntries.size());
-        this.paletteEntries.forEach(entry -> entry.serializeInto(packetBuffer));
+        packetBuffer.writeVarInt(this.paletteSize);
+        for (int i = 0; i < paletteSize; i++)
+        {
+            paletteEntries[i].serializeInto(packetBuffer);
+        }
+    }
+
+    /**
+     * Writes only the entry with the given index, producing a palette in which that entry has index zero.
+     *
+     * @param packetBuffer The buffer to write into.
+     * @param index The index of the entry to write.
+     */
+    public void serializeSingleEntryInto(final @NotNull FriendlyByteBuf packetBuffer, final int index)
+    {
+        packetBuffer.writeVarInt(1);
+        this.paletteEntries[index].serializeInto(packetBuffer);
     }
 
     @Override
     public void deserializeFrom(final @NotNull FriendlyByteBuf packetBuffer)
     {
-        final int currentSize = this.paletteEntries.size();
-
-        this.paletteEntries.clear();
-        this.paletteMap.clear();
+        final int currentSize = this.paletteSize;
+        reset();
 
         final int newCount = packetBuffer.readVarInt();
         for (int i = 0; i < newCount; i++)
         {
-            this.paletteEntries.add(new Entry(packetBuffer));
+            addEntry(new Entry(packetBuffer));
+        }
+
+        if (paletteSize == 0) {
+            clear();
+        }
+
+        if (currentSize != this.paletteSize) {
+            this.onNewSizeAddedConsumer.accept(this.paletteSize);
+        }
+    }
+
+    /**
+     * Writes the entries as the indices the given function assigns to their serialized forms.
+     * The serialized forms are handed out as is, without copying them, and must not be modified.
+     *
+     * @param packetBuffer The buffer to write into.
+     * @param specIndexer The function which assigns an index to a serialized block information.
+     */
+    public void serializeInto(final @NotNull FriendlyByteBuf packetBuffer, final ToIntFunction<CompoundTag> specIndexer)
+    {
+        packetBuffer.writeVarInt(this.paletteSize);
+        for (int i = 0; i < paletteSize; i++)
+        {
+            packetBuffer.writeVarInt(specIndexer.applyAsInt(paletteEntries[i].rawSpec));
         }
+    }
+
+    /**
+     * Writes only the entry with the given index, like {@link #serializeInto(FriendlyByteBuf, ToIntFunction)},
+     * producing a palette in which that entry has index zero.
+     *
+     * @param packetBuffer The buffer to write into.
+     * @param index The index of the entry to write.
+     * @param specIndexer The function which assigns an index to a serialized block information.
+     */
+    public void serializeSingleEntryInto(final @NotNull FriendlyByteBuf packetBuffer, final int index, final ToIntFunction<CompoundTag> specIndexer)
+    {
+        packetBuffer.writeVarInt(1);
+        packetBuffer.writeVarInt(specIndexer.applyAsInt(this.paletteEntries[index].rawSpec));
+    }
+
+    /**
+     * Reads the entries written by {@link #serializeInto(FriendlyByteBuf, ToIntFunction)}.
+     *
+     * @param packetBuffer The buffer to read from.
+     * @param specLookup The function which returns the serialized block information for an index.
+     */
+    public void deserializeFrom(final @NotNull FriendlyByteBuf packetBuffer, final IntFunction<CompoundTag> specLookup)
+    {
+        final int currentSize = this.paletteSize;
+        reset();
 
-        this.paletteEntries.forEach(entry -> this.paletteMap.put(entry.get(), entry));
+        final int newCount = packetBuffer.readVarInt();
+        for (int i = 0; i < newCount; i++)
+        {
+            addEntry(new Entry(specLookup.apply(packetBuffer.readVarInt())));
+        }
 
-        if (paletteEntries.isEmpty()) {
+        if (paletteSize == 0) {
             clear();
         }
 
-        if (currentSize != this.paletteEntries.size()) {
-            this.onNewSizeAddedConsumer.accept(this.paletteEntries.size());
+        if (currentSize != this.paletteSize) {
+            this.onNewSizeAddedConsumer.accept(this.paletteSize);
         }
     }
 
     public int getIndex(final IBlockInformation state) {
-        if (this.paletteMap.containsKey(state)) {
-            final Entry entry = this.paletteMap.get(state);
-            return this.paletteEntries.indexOf(entry);
-        }
+        final int index = this.paletteMap.getInt(state);
+        if (index != MISSING_INDEX)
+            return index;
 
-        final Entry newEntry = new Entry(state);
-        this.paletteMap.put(state, newEntry);
+        final int newIndex = addEntry(new Entry(state));
+        this.onNewSizeAddedConsumer.accept(this.paletteSize);
 
-        this.paletteEntries.add(newEntry);
-        this.onNewSizeAddedConsumer.accept(this.paletteEntries.size());
+        return newIndex;
+    }
 
-        return this.paletteEntries.size() - 1;
+    /**
+     * Looks up the index of the given state, without adding it to the palette.
+     *
+     * @param state The state to look up.
+     * @return The index of the state, or {@code -1} when it is not part of the palette.
+     */
+    public int findIndex(final IBlockInformation state) {
+        return this.paletteMap.getInt(state);
     }
 
     public IBlockInformation getBlockState(final int blockStateId)
     {
-        if (this.paletteEntries.isEmpty())
+        if (this.paletteSize == 0)
             return BlockInformation.AIR;
 
-        if (blockStateId < 0 || blockStateId >= this.paletteEntries.size())
+        if (blockStateId < 0 || blockStateId >= this.paletteSize)
             return getBlockState(0);
 
-        return this.paletteEntries.get(blockStateId).get();
+        return this.paletteEntries[blockStateId].get();
     }
 
-    public void sanitize(final Collection<IBlockInformation> toRemove) {
-        final List<Entry> toRemoveList = toRemove.stream().map(this.paletteMap::get).toList();
-
-        final Map<Entry, Integer> remainingPreRemoveIndexMap = this.paletteEntries.stream()
-                .filter(entry -> !toRemoveList.contains(entry))
-                .collect(Collectors.toMap(Function.identity(), this.paletteEntries::indexOf));
+    public int size()
+    {
+        return paletteSize;
+    }
 
-        this.paletteEntries.removeAll(toRemoveList);
-        toRemove.forEach(this.paletteMap::remove);
+    public void sanitize(final Collection<IBlockInformation> toRemove) {
+        final int previousSize = this.paletteSize;
+        final int[] remapping = new int[previousSize];
+        boolean indicesChanged = false;
 
-        final Map<Entry, Integer> remainingPostRemoveIndexMap = remainingPreRemoveIndexMap.keySet()
-                .stream()
-                .collect(Collectors.toMap(Function.identity(), this.paletteEntries::indexOf));
+        int nextIndex = 0;
+        for (int i = 0; i < previousSize; i++)
+        {
+            final Entry entry = this.paletteEntries[i];
+            if (toRemove.contains(entry.get()))
+            {
+                this.paletteMap.removeInt(entry.get());
+                remapping[i] = MISSING_INDEX;
+                continue;
+            }
+
+            remapping[i] = nextIndex;
+            if (nextIndex != i)
+            {
+                indicesChanged = true;
+                this.paletteEntries[nextIndex] = entry;
+                this.paletteMap.put(entry.get(), nextIndex);
+            }
+            nextIndex++;
+        }
 
-        final Map<Integer, Integer> indexAlterationMap = remainingPreRemoveIndexMap.keySet()
-                .stream()
-                .filter(e -> !Objects.equals(remainingPreRemoveIndexMap.get(e), remainingPostRemoveIndexMap.get(e)))
-                .collect(Collectors.toMap(remainingPreRemoveIndexMap::get, remainingPostRemoveIndexMap::get));
+        Arrays.fill(this.paletteEntries, nextIndex, previousSize, null);
+        this.paletteSize = nextIndex;
 
-        this.onPaletteIndexChanged.accept(indexAlterationMap);
+        if (indicesChanged)
+            this.onPaletteIndexChanged.accept(remapping);
 
-        this.onNewSizeAddedConsumer.accept(this.paletteEntries.size());
+        this.onNewSizeAddedConsumer.accept(this.paletteSize);
     }
 
     public void clear() {
-        this.paletteEntries.clear();
-        this.paletteMap.clear();
+        reset();
         this.getIndex(BlockInformation.AIR);
     }
 
+    private void reset() {
+        Arrays.fill(this.paletteEntries, 0, this.paletteSize, null);
+        this.paletteSize = 0;
+        this.paletteMap.clear();
+    }
+
+    private int addEntry(final Entry entry) {
+        if (this.paletteSize == this.paletteEntries.length)
+        {
+            this.paletteEntries = Arrays.copyOf(this.paletteEntries, this.paletteEntries.length * 2);
+        }
+
+        final int index = this.paletteSize++;
+        this.paletteEntries[index] = entry;
+        this.paletteMap.put(entry.get(), index);
+        return index;
+    }
+
     public List<IBlockInformation> getStates()
     {
-        return this.paletteMap.keySet().stream().toList();
+        return Arrays.stream(this.paletteEntries, 0, this.paletteSize).map(Entry::get).toList();
     }
 
     @Override
@@ -180,20 +309,25 @@ public class SimpleStateEntryPalette implements IPacketBufferSerializable, INBTS
             return false;
         }
 
-        return paletteEntries.equals(that.paletteEntries);
+        return Arrays.equals(paletteEntries, 0, paletteSize, that.paletteEntries, 0, that.paletteSize);
     }
 
     @Override
     public int hashCode()
     {
-        return paletteEntries.hashCode();
+        int result = 1;
+        for (int i = 0; i < paletteSize; i++)
+        {
+            result = 31 * result + paletteEntries[i].hashCode();
+        }
+        return result;
     }
 
     @Override
     public String toString()
     {
         return "SimpleStateEntryPalette{" +
-                 "paletteEntries=" + paletteEntries +
+                 "paletteEntries=" + Arrays.toString(Arrays.copyOf(paletteEntries, paletteSize)) +
                  '}';
     }
 
@@ -203,8 +337,8 @@ public class SimpleStateEntryPalette implements IPacketBufferSerializable, INBTS
         private CompoundTag rawSpec;
 
         private Entry(final IBlockInformation newState) {
-            this.outwardFacingState = newState;
-            this.rawSpec = newState.serializeNBT();
+            this.outwardFacingState = BlockInformationRegistry.getInstance().intern(newState);
+            this.rawSpec = BlockInformationRegistry.getInstance().getSpec(this.outwardFacingState);
         }
 
         private Entry(final CompoundTag tag) {
@@ -224,8 +358,9 @@ public class SimpleStateEntryPalette implements IPacketBufferSerializable, INBTS
         @Override
         public void deserializeNBT(final CompoundTag nbt)
         {
-            this.rawSpec = nbt;
-            this.outwardFacingState = new BlockInformation(nbt);
+            //Keep the raw spec, so that states which can not be resolved right now are not lost on the next save.
+            this.rawSpec = BlockInformationRegistry.getInstance().internSpec(nbt);
+            this.outwardFacingState = BlockInformationRegistry.getInstance().fromNBT(this.rawSpec);
         }
 
         @Override
@@ -237,8 +372,8 @@ public class SimpleStateEntryPalette implements IPacketBufferSerializable, INBTS
         @Override
         public void deserializeFrom(final @NotNull FriendlyByteBuf packetBuffer)
         {
-            this.outwardFacingState = new BlockInformation(packetBuffer);
-            this.rawSpec = this.outwardFacingState.serializeNBT();
+            this.outwardFacingState = BlockInformationRegistry.getInstance().fromBuffer(packetBuffer);
+            this.rawSpec = BlockInformationRegistry.getInstance().getSpec(this.outwardFacingState);
         }
 
         public IBlockInformation get()
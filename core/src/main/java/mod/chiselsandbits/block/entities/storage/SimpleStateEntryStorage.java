@@ -1,8 +1,7 @@
 package mod.chiselsandbits.block.entities.storage;
 
-import com.google.common.collect.Maps;
 import com.google.common.math.LongMath;
-import com.mojang.datafixers.util.Pair;
+import mod.chiselsandbits.api.block.storage.IStateEntryBoxConsumer;
 import mod.chiselsandbits.api.block.storage.IStateEntryStorage;
 import mod.chiselsandbits.api.blockinformation.IBlockInformation;
 import mod.chiselsandbits.api.util.IBatchMutation;
@@ -10,10 +9,9 @@ import mod.chiselsandbits.blockinformation.BlockInformation;
 import mod.chiselsandbits.api.config.IServerConfiguration;
 import mod.chiselsandbits.api.multistate.StateEntrySize;
 import mod.chiselsandbits.api.util.BlockPosStreamProvider;
-import mod.chiselsandbits.api.util.VectorUtils;
 import mod.chiselsandbits.api.util.constants.NbtConstants;
-import mod.chiselsandbits.utils.ByteArrayUtils;
-import net.minecraft.core.BlockPos;
+import mod.chiselsandbits.utils.PackedLongArray;
+import mod.chiselsandbits.utils.PaletteRunLengthCodec;
 import net.minecraft.core.Direction;
 import net.minecraft.core.Vec3i;
 import net.minecraft.nbt.CompoundTag;
@@ -22,27 +20,40 @@ import net.minecraft.nbt.Tag;
 import net.minecraft.network.FriendlyByteBuf;
 import net.minecraft.world.level.block.Blocks;
 import net.minecraft.world.level.chunk.LevelChunkSection;
-import net.minecraft.world.phys.Vec3;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 import java.math.RoundingMode;
 import java.util.*;
 import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.IntFunction;
+import java.util.function.ToIntFunction;
 
 public class SimpleStateEntryStorage implements IStateEntryStorage
 {
 
     private static final Logger LOGGER = LogManager.getLogger();
 
+    /**
+     * Marker for {@link #uniformIndex} which indicates that the entries are stored in {@link #data}.
+     */
+    private static final int NOT_UNIFORM = -1;
+
     private final int  size;
     private final SimpleStateEntryPalette palette;
 
-    private BitSet data       = new BitSet();
-    private int    entryWidth = 0;
+    private PackedLongArray data;
+    private int             entryWidth = 0;
+    private int             uniformIndex = 0;
+    /**
+     * The amount of entries which use each palette index, indexed by palette index.
+     */
+    private int[]           usageCounts = new int[1];
     private boolean isDeserializing = false;
-    private List<IBatchMutation> ongoingBatchMutations = new ArrayList<>();
+    private int     openBatches = 0;
 
     public SimpleStateEntryStorage()
     {
@@ -53,13 +64,16 @@ public class SimpleStateEntryStorage implements IStateEntryStorage
     private SimpleStateEntryStorage(final SimpleStateEntryStorage stateEntryStorage) {
         this.size = stateEntryStorage.size;
         this.palette = new SimpleStateEntryPalette(this::onPaletteResize, this::onPaletteIndexChanged, stateEntryStorage.palette);
-        this.data = stateEntryStorage.data;
+        this.data = stateEntryStorage.data == null ? null : stateEntryStorage.data.share();
         this.entryWidth = stateEntryStorage.entryWidth;
+        this.uniformIndex = stateEntryStorage.uniformIndex;
+        this.usageCounts = stateEntryStorage.usageCounts.clone();
     }
 
     public SimpleStateEntryStorage(final int size) {
         this.size = size;
         this.palette = new SimpleStateEntryPalette(this::onPaletteResize, this::onPaletteIndexChanged);
+        this.usageCounts[0] = getTotalEntryCount();
     }
 
     @Override
@@ -75,13 +89,146 @@ public class SimpleStateEntryStorage implements IStateEntryStorage
     @Override
     public void clear()
     {
-        this.data = new BitSet();
         this.entryWidth = 0;
+        this.data = null;
+        this.uniformIndex = 0;
         this.palette.clear();
+        Arrays.fill(this.usageCounts, 0);
+        this.usageCounts[0] = getTotalEntryCount();
     }
 
     private void resetData() {
-        this.data = new BitSet();
+        this.data = new PackedLongArray(getTotalEntryCount(), entryWidth);
+        this.uniformIndex = NOT_UNIFORM;
+    }
+
+    @Override
+    public boolean isUniform()
+    {
+        return this.uniformIndex != NOT_UNIFORM;
+    }
+
+    /**
+     * Switches from the uniform representation to the packed representation, filling the packed data with the uniform entry.
+     */
+    private void inflate() {
+        this.data = new PackedLongArray(getTotalEntryCount(), entryWidth);
+        this.data.fill(this.uniformIndex);
+        this.uniformIndex = NOT_UNIFORM;
+    }
+
+    /**
+     * Switches back to the uniform representation if all packed entries are the same.
+     */
+    private void tryCollapse() {
+        if (isUniform())
+            return;
+
+        if (entryWidth == 0) {
+            this.data = null;
+            this.uniformIndex = 0;
+            return;
+        }
+
+        for (int i = 0; i < palette.size(); i++)
+        {
+            if (this.usageCounts[i] == getTotalEntryCount()) {
+                this.data = null;
+                this.uniformIndex = i;
+                return;
+            }
+        }
+    }
+
+    /**
+     * Records that the given amount of entries changed from one palette index to another.
+     */
+    private void onEntriesReplaced(final int previousBlockStateId, final int blockStateId, final int count) {
+        this.usageCounts[previousBlockStateId] -= count;
+        this.usageCounts[blockStateId] += count;
+    }
+
+    /**
+     * Removes the entries in the given range from the usage counts, without touching the entries themselves.
+     * Only the palette indices which are in use are counted, which is cheap for the small palettes most storages have.
+     */
+    private void removeUsages(final int start, final int length) {
+        int remaining = length;
+        for (int i = 0; i < palette.size() && remaining > 0; i++)
+        {
+            if (this.usageCounts[i] == 0)
+                continue;
+
+            final int count = this.data.countRange(start, length, i);
+            this.usageCounts[i] -= count;
+            remaining -= count;
+        }
+    }
+
+    /**
+     * Recalculates the usage counts from scratch, after the data was replaced as a whole.
+     * Entries which point outside the palette resolve to its first entry when read, so they are rewritten to it here.
+     */
+    private void recountUsages() {
+        Arrays.fill(this.usageCounts, 0);
+        if (isUniform()) {
+            this.usageCounts[uniformIndex] = getTotalEntryCount();
+            return;
+        }
+
+        final int layerSize = size * size;
+        final int[] layer = new int[layerSize];
+        for (int x = 0; x < size; x++)
+        {
+            final int layerStart = doCalculatePositionIndex(x, 0, 0);
+            this.data.getRange(layerStart, layer, 0, layerSize);
+            for (int i = 0; i < layerSize; i++)
+            {
+                if (layer[i] >= palette.size()) {
+                    layer[i] = 0;
+                    this.data.set(layerStart + i, 0);
+                }
+
+                this.usageCounts[layer[i]]++;
+            }
+        }
+    }
+
+    /**
+     * Removes all palette entries which are no longer used by any entry, except for air which always stays in the palette.
+     */
+    private void removeUnusedPaletteEntries() {
+        List<IBlockInformation> unusedStates = null;
+        for (int i = 0; i < palette.size(); i++)
+        {
+            if (this.usageCounts[i] != 0)
+                continue;
+
+            final IBlockInformation blockInformation = palette.getBlockState(i);
+            if (blockInformation.equals(BlockInformation.AIR))
+                continue;
+
+            if (unusedStates == null)
+                unusedStates = new ArrayList<>();
+            unusedStates.add(blockInformation);
+        }
+
+        if (unusedStates != null)
+            this.palette.sanitize(unusedStates);
+    }
+
+    /**
+     * Indicates if removing the unused palette entries would reduce the entry width.
+     */
+    private boolean canNarrowEntries() {
+        int remainingEntries = 0;
+        for (int i = 0; i < palette.size(); i++)
+        {
+            if (this.usageCounts[i] != 0 || palette.getBlockState(i).equals(BlockInformation.AIR))
+                remainingEntries++;
+        }
+
+        return LongMath.log2(Math.max(1, remainingEntries), RoundingMode.CEILING) < entryWidth;
     }
 
     @Override
@@ -93,8 +240,8 @@ public class SimpleStateEntryStorage implements IStateEntryStorage
             return;
         }
 
-        final int blockStateId = palette.getIndex(currentState);
-        this.data = ByteArrayUtils.fill(blockStateId, entryWidth, getTotalEntryCount());
+        this.uniformIndex = palette.getIndex(currentState);
+        onEntriesReplaced(0, this.uniformIndex, getTotalEntryCount());
     }
 
     @Override
@@ -122,8 +269,11 @@ public class SimpleStateEntryStorage implements IStateEntryStorage
     @Override
     public IBlockInformation getBlockInformation(final int x, final int y, final int z)
     {
+        if (isUniform())
+            return palette.getBlockState(uniformIndex);
+
         final int offSetIndex = doCalculatePositionIndex(x, y, z);
-        final int blockStateId = ByteArrayUtils.getValueAt(data, entryWidth, offSetIndex);
+        final int blockStateId = data.get(offSetIndex);
 
         return palette.getBlockState(blockStateId);
     }
@@ -132,23 +282,35 @@ public class SimpleStateEntryStorage implements IStateEntryStorage
     public void setBlockInformation(final int x, final int y, final int z, final IBlockInformation blockState)
     {
         final int offSetIndex = doCalculatePositionIndex(x, y, z);
+        if (openBatches == 0 && palette.findIndex(blockState) < 0 && palette.size() == 1 << entryWidth)
+            //The palette is about to grow into a wider entry width, reuse the space of entries which are no longer in use first.
+            removeUnusedPaletteEntries();
+
         final int blockStateId = palette.getIndex(blockState);
 
-        ensureCapacity();
+        if (isUniform()) {
+            if (blockStateId == uniformIndex)
+                return;
 
-        ByteArrayUtils.setValueAt(data, blockStateId, entryWidth, offSetIndex);
-    }
+            inflate();
+        }
+
+        final int previousBlockStateId = data.get(offSetIndex);
+        if (previousBlockStateId == blockStateId)
+            return;
 
-    private void ensureCapacity() {
-        final int requiredSize = (int) Math.ceil((getTotalEntryCount() * entryWidth) / (float) Long.SIZE);
-        if (data.length() < requiredSize) {
-            final long[] rawData = getRawData();
-            final long[] newData = new long[requiredSize];
-            System.arraycopy(rawData, 0, newData, 0, rawData.length);
-            this.data = BitSet.valueOf(newData);
-        } else if (this.ongoingBatchMutations.isEmpty()) {
-            this.data = BitSet.valueOf(getRawData());
+        data.set(offSetIndex, blockStateId);
+        onEntriesReplaced(previousBlockStateId, blockStateId, 1);
+
+        //Single writes can make a storage uniform as well, which should not need to wait for a batch to complete.
+        if (this.usageCounts[blockStateId] == getTotalEntryCount()) {
+            this.data = null;
+            this.uniformIndex = blockStateId;
         }
+
+        //Dropping an unused entry remaps all entries, which is only worth it when the entries become narrower because of it.
+        if (openBatches == 0 && this.usageCounts[previousBlockStateId] == 0 && canNarrowEntries())
+            removeUnusedPaletteEntries();
     }
 
     private int doCalculatePositionIndex(final int x, final int y, final int z)
@@ -156,35 +318,312 @@ public class SimpleStateEntryStorage implements IStateEntryStorage
         return x * size * size + y * size + z;
     }
 
-    private Vec3i doCalculatePosition(final int index) {
-        final int x = index / (size * size);
-        final int y = (index - x * size * size) / size;
-        final int z = index - x * size * size - y * size;
+    @Override
+    public void fillBox(final Vec3i min, final Vec3i max, final IBlockInformation blockInformation, final @Nullable BitSet mask)
+    {
+        checkBox(size, min, max);
+        if (isEmptyBox(min, max))
+            return;
+
+        if (mask == null && isFullBox(min, max)) {
+            initializeWith(blockInformation);
+            return;
+        }
+
+        final int blockStateId = palette.getIndex(blockInformation);
+        if (isUniform()) {
+            if (blockStateId == uniformIndex)
+                return;
+
+            inflate();
+        }
+
+        try(IBatchMutation ignored = batch()) {
+            if (mask == null) {
+                applyToRuns(min, max, (start, length) -> {
+                    removeUsages(start, length);
+                    data.fillRange(start, length, blockStateId);
+                    this.usageCounts[blockStateId] += length;
+                    return length;
+                });
+                return;
+            }
+
+            applyToRuns(min, max, (start, length) -> {
+                for (int i = mask.nextSetBit(start); i >= 0 && i < start + length; i = mask.nextSetBit(i + 1))
+                {
+                    final int previousBlockStateId = data.get(i);
+                    if (previousBlockStateId != blockStateId) {
+                        data.set(i, blockStateId);
+                        onEntriesReplaced(previousBlockStateId, blockStateId, 1);
+                    }
+                }
+                return 0;
+            });
+        }
+    }
+
+    @Override
+    public int replaceAll(final IBlockInformation from, final IBlockInformation to, final @Nullable BitSet mask)
+    {
+        final int fromId = palette.findIndex(from);
+        if (fromId < 0 || from.equals(to))
+            return 0;
+
+        if (isUniform() && uniformIndex != fromId)
+            return 0;
+
+        final int toId = palette.getIndex(to);
+        if (isUniform()) {
+            if (mask == null) {
+                try(IBatchMutation ignored = batch()) {
+                    this.uniformIndex = toId;
+                    onEntriesReplaced(fromId, toId, getTotalEntryCount());
+                }
+                return getTotalEntryCount();
+            }
 
-        return new Vec3i(x, y, z);
+            inflate();
+        }
+
+        try(IBatchMutation ignored = batch()) {
+            int replaced = 0;
+            if (mask == null) {
+                replaced = data.replace(fromId, toId);
+            } else {
+                for (int i = mask.nextSetBit(0); i >= 0 && i < getTotalEntryCount(); i = mask.nextSetBit(i + 1))
+                {
+                    if (data.get(i) == fromId) {
+                        data.set(i, toId);
+                        replaced++;
+                    }
+                }
+            }
+
+            onEntriesReplaced(fromId, toId, replaced);
+            return replaced;
+        }
     }
 
     @Override
-    public void count(final BiConsumer<IBlockInformation, Integer> storageConsumer)
+    public void copyFrom(final IStateEntryStorage source, final Vec3i sourceMin, final Vec3i sourceMax, final Vec3i targetOffset)
     {
-        final Map<IBlockInformation, Integer> countMap = Maps.newHashMap();
+        checkBox(source.getSize(), sourceMin, sourceMax);
+        final Vec3i targetMax = targetOffset.offset(sourceMax.subtract(sourceMin));
+        checkBox(size, targetOffset, targetMax);
+        if (isEmptyBox(sourceMin, sourceMax))
+            return;
+
+        if (source.isUniform()) {
+            fillBox(targetOffset, targetMax, source.getBlockInformation(sourceMin));
+            return;
+        }
 
-        BlockPosStreamProvider.getForRange(this.getSize())
-          .map(position -> getBlockInformation(position.getX(), position.getY(), position.getZ()))
-          .forEach(blockState -> countMap.compute(blockState, (state, count) -> count == null ? 1 : count + 1));
+        if (!(source instanceof final SimpleStateEntryStorage packedSource)) {
+            copyFromUnpacked(source, sourceMin, sourceMax, targetOffset);
+            return;
+        }
 
-        countMap.forEach(storageConsumer);
+        //Read everything first, this keeps copies within the same storage correct, even when the boxes overlap.
+        final int rowLength = sourceMax.getZ() - sourceMin.getZ();
+        final int[] entries = new int[(sourceMax.getX() - sourceMin.getX()) * (sourceMax.getY() - sourceMin.getY()) * rowLength];
+        int offset = 0;
+        for (int x = sourceMin.getX(); x < sourceMax.getX(); x++)
+        {
+            for (int y = sourceMin.getY(); y < sourceMax.getY(); y++)
+            {
+                packedSource.data.getRange(packedSource.doCalculatePositionIndex(x, y, sourceMin.getZ()), entries, offset, rowLength);
+                offset += rowLength;
+            }
+        }
+
+        final int[] remapping = new int[packedSource.palette.size()];
+        Arrays.fill(remapping, -1);
+        for (int i = 0; i < entries.length; i++)
+        {
+            //Ids outside the palette resolve to its first entry, just like they do when reading them one by one.
+            final int sourceId = entries[i] < remapping.length ? entries[i] : 0;
+            if (remapping[sourceId] < 0)
+                remapping[sourceId] = palette.getIndex(packedSource.palette.getBlockState(sourceId));
+
+            entries[i] = remapping[sourceId];
+        }
+
+        if (isUniform())
+            inflate();
+
+        try(IBatchMutation ignored = batch()) {
+            offset = 0;
+            for (int x = targetOffset.getX(); x < targetMax.getX(); x++)
+            {
+                for (int y = targetOffset.getY(); y < targetMax.getY(); y++)
+                {
+                    final int rowStart = doCalculatePositionIndex(x, y, targetOffset.getZ());
+                    removeUsages(rowStart, rowLength);
+                    data.setRange(rowStart, entries, offset, rowLength);
+                    offset += rowLength;
+                }
+            }
+
+            for (final int entry : entries)
+            {
+                this.usageCounts[entry]++;
+            }
+        }
     }
 
-    public BitSet getData()
+    private void copyFromUnpacked(final IStateEntryStorage source, final Vec3i sourceMin, final Vec3i sourceMax, final Vec3i targetOffset)
     {
+        final List<IBlockInformation> entries = new ArrayList<>();
+        for (int x = sourceMin.getX(); x < sourceMax.getX(); x++)
+        {
+            for (int y = sourceMin.getY(); y < sourceMax.getY(); y++)
+            {
+                for (int z = sourceMin.getZ(); z < sourceMax.getZ(); z++)
+                {
+                    entries.add(source.getBlockInformation(x, y, z));
+                }
+            }
+        }
+
+        final Iterator<IBlockInformation> iterator = entries.iterator();
+        try(IBatchMutation ignored = batch()) {
+            for (int x = 0; x < sourceMax.getX() - sourceMin.getX(); x++)
+            {
+                for (int y = 0; y < sourceMax.getY() - sourceMin.getY(); y++)
+                {
+                    for (int z = 0; z < sourceMax.getZ() - sourceMin.getZ(); z++)
+                    {
+                        setBlockInformation(targetOffset.getX() + x, targetOffset.getY() + y, targetOffset.getZ() + z, iterator.next());
+                    }
+                }
+            }
+        }
+    }
+
+    @Override
+    public int countInBox(final IBlockInformation blockInformation, final Vec3i min, final Vec3i max)
+    {
+        checkBox(size, min, max);
+        final int blockStateId = palette.findIndex(blockInformation);
+        if (blockStateId < 0 || isEmptyBox(min, max))
+            return 0;
+
+        if (isUniform())
+            return blockStateId == uniformIndex ? (max.getX() - min.getX()) * (max.getY() - min.getY()) * (max.getZ() - min.getZ()) : 0;
+
+        return applyToRuns(min, max, (start, length) -> data.countRange(start, length, blockStateId));
+    }
+
+    @Override
+    public void forEachNonAirBox(final IStateEntryBoxConsumer consumer)
+    {
+        if (isUniform()) {
+            final IBlockInformation blockInformation = palette.getBlockState(uniformIndex);
+            if (!blockInformation.isAir())
+                consumer.accept(0, 0, 0, size, size, size, blockInformation);
+            return;
+        }
+
+        final int[] row = new int[size];
+        for (int x = 0; x < size; x++)
+        {
+            for (int y = 0; y < size; y++)
+            {
+                data.getRange(doCalculatePositionIndex(x, y, 0), row, 0, size);
+
+                int z = 0;
+                while (z < size)
+                {
+                    final int blockStateId = row[z];
+                    int end = z + 1;
+                    while (end < size && row[end] == blockStateId)
+                    {
+                        end++;
+                    }
+
+                    final IBlockInformation blockInformation = palette.getBlockState(blockStateId);
+                    if (!blockInformation.isAir())
+                        consumer.accept(x, y, z, x + 1, y + 1, end, blockInformation);
+
+                    z = end;
+                }
+            }
+        }
+    }
+
+    /**
+     * Splits the given box into runs of consecutive entries, and applies the operation to each of them.
+     * Rows along the z axis are always consecutive, complete rows and complete layers are merged into longer runs.
+     *
+     * @return The sum of the results of the operation.
+     */
+    private int applyToRuns(final Vec3i min, final Vec3i max, final RunOperation operation)
+    {
+        final int rowLength = max.getZ() - min.getZ();
+        final int columnLength = max.getY() - min.getY();
+        if (rowLength == size && columnLength == size)
+            return operation.apply(doCalculatePositionIndex(min.getX(), 0, 0), (max.getX() - min.getX()) * size * size);
+
+        int result = 0;
+        for (int x = min.getX(); x < max.getX(); x++)
+        {
+            if (rowLength == size) {
+                result += operation.apply(doCalculatePositionIndex(x, min.getY(), 0), columnLength * size);
+                continue;
+            }
+
+            for (int y = min.getY(); y < max.getY(); y++)
+            {
+                result += operation.apply(doCalculatePositionIndex(x, y, min.getZ()), rowLength);
+            }
+        }
+        return result;
+    }
+
+    private static void checkBox(final int size, final Vec3i min, final Vec3i max)
+    {
+        if (min.getX() < 0 || min.getY() < 0 || min.getZ() < 0 ||
+              max.getX() > size || max.getY() > size || max.getZ() > size ||
+              min.getX() > max.getX() || min.getY() > max.getY() || min.getZ() > max.getZ())
+            throw new IllegalArgumentException("The box from %s to %s is not inside a storage of size %d".formatted(min, max, size));
+    }
+
+    private static boolean isEmptyBox(final Vec3i min, final Vec3i max)
+    {
+        return min.getX() == max.getX() || min.getY() == max.getY() || min.getZ() == max.getZ();
+    }
+
+    private boolean isFullBox(final Vec3i min, final Vec3i max)
+    {
+        return min.equals(Vec3i.ZERO) && max.getX() == size && max.getY() == size && max.getZ() == size;
+    }
+
+    @Override
+    public void count(final BiConsumer<IBlockInformation, Integer> storageConsumer)
+    {
+        for (int i = 0; i < palette.size(); i++)
+        {
+            if (this.usageCounts[i] > 0)
+                storageConsumer.accept(palette.getBlockState(i), this.usageCounts[i]);
+        }
+    }
+
+    public PackedLongArray getData()
+    {
+        if (isUniform()) {
+            final PackedLongArray uniformData = new PackedLongArray(getTotalEntryCount(), entryWidth);
+            uniformData.fill(uniformIndex);
+            return uniformData;
+        }
+
         return data;
     }
 
     @Override
     public long[] getRawData()
     {
-        return this.data.toLongArray();
+        return this.getData().getWords().clone();
     }
 
     @Override
@@ -201,107 +640,54 @@ public class SimpleStateEntryStorage implements IStateEntryStorage
         if (loopCount == 0)
             return;
 
-        int count = 0;
+        if (loopCount == getTotalEntryCount()) {
+            initializeWith(state);
+            return;
+        }
+
+        //The storage is filled layer by layer, so it consists of complete layers, complete rows and a partial row.
+        final int layerSize = getSize() * getSize();
+        final int fullLayers = loopCount / layerSize;
+        final int fullRows = (loopCount % layerSize) / getSize();
+        final int remainder = loopCount % getSize();
+
         try(IBatchMutation ignored = batch()) {
-            for (int y = 0; y < getSize(); y++)
-            {
-                for (int x = 0; x < getSize(); x++)
-                {
-                    for (int z = 0; z < getSize(); z++)
-                    {
-                        setBlockInformation(
-                                x, y, z,
-                                state
-                        );
-
-                        count++;
-                        if (count == loopCount)
-                            return;
-                    }
-                }
-            }
+            fillBox(Vec3i.ZERO, new Vec3i(getSize(), fullLayers, getSize()), state);
+            fillBox(new Vec3i(0, fullLayers, 0), new Vec3i(fullRows, fullLayers + 1, getSize()), state);
+            fillBox(new Vec3i(fullRows, fullLayers, 0), new Vec3i(fullRows + 1, fullLayers + 1, remainder), state);
         }
     }
 
     @Override
     public List<IBlockInformation> getContainedPalette()
     {
-        return palette.getStates();
+        //Unused entries are not always removed right away, they are not contained in the storage though.
+        final List<IBlockInformation> states = new ArrayList<>();
+        for (int i = 0; i < palette.size(); i++)
+        {
+            if (this.usageCounts[i] > 0)
+                states.add(palette.getBlockState(i));
+        }
+        return states;
     }
 
     @Override
     public void rotate(final Direction.Axis axis, final int rotationCount)
     {
-        if (rotationCount == 0)
+        final int rotations = Math.floorMod(rotationCount, 4);
+        if (rotations == 0 || isUniform())
             return;
 
-        final IStateEntryStorage clone = this.createSnapshot();
-        resetData();
-
-        final Vec3 centerVector = new Vec3(7.5d, 7.5d, 7.5d);
-
-        try(IBatchMutation ignored = batch()) {
-            for (int x = 0; x < 16; x++)
-            {
-                for (int y = 0; y < 16; y++)
-                {
-                    for (int z = 0; z < 16; z++)
-                    {
-                        final Vec3 workingVector = new Vec3(x, y, z);
-                        Vec3 rotatedVector = workingVector.subtract(centerVector);
-                        for (int i = 0; i < rotationCount; i++)
-                        {
-                            rotatedVector = VectorUtils.rotate90Degrees(rotatedVector, axis);
-                        }
-
-                        final BlockPos sourcePos = VectorUtils.toBlockPos(workingVector);
-                        final Vec3 offsetPos = rotatedVector.add(centerVector).multiply(1000,1000,1000);
-                        final Vec3 exactTargetPos = new Vec3(Math.round(offsetPos.x()), Math.round(offsetPos.y()), Math.round(offsetPos.z())).multiply(1/1000d,1/1000d,1/1000d);
-                        final BlockPos targetPos = VectorUtils.toBlockPos(exactTargetPos);
-
-                        this.setBlockInformation(
-                                targetPos.getX(),
-                                targetPos.getY(),
-                                targetPos.getZ(),
-                                clone.getBlockInformation(
-                                        sourcePos.getX(),
-                                        sourcePos.getY(),
-                                        sourcePos.getZ()
-                                )
-                        );
-                    }
-                }
-            }
-        }
+        this.data.permute(StoragePermutations.forSize(getSize()).getRotation(axis, rotations));
     }
 
     @Override
     public void mirror(final Direction.Axis axis)
     {
-        final IStateEntryStorage clone = this.createSnapshot();
-        resetData();
-
-        try (IBatchMutation ignored = batch()) {
-            for (int y = 0; y < getSize(); y++)
-            {
-                for (int x = 0; x < getSize(); x++)
-                {
-                    for (int z = 0; z < getSize(); z++)
-                    {
-                        final IBlockInformation blockInformation = clone.getBlockInformation(x, y, z);
-
-                        final int mirroredX = axis == Direction.Axis.X ? (getSize() - x - 1) : x;
-                        final int mirroredY = axis == Direction.Axis.Y ? (getSize() - y - 1) : y;
-                        final int mirroredZ = axis == Direction.Axis.Z ? (getSize() - z - 1) : z;
+        if (isUniform())
+            return;
 
-                        this.setBlockInformation(
-                                mirroredX, mirroredY, mirroredZ,
-                                blockInformation
-                        );
-                    }
-                }
-            }
-        }
+        this.data.permute(StoragePermutations.forSize(getSize()).getMirror(axis));
     }
 
     @Override
@@ -309,8 +695,16 @@ public class SimpleStateEntryStorage implements IStateEntryStorage
     {
         final CompoundTag result = new CompoundTag();
 
+        if (isUniform()) {
+            //A single entry palette has an entry width of zero, so no data is needed at all.
+            result.put(NbtConstants.PALETTE, this.palette.serializeSingleEntryNBT(uniformIndex));
+            result.putLongArray(NbtConstants.DATA, new long[0]);
+            return result;
+        }
+
         result.put(NbtConstants.PALETTE, this.palette.serializeNBT());
-        result.putLongArray(NbtConstants.DATA, this.getRawData());
+        //The tag does not copy the array, and the words are written in place by later changes.
+        result.putLongArray(NbtConstants.DATA, this.data.getWords().clone());
 
         return result;
     }
@@ -330,33 +724,31 @@ public class SimpleStateEntryStorage implements IStateEntryStorage
 
         this.palette.deserializeNBT((ListTag) Objects.requireNonNull(nbt.get(NbtConstants.PALETTE)));
         if (nbt.getTagType(NbtConstants.DATA) == Tag.TAG_BYTE_ARRAY) {
-            this.data = BitSet.valueOf(nbt.getByteArray(NbtConstants.DATA));
+            this.data = PackedLongArray.fromBytes(getTotalEntryCount(), entryWidth, nbt.getByteArray(NbtConstants.DATA));
         } else {
-            this.data = BitSet.valueOf(nbt.getLongArray(NbtConstants.DATA));
-        }
-
-        final Set<IBlockInformation> containedStates = new HashSet<>();
-        for (int i = 0; i < getTotalEntryCount(); i++)
-        {
-            final Vec3i pos = doCalculatePosition(i);
-            final IBlockInformation blockState = getBlockInformation(pos);
-            containedStates.add(blockState);
+            this.data = PackedLongArray.fromWords(getTotalEntryCount(), entryWidth, nbt.getLongArray(NbtConstants.DATA));
         }
-
-        final List<IBlockInformation> paletteStates = new ArrayList<>(this.palette.getStates());
-        paletteStates.removeAll(containedStates);
-        paletteStates.remove(BlockInformation.AIR); //We need to keep this!
+        this.uniformIndex = NOT_UNIFORM;
+        recountUsages();
+        tryCollapse();
 
         this.isDeserializing = false;
 
-        this.palette.sanitize(paletteStates);
+        removeUnusedPaletteEntries();
     }
 
     @Override
     public void serializeInto(final @NotNull FriendlyByteBuf packetBuffer)
     {
+        if (isUniform()) {
+            //A single entry palette has an entry width of zero, which encodes as a single run.
+            this.palette.serializeSingleEntryInto(packetBuffer, uniformIndex);
+            PaletteRunLengthCodec.encode(new PackedLongArray(getTotalEntryCount()), size, packetBuffer);
+            return;
+        }
+
         this.palette.serializeInto(packetBuffer);
-        packetBuffer.writeByteArray(this.data.toByteArray());
+        PaletteRunLengthCodec.encode(this.data, size, packetBuffer);
     }
 
     @Override
@@ -367,54 +759,111 @@ public class SimpleStateEntryStorage implements IStateEntryStorage
         this.isDeserializing = true;
 
         this.palette.deserializeFrom(packetBuffer);
-        this.data = BitSet.valueOf(packetBuffer.readByteArray());
+        this.data = PaletteRunLengthCodec.decode(packetBuffer, size, entryWidth);
+        this.uniformIndex = NOT_UNIFORM;
+        recountUsages();
+        tryCollapse();
+
+        this.isDeserializing = false;
+    }
+
+    /**
+     * Writes the palette as the indices the given function assigns to the serialized forms of its entries, followed by the palette
+     * indices of all entries, which are handed to the given writer.
+     * Unlike {@link #serializeNBT()} nothing is copied, the writer gets the data of this storage itself and must not modify it.
+     *
+     * @param buffer The buffer to write the palette into.
+     * @param specIndexer The function which assigns an index to a serialized block information.
+     * @param entriesWriter The writer for the palette indices of all entries.
+     */
+    public void serializeInto(final @NotNull FriendlyByteBuf buffer, final ToIntFunction<CompoundTag> specIndexer, final Consumer<PackedLongArray> entriesWriter)
+    {
+        if (isUniform()) {
+            //A single entry palette has an entry width of zero, so no data is needed at all.
+            this.palette.serializeSingleEntryInto(buffer, uniformIndex, specIndexer);
+            entriesWriter.accept(new PackedLongArray(getTotalEntryCount()));
+            return;
+        }
+
+        this.palette.serializeInto(buffer, specIndexer);
+        entriesWriter.accept(this.data);
+    }
+
+    /**
+     * Reads what {@link #serializeInto(FriendlyByteBuf, ToIntFunction, Consumer)} wrote.
+     *
+     * @param buffer The buffer to read the palette from.
+     * @param specLookup The function which returns the serialized block information for an index.
+     * @param entriesReader The reader for the palette indices of all entries, which is given the entry width of the read palette.
+     * @throws IllegalArgumentException when the reader returns a different amount of entries than this storage has.
+     */
+    public void deserializeFrom(final @NotNull FriendlyByteBuf buffer, final IntFunction<CompoundTag> specLookup, final IntFunction<PackedLongArray> entriesReader)
+    {
+        clear();
+
+        this.isDeserializing = true;
+
+        this.palette.deserializeFrom(buffer, specLookup);
+        final PackedLongArray readData = entriesReader.apply(entryWidth);
+        if (readData.getEntryCount() != getTotalEntryCount() || readData.getBitsPerEntry() != entryWidth) {
+            this.isDeserializing = false;
+            clear();
+            throw new IllegalArgumentException("Expected %d entries of %d bits, got %d entries of %d bits".formatted(getTotalEntryCount(), entryWidth, readData.getEntryCount(), readData.getBitsPerEntry()));
+        }
+
+        this.data = readData;
+        this.uniformIndex = NOT_UNIFORM;
+        recountUsages();
+        tryCollapse();
 
         this.isDeserializing = false;
+
+        removeUnusedPaletteEntries();
     }
 
     private void onPaletteResize(final int newSize) {
+        if (this.usageCounts.length < newSize)
+            this.usageCounts = Arrays.copyOf(this.usageCounts, Math.max(newSize, this.usageCounts.length * 2));
+
         final int currentEntryWidth = this.entryWidth;
         this.entryWidth = LongMath.log2(newSize, RoundingMode.CEILING);
 
-        if (!this.isDeserializing && this.entryWidth != currentEntryWidth) {
-            //We need to update the data array to match the new palette size
-            final BitSet rawData = this.data;
-
-            this.data = new BitSet(getTotalEntryCount() * entryWidth);
-            BlockPosStreamProvider.getForRange(getSize())
-              .mapToInt(pos -> doCalculatePositionIndex(pos.getX(), pos.getY(), pos.getZ()))
-              .mapToObj(index -> Pair.of(index, ByteArrayUtils.getValueAt(rawData, currentEntryWidth, index)))
-              .forEach(pair -> ByteArrayUtils.setValueAt(this.data, pair.getSecond(), this.entryWidth, pair.getFirst()));
+        if (!this.isDeserializing && !isUniform() && this.entryWidth != currentEntryWidth) {
+            //We need to update the data array to match the new palette size, snapshots keep the words in the old width.
+            this.data.resize(this.entryWidth);
         }
     }
 
-    private void onPaletteIndexChanged(final Map<Integer, Integer> remaps) {
-        if (remaps.isEmpty())
-            return;
-
-        for (int i = 0; i < getTotalEntryCount(); i++)
+    private void onPaletteIndexChanged(final int[] remapping) {
+        final int[] remappedUsageCounts = new int[this.usageCounts.length];
+        for (int i = 0; i < remapping.length; i++)
         {
-            final int currentId = ByteArrayUtils.getValueAt(data, entryWidth, i);
-            if (remaps.containsKey(currentId)) {
-                ByteArrayUtils.setValueAt(data, remaps.get(currentId), entryWidth, i);
-            }
+            if (remapping[i] >= 0)
+                remappedUsageCounts[remapping[i]] += this.usageCounts[i];
+        }
+        this.usageCounts = remappedUsageCounts;
+
+        if (isUniform()) {
+            if (remapping[this.uniformIndex] >= 0)
+                this.uniformIndex = remapping[this.uniformIndex];
+            return;
         }
+
+        this.data.remap(remapping);
     }
 
     @Override
     public IBatchMutation batch() {
-        final IBatchMutation mutation = new IBatchMutation() {
-            @Override
-            public void close() {
-                SimpleStateEntryStorage.this.ongoingBatchMutations.remove(this);
+        //The data array is copy on write, snapshots taken before or during the batch are never affected by it.
+        //Once the outermost batch completes we drop palette entries which are no longer used, and check if the storage became uniform again.
+        openBatches++;
+        return () -> {
+            openBatches--;
+            if (openBatches == 0) {
+                removeUnusedPaletteEntries();
+                tryCollapse();
             }
         };
-
-        ongoingBatchMutations.add(mutation);
-
-        this.data = BitSet.valueOf(this.data.toLongArray());
-
-        return mutation;
     }
 
     @Override
@@ -429,7 +878,7 @@ public class SimpleStateEntryStorage implements IStateEntryStorage
             return false;
         }
 
-        if (entryWidth != that.entryWidth)
+        if (entryWidth != that.entryWidth || uniformIndex != that.uniformIndex)
         {
             return false;
         }
@@ -437,15 +886,16 @@ public class SimpleStateEntryStorage implements IStateEntryStorage
         {
             return false;
         }
-        return getData().equals(that.getData());
+        return Objects.equals(data, that.data);
     }
 
     @Override
     public int hashCode()
     {
         int result = palette.hashCode();
-        result = 31 * result + getData().hashCode();
+        result = 31 * result + Objects.hashCode(data);
         result = 31 * result + entryWidth;
+        result = 31 * result + uniformIndex;
         return result;
     }
 
@@ -456,6 +906,13 @@ public class SimpleStateEntryStorage implements IStateEntryStorage
                  "palette=" + palette +
                  ", data=" + data +
                  ", entryWidth=" + entryWidth +
+                 ", uniformIndex=" + uniformIndex +
                  '}';
     }
+
+    @FunctionalInterface
+    private interface RunOperation
+    {
+        int apply(int start, int length);
+    }
 }
@@ -0,0 +1,217 @@
+package mod.chiselsandbits.block.entities.storage;
+
+import com.google.common.collect.Lists;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.objects.Object2IntMap;
+import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
+import mod.chiselsandbits.api.block.storage.IStateEntryStorage;
+import mod.chiselsandbits.api.blockinformation.IBlockInformation;
+import net.minecraft.network.FriendlyByteBuf;
+
+import java.util.List;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+/**
+ * Encodes the difference between two states of a storage, so that a holder of the older state can be brought up to date
+ * without transferring the whole storage.
+ * <p>
+ * The delta consists of a small palette with the block information which the changed entries now hold, followed by runs of
+ * changed entries. Entries are walked in the {@code x * size * size + y * size + z} order of the packed storages, and every run
+ * is written as the amount of unchanged entries before it, its length and its palette index, all as var ints.
+ */
+public final class StateEntryStorageDelta
+{
+    private StateEntryStorageDelta()
+    {
+        throw new IllegalStateException("Can not instantiate an instance of: StateEntryStorageDelta. This is a utility class");
+    }
+
+    /**
+     * Writes the entries of the target storage which differ from the base storage.
+     *
+     * @param base The state the receiver has.
+     * @param target The state the receiver should end up with.
+     * @param buffer The buffer to write into.
+     * @param blockInformationWriter The writer for the block information of the delta palette.
+     * @return The amount of changed entries which were written.
+     */
+    public static int write(
+      final IStateEntryStorage base,
+      final IStateEntryStorage target,
+      final FriendlyByteBuf buffer,
+      final BiConsumer<FriendlyByteBuf, IBlockInformation> blockInformationWriter)
+    {
+        final int size = target.getSize();
+        if (base.getSize() != size)
+            throw new IllegalArgumentException("Can not create a delta between storages of size %d and %d".formatted(base.getSize(), size));
+
+        final Object2IntMap<IBlockInformation> paletteIndices = new Object2IntOpenHashMap<>();
+        paletteIndices.defaultReturnValue(-1);
+        final List<IBlockInformation> palette = Lists.newArrayList();
+        final IntArrayList runs = new IntArrayList();
+
+        int changedEntries = 0;
+        int runStart = -1;
+        int runEnd = -1;
+        int runIndex = -1;
+        int previousRunEnd = 0;
+        int entry = 0;
+        for (int x = 0; x < size; x++)
+        {
+            for (int y = 0; y < size; y++)
+            {
+                for (int z = 0; z < size; z++, entry++)
+                {
+                    final IBlockInformation blockInformation = target.getBlockInformation(x, y, z);
+                    if (blockInformation.equals(base.getBlockInformation(x, y, z)))
+                        continue;
+
+                    changedEntries++;
+                    int paletteIndex = paletteIndices.getInt(blockInformation);
+                    if (paletteIndex < 0)
+                    {
+                        paletteIndex = palette.size();
+                        palette.add(blockInformation);
+                        paletteIndices.put(blockInformation, paletteIndex);
+                    }
+
+                    if (runEnd == entry && runIndex == paletteIndex)
+                    {
+                        runEnd++;
+                        continue;
+                    }
+
+                    if (runStart >= 0)
+                    {
+                        addRun(runs, runStart - previousRunEnd, runEnd - runStart, runIndex);
+                        previousRunEnd = runEnd;
+                    }
+
+                    runStart = entry;
+                    runEnd = entry + 1;
+                    runIndex = paletteIndex;
+                }
+            }
+        }
+
+        if (runStart >= 0)
+            addRun(runs, runStart - previousRunEnd, runEnd - runStart, runIndex);
+
+        buffer.writeVarInt(palette.size());
+        for (final IBlockInformation blockInformation : palette)
+        {
+            blockInformationWriter.accept(buffer, blockInformation);
+        }
+
+        buffer.writeVarInt(runs.size() / 3);
+        for (int i = 0; i < runs.size(); i++)
+        {
+            buffer.writeVarInt(runs.getInt(i));
+        }
+
+        return changedEntries;
+    }
+
+    private static void addRun(final IntArrayList runs, final int skippedEntries, final int length, final int paletteIndex)
+    {
+        runs.add(skippedEntries);
+        runs.add(length);
+        runs.add(paletteIndex);
+    }
+
+    /**
+     * Indicates if the target storage holds different block information than the base storage at any position.
+     * Unlike {@link IStateEntryStorage#equals(Object)} this does not depend on the representation or the palette order of the storages.
+     *
+     * @param base The state to compare against.
+     * @param target The state to compare.
+     * @return True when at least one entry differs.
+     */
+    public static boolean hasChanges(final IStateEntryStorage base, final IStateEntryStorage target)
+    {
+        final int size = target.getSize();
+        if (base.getSize() != size)
+            return true;
+
+        //Snapshots of an unchanged storage share its representation, so the common case is decided without a full walk.
+        if (base.equals(target))
+            return false;
+
+        for (int x = 0; x < size; x++)
+        {
+            for (int y = 0; y < size; y++)
+            {
+                for (int z = 0; z < size; z++)
+                {
+                    if (!target.getBlockInformation(x, y, z).equals(base.getBlockInformation(x, y, z)))
+                        return true;
+                }
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Reads a delta which was written by {@link #write(IStateEntryStorage, IStateEntryStorage, FriendlyByteBuf, BiConsumer)} and hands
+     * every changed entry to the given consumer.
+     *
+     * @param buffer The buffer to read from.
+     * @param size The size of the storage the delta is applied to.
+     * @param blockInformationReader The reader for the block information of the delta palette, matching the writer of the delta.
+     * @param consumer The consumer which receives the changed entries.
+     * @throws IllegalArgumentException when the delta does not fit a storage of the given size.
+     */
+    public static void read(
+      final FriendlyByteBuf buffer,
+      final int size,
+      final Function<FriendlyByteBuf, IBlockInformation> blockInformationReader,
+      final IChangedEntryConsumer consumer)
+    {
+        final int paletteSize = buffer.readVarInt();
+        final IBlockInformation[] palette = new IBlockInformation[paletteSize];
+        for (int i = 0; i < paletteSize; i++)
+        {
+            palette[i] = blockInformationReader.apply(buffer);
+        }
+
+        final int totalEntryCount = size * size * size;
+        final int runCount = buffer.readVarInt();
+        int entry = 0;
+        for (int i = 0; i < runCount; i++)
+        {
+            final int skippedEntries = buffer.readVarInt();
+            final int length = buffer.readVarInt();
+            final int paletteIndex = buffer.readVarInt();
+            if (paletteIndex < 0 || paletteIndex >= paletteSize)
+                throw new IllegalArgumentException("The palette index %d is not part of the delta palette of size %d".formatted(paletteIndex, paletteSize));
+
+            entry += skippedEntries;
+            if (skippedEntries < 0 || length <= 0 || length > totalEntryCount - entry)
+                throw new IllegalArgumentException("The run of length %d at entry %d exceeds the %d entries of the storage".formatted(length, entry, totalEntryCount));
+
+            for (final int end = entry + length; entry < end; entry++)
+            {
+                consumer.accept(entry / (size * size), (entry / size) % size, entry % size, palette[paletteIndex]);
+            }
+        }
+    }
+
+    /**
+     * Receives the entries of a delta.
+     */
+    @FunctionalInterface
+    public interface IChangedEntryConsumer
+    {
+        /**
+         * Invoked for every changed entry of a delta.
+         *
+         * @param x The x coordinate of the entry.
+         * @param y The y coordinate of the entry.
+         * @param z The z coordinate of the entry.
+         * @param blockInformation The block information the entry now holds.
+         */
+        void accept(int x, int y, int z, IBlockInformation blockInformation);
+    }
+}
@@ -0,0 +1,90 @@
+package mod.chiselsandbits.block.entities.storage;
+
+import mod.chiselsandbits.api.block.storage.IStateEntryStorage;
+import mod.chiselsandbits.blockinformation.BlockInformation;
+import net.minecraft.core.BlockPos;
+import net.minecraft.core.Vec3i;
+
+/**
+ * Picks the storage representation which fits the contents of a storage best.
+ * <p>
+ * Mostly empty storages are kept in a {@link OctreeStateEntryStorage}, everything else in a {@link SimpleStateEntryStorage}.
+ * The thresholds for switching in either direction differ, so that a storage which hovers around a single threshold does not
+ * get converted back and forth on every change.
+ */
+public final class StateEntryStorageSelector
+{
+    private static final StateEntryStorageSelector INSTANCE = new StateEntryStorageSelector();
+
+    /**
+     * Packed storages with less occupied positions than this fraction of their volume are converted to an octree.
+     */
+    private static final double TO_SPARSE_OCCUPANCY = 0.25d;
+
+    /**
+     * Octree storages with more occupied positions than this fraction of their volume are converted to a packed storage.
+     */
+    private static final double TO_PACKED_OCCUPANCY = 0.5d;
+
+    public static StateEntryStorageSelector getInstance()
+    {
+        return INSTANCE;
+    }
+
+    private StateEntryStorageSelector()
+    {
+    }
+
+    /**
+     * Returns a storage with the same contents as the given storage, in the representation that suits those contents best.
+     * If the given storage already uses that representation, it is returned as is.
+     *
+     * @param storage The storage to select the representation for.
+     * @return The storage to use.
+     */
+    public IStateEntryStorage select(final IStateEntryStorage storage)
+    {
+        if (storage.isUniform())
+            return storage;
+
+        if (storage instanceof final OctreeStateEntryStorage octree) {
+            if (getOccupancy(storage) > TO_PACKED_OCCUPANCY)
+                return octree.toPacked();
+
+            return storage;
+        }
+
+        if (storage instanceof SimpleStateEntryStorage && Integer.bitCount(storage.getSize()) == 1 && getOccupancy(storage) < TO_SPARSE_OCCUPANCY)
+            return OctreeStateEntryStorage.copyOf(storage);
+
+        return storage;
+    }
+
+    /**
+     * Returns a storage with the same contents as the given storage in the packed representation, which the binary formats are
+     * written from. Packed storages are returned as is.
+     *
+     * @param storage The storage to convert.
+     * @return The packed storage.
+     */
+    public SimpleStateEntryStorage toPacked(final IStateEntryStorage storage)
+    {
+        if (storage instanceof final SimpleStateEntryStorage packed)
+            return packed;
+
+        if (storage instanceof final OctreeStateEntryStorage octree)
+            return octree.toPacked();
+
+        final SimpleStateEntryStorage packed = new SimpleStateEntryStorage(storage.getSize());
+        packed.deserializeNBT(storage.serializeNBT());
+        return packed;
+    }
+
+    private static double getOccupancy(final IStateEntryStorage storage)
+    {
+        final int size = storage.getSize();
+        final int volume = size * size * size;
+        final int air = storage.countInBox(BlockInformation.AIR, BlockPos.ZERO, new Vec3i(size, size, size));
+        return (volume - air) / (double) volume;
+    }
+}
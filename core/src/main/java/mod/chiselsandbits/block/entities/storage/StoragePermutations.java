@@ -0,0 +1,151 @@
+package mod.chiselsandbits.block.entities.storage;
+
+import net.minecraft.core.Direction;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Precomputed index permutations which rotate and mirror a cubic storage of a given size.
+ * <p>
+ * Each permutation is a table which holds, for every index in the transformed storage, the index in the original storage
+ * the entry is taken from. Indices use the {@code x * size * size + y * size + z} layout of the storages.
+ * The tables are calculated once per size and shared between all storages of that size.
+ */
+public final class StoragePermutations
+{
+    private static final Map<Integer, StoragePermutations> PERMUTATIONS_BY_SIZE = new ConcurrentHashMap<>();
+
+    /**
+     * Gives access to the permutations for storages of the given size.
+     *
+     * @param size The size of the storage in all dimensions.
+     * @return The permutations.
+     */
+    public static StoragePermutations forSize(final int size)
+    {
+        return PERMUTATIONS_BY_SIZE.computeIfAbsent(size, StoragePermutations::new);
+    }
+
+    private final int       size;
+    private final int[][][] rotations;
+    private final int[][]   mirrors;
+
+    private StoragePermutations(final int size)
+    {
+        this.size = size;
+
+        final Direction.Axis[] axes = Direction.Axis.values();
+        this.rotations = new int[axes.length][][];
+        this.mirrors = new int[axes.length][];
+        for (final Direction.Axis axis : axes)
+        {
+            final int[][] axisRotations = new int[3][];
+            axisRotations[0] = createRotation(axis);
+            axisRotations[1] = compose(axisRotations[0], axisRotations[0]);
+            axisRotations[2] = compose(axisRotations[1], axisRotations[0]);
+
+            this.rotations[axis.ordinal()] = axisRotations;
+            this.mirrors[axis.ordinal()] = createMirror(axis);
+        }
+    }
+
+    /**
+     * Gives access to the permutation which rotates a storage the given amount of times by 90 degrees around the given axis.
+     * The returned table is shared and must not be modified.
+     *
+     * @param axis The axis to rotate around.
+     * @param rotationCount The amount of rotations, between 1 and 3 inclusive.
+     * @return The permutation table.
+     */
+    public int[] getRotation(final Direction.Axis axis, final int rotationCount)
+    {
+        if (rotationCount < 1 || rotationCount > 3)
+            throw new IllegalArgumentException("The rotation count needs to be between 1 and 3, got: " + rotationCount);
+
+        return rotations[axis.ordinal()][rotationCount - 1];
+    }
+
+    /**
+     * Gives access to the permutation which mirrors a storage along the given axis.
+     * The returned table is shared and must not be modified.
+     *
+     * @param axis The axis to mirror along.
+     * @return The permutation table.
+     */
+    public int[] getMirror(final Direction.Axis axis)
+    {
+        return mirrors[axis.ordinal()];
+    }
+
+    /**
+     * A single rotation by 90 degrees around the center of the storage, matching {@link mod.chiselsandbits.api.util.VectorUtils#rotate90Degrees}.
+     */
+    private int[] createRotation(final Direction.Axis axis)
+    {
+        final int max = size - 1;
+        final int[] permutation = new int[size * size * size];
+        for (int x = 0; x < size; x++)
+        {
+            for (int y = 0; y < size; y++)
+            {
+                for (int z = 0; z < size; z++)
+                {
+                    final int target = switch (axis)
+                    {
+                        case X -> getIndex(x, max - z, y);
+                        case Y -> getIndex(z, y, max - x);
+                        case Z -> getIndex(max - y, x, z);
+                    };
+
+                    permutation[target] = getIndex(x, y, z);
+                }
+            }
+        }
+
+        return permutation;
+    }
+
+    private int[] createMirror(final Direction.Axis axis)
+    {
+        final int max = size - 1;
+        final int[] permutation = new int[size * size * size];
+        for (int x = 0; x < size; x++)
+        {
+            for (int y = 0; y < size; y++)
+            {
+                for (int z = 0; z < size; z++)
+                {
+                    final int target = switch (axis)
+                    {
+                        case X -> getIndex(max - x, y, z);
+                        case Y -> getIndex(x, max - y, z);
+                        case Z -> getIndex(x, y, max - z);
+                    };
+
+                    permutation[target] = getIndex(x, y, z);
+                }
+            }
+        }
+
+        return permutation;
+    }
+
+    /**
+     * Creates the permutation which first applies the first permutation and then the second.
+     */
+    private static int[] compose(final int[] first, final int[] second)
+    {
+        final int[] result = new int[first.length];
+        for (int i = 0; i < result.length; i++)
+        {
+            result[i] = first[second[i]];
+        }
+        return result;
+    }
+
+    private int getIndex(final int x, final int y, final int z)
+    {
+        return x * size * size + y * size + z;
+    }
+}
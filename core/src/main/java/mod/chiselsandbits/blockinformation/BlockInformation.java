@@ -34,6 +34,7 @@ public final class BlockInformation implements IBlockInformation {
 
     private BlockState blockState;
     private Optional<IStateVariant> variant;
+    private int hashCode = 0;
 
     public BlockInformation(CompoundTag tag) {
         deserializeNBT(tag);
@@ -63,6 +64,7 @@ public final class BlockInformation implements IBlockInformation {
     public void deserializeNBT(final CompoundTag nbt) {
         DataResult<BlockState> dataResult = BlockStateSerializationUtils.deserialize(nbt.getString(NbtConstants.STATE));
         this.blockState = dataResult.result().orElseGet(Blocks.AIR::defaultBlockState);
+        this.hashCode = 0;
 
         variant = Optional.empty();
         if (nbt.contains(NbtConstants.VARIANT)) {
@@ -80,6 +82,7 @@ public final class BlockInformation implements IBlockInformation {
     @Override
     public void deserializeFrom(final @NotNull FriendlyByteBuf packetBuffer) {
         blockState = BlockStateSerializationUtils.deserialize(packetBuffer);
+        hashCode = 0;
 
         variant = Optional.empty();
         if (packetBuffer.readBoolean()) {
@@ -113,7 +116,13 @@ public final class BlockInformation implements IBlockInformation {
 
     @Override
     public int hashCode() {
-        return Objects.hash(blockState, variant);
+        //Block information is hashed very often by palettes and statistics, so the hash is cached until the next deserialization.
+        int result = hashCode;
+        if (result == 0) {
+            result = Objects.hash(blockState, variant);
+            hashCode = result;
+        }
+        return result;
     }
 
     @Override
@@ -0,0 +1,185 @@
+package mod.chiselsandbits.blockinformation;
+
+import mod.chiselsandbits.api.blockinformation.IBlockInformation;
+import net.minecraft.nbt.CompoundTag;
+import net.minecraft.network.FriendlyByteBuf;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Process wide registry which interns block information instances.
+ * <p>
+ * Every distinct block information is stored exactly once and receives a dense integer id, which stays stable for the lifetime
+ * of the process. The ids are not stable between sessions and as such should never be persisted.
+ * Interned instances are shared, and should be treated as immutable by callers.
+ */
+public final class BlockInformationRegistry
+{
+    private static final BlockInformationRegistry INSTANCE = new BlockInformationRegistry();
+
+    public static BlockInformationRegistry getInstance()
+    {
+        return INSTANCE;
+    }
+
+    private final Map<IBlockInformation, Entry> entries = new ConcurrentHashMap<>();
+    private final Map<CompoundTag, SpecEntry> entriesBySpec = new ConcurrentHashMap<>();
+    private volatile Entry[] entriesById = new Entry[64];
+    private int nextId = 0;
+
+    private BlockInformationRegistry()
+    {
+    }
+
+    /**
+     * Returns the canonical instance which is equal to the given block information.
+     *
+     * @param blockInformation The block information to intern.
+     * @return The canonical instance.
+     */
+    public IBlockInformation intern(final IBlockInformation blockInformation)
+    {
+        return getEntry(blockInformation).blockInformation();
+    }
+
+    /**
+     * Returns the id of the given block information, interning it if needed.
+     *
+     * @param blockInformation The block information to get the id for.
+     * @return The id.
+     */
+    public int getId(final IBlockInformation blockInformation)
+    {
+        return getEntry(blockInformation).id();
+    }
+
+    /**
+     * Returns the canonical block information for the given id.
+     *
+     * @param id The id.
+     * @return The block information.
+     * @throws IllegalArgumentException when the id is not known.
+     */
+    public IBlockInformation getBlockInformation(final int id)
+    {
+        final Entry[] byId = this.entriesById;
+        if (id < 0 || id >= byId.length || byId[id] == null)
+            throw new IllegalArgumentException("Unknown block information id: " + id);
+
+        return byId[id].blockInformation();
+    }
+
+    /**
+     * Reads a block information from its NBT representation and returns the canonical instance.
+     * Specs which have been read before are not parsed again.
+     *
+     * @param spec The serialized block information.
+     * @return The canonical instance.
+     */
+    public IBlockInformation fromNBT(final CompoundTag spec)
+    {
+        return getSpecEntry(spec).blockInformation();
+    }
+
+    /**
+     * Returns a shared instance of the given serialized block information.
+     * The returned tag is the same for all equal specs and must not be modified.
+     * Unlike {@link #serializeNBT(IBlockInformation)} this keeps specs which can not be resolved in the current session intact.
+     *
+     * @param spec The serialized block information.
+     * @return The shared instance.
+     */
+    public CompoundTag internSpec(final CompoundTag spec)
+    {
+        return getSpecEntry(spec).spec();
+    }
+
+    /**
+     * Gives access to the shared serialized form of the given block information.
+     * The returned tag must not be modified.
+     *
+     * @param blockInformation The block information.
+     * @return The shared serialized form.
+     */
+    public CompoundTag getSpec(final IBlockInformation blockInformation)
+    {
+        return getEntry(blockInformation).spec();
+    }
+
+    private SpecEntry getSpecEntry(final CompoundTag spec)
+    {
+        final SpecEntry known = this.entriesBySpec.get(spec);
+        if (known != null)
+            return known;
+
+        final CompoundTag copiedSpec = spec.copy();
+        final Entry resolved = getEntry(new BlockInformation(copiedSpec));
+        //Specs which resolve losslessly share the instance of their block information, so both lookups hand out the same tag.
+        final CompoundTag canonicalSpec = resolved.spec().equals(copiedSpec) ? resolved.spec() : copiedSpec;
+        final SpecEntry entry = new SpecEntry(canonicalSpec, resolved.blockInformation());
+        final SpecEntry existing = this.entriesBySpec.putIfAbsent(canonicalSpec, entry);
+        return existing == null ? entry : existing;
+    }
+
+    /**
+     * Reads a block information from the given buffer and returns the canonical instance.
+     *
+     * @param buffer The buffer to read from.
+     * @return The canonical instance.
+     */
+    public IBlockInformation fromBuffer(final FriendlyByteBuf buffer)
+    {
+        return intern(new BlockInformation(buffer));
+    }
+
+    /**
+     * Gives access to a copy of the serialized form of the given block information.
+     * The serialized form is only calculated once per distinct block information.
+     *
+     * @param blockInformation The block information to serialize.
+     * @return The serialized form.
+     */
+    public CompoundTag serializeNBT(final IBlockInformation blockInformation)
+    {
+        return getEntry(blockInformation).spec().copy();
+    }
+
+    private Entry getEntry(final IBlockInformation blockInformation)
+    {
+        final Entry known = this.entries.get(blockInformation);
+        if (known != null)
+            return known;
+
+        synchronized (this)
+        {
+            final Entry existing = this.entries.get(blockInformation);
+            if (existing != null)
+                return existing;
+
+            final IBlockInformation canonical = blockInformation.createSnapshot();
+            final Entry entry = new Entry(canonical, nextId++, canonical.serializeNBT());
+
+            Entry[] byId = this.entriesById;
+            if (entry.id() >= byId.length)
+            {
+                byId = Arrays.copyOf(byId, byId.length * 2);
+            }
+            byId[entry.id()] = entry;
+            this.entriesById = byId;
+
+            this.entries.put(canonical, entry);
+            return entry;
+        }
+    }
+
+    public int size()
+    {
+        return this.entries.size();
+    }
+
+    private record Entry(IBlockInformation blockInformation, int id, CompoundTag spec) {}
+
+    private record SpecEntry(CompoundTag spec, IBlockInformation blockInformation) {}
+}
@@ -0,0 +1,232 @@
+package mod.chiselsandbits.blockinformation;
+
+import it.unimi.dsi.fastutil.Hash;
+import it.unimi.dsi.fastutil.objects.Object2IntMap;
+import it.unimi.dsi.fastutil.objects.Object2IntOpenCustomHashMap;
+import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
+import mod.chiselsandbits.api.blockinformation.IBlockInformation;
+import mod.chiselsandbits.api.util.constants.NbtConstants;
+import net.minecraft.nbt.CompoundTag;
+import net.minecraft.network.FriendlyByteBuf;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+/**
+ * A table of serialized block information, which is written once at the start of a binary payload.
+ * The rest of the payload then refers to block information by their index in the table, as a var int.
+ * <p>
+ * Entries are kept in their serialized form, the same form the palettes keep, so block information which can not be resolved
+ * in the current session survives a load and save cycle. Unlike the ids of the {@link BlockInformationRegistry} the indices
+ * are only valid within a single payload, which makes them safe to persist.
+ */
+public final class BlockInformationTable
+{
+    private static final Hash.Strategy<CompoundTag> IDENTITY = new Hash.Strategy<>()
+    {
+        @Override
+        public int hashCode(final CompoundTag spec)
+        {
+            return System.identityHashCode(spec);
+        }
+
+        @Override
+        public boolean equals(final CompoundTag first, final CompoundTag second)
+        {
+            return first == second;
+        }
+    };
+
+    private final List<CompoundTag>          specs   = new ArrayList<>();
+    private final Object2IntMap<CompoundTag> indices;
+
+    public BlockInformationTable()
+    {
+        this(new Object2IntOpenHashMap<>());
+    }
+
+    private BlockInformationTable(final Object2IntMap<CompoundTag> indices)
+    {
+        this.indices = indices;
+        this.indices.defaultReturnValue(-1);
+    }
+
+    /**
+     * Creates a table which compares the specs it is given by identity instead of by content, so they do not need to be hashed.
+     * Meant for the shared specs of the {@link BlockInformationRegistry} and the palettes, which are the same instance for equal
+     * specs. Equal specs which are not the same instance get separate entries, which is still read back correctly.
+     *
+     * @return The table.
+     */
+    public static BlockInformationTable forSharedSpecs()
+    {
+        return new BlockInformationTable(new Object2IntOpenCustomHashMap<>(IDENTITY));
+    }
+
+    /**
+     * Reads a table which was written by {@link #serializeInto(FriendlyByteBuf)}.
+     *
+     * @param buffer The buffer to read from.
+     * @return The table.
+     */
+    public static BlockInformationTable readFrom(final FriendlyByteBuf buffer)
+    {
+        final BlockInformationTable table = new BlockInformationTable();
+        for (final CompoundTag spec : readSpecs(buffer))
+        {
+            table.add(BlockInformationRegistry.getInstance().internSpec(spec));
+        }
+
+        return table;
+    }
+
+    /**
+     * Reads a table which was written by {@link #serializeInto(FriendlyByteBuf, BiConsumer)}.
+     *
+     * @param buffer The buffer to read from.
+     * @param specReader The reader for the individual entries, which needs to match the writer the table was written with.
+     * @return The table.
+     */
+    public static BlockInformationTable readFrom(final FriendlyByteBuf buffer, final Function<FriendlyByteBuf, CompoundTag> specReader)
+    {
+        final BlockInformationTable table = new BlockInformationTable();
+        final int size = buffer.readVarInt();
+        for (int i = 0; i < size; i++)
+        {
+            table.add(specReader.apply(buffer));
+        }
+
+        return table;
+    }
+
+    /**
+     * Reads the entries of a table which was written by {@link #serializeInto(FriendlyByteBuf)}, without resolving them.
+     * This does not need a running game, which makes it usable by offline tools.
+     *
+     * @param buffer The buffer to read from.
+     * @return The serialized block information, in table order.
+     */
+    public static List<CompoundTag> readSpecs(final FriendlyByteBuf buffer)
+    {
+        final int size = buffer.readVarInt();
+        final List<CompoundTag> specs = new ArrayList<>(size);
+        for (int i = 0; i < size; i++)
+        {
+            final CompoundTag spec = new CompoundTag();
+            spec.putString(NbtConstants.STATE, buffer.readUtf());
+            if (buffer.readBoolean())
+            {
+                final CompoundTag variant = buffer.readNbt();
+                if (variant != null)
+                    spec.put(NbtConstants.VARIANT, variant);
+            }
+
+            specs.add(spec);
+        }
+
+        return specs;
+    }
+
+    /**
+     * Returns the index of the given serialized block information, adding it to the table if needed.
+     *
+     * @param spec The serialized block information.
+     * @return The index in the table.
+     */
+    public int getIndex(final CompoundTag spec)
+    {
+        final int index = this.indices.getInt(spec);
+        if (index >= 0)
+            return index;
+
+        return add(spec);
+    }
+
+    /**
+     * Returns the index of the given block information, adding it to the table if needed.
+     *
+     * @param blockInformation The block information.
+     * @return The index in the table.
+     */
+    public int getIndex(final IBlockInformation blockInformation)
+    {
+        return getIndex(BlockInformationRegistry.getInstance().getSpec(blockInformation));
+    }
+
+    /**
+     * Gives access to the serialized block information with the given index.
+     * The returned tag is shared and must not be modified.
+     *
+     * @param index The index in the table.
+     * @return The serialized block information.
+     * @throws IllegalArgumentException when the index is not part of the table.
+     */
+    public CompoundTag getSpec(final int index)
+    {
+        if (index < 0 || index >= this.specs.size())
+            throw new IllegalArgumentException("The block information index %d is not part of a table with %d entries".formatted(index, this.specs.size()));
+
+        return this.specs.get(index);
+    }
+
+    /**
+     * Returns the canonical block information with the given index.
+     *
+     * @param index The index in the table.
+     * @return The block information.
+     * @throws IllegalArgumentException when the index is not part of the table.
+     */
+    public IBlockInformation getBlockInformation(final int index)
+    {
+        return BlockInformationRegistry.getInstance().fromNBT(getSpec(index));
+    }
+
+    public int size()
+    {
+        return this.specs.size();
+    }
+
+    /**
+     * Writes the table into the given buffer.
+     * Every entry is written as its state string, followed by its variant if it has one.
+     *
+     * @param buffer The buffer to write into.
+     */
+    public void serializeInto(final FriendlyByteBuf buffer)
+    {
+        buffer.writeVarInt(this.specs.size());
+        for (final CompoundTag spec : this.specs)
+        {
+            buffer.writeUtf(spec.getString(NbtConstants.STATE));
+            buffer.writeBoolean(spec.contains(NbtConstants.VARIANT));
+            if (spec.contains(NbtConstants.VARIANT))
+                buffer.writeNbt(spec.getCompound(NbtConstants.VARIANT));
+        }
+    }
+
+    /**
+     * Writes the table into the given buffer, using the given writer for the individual entries.
+     * Tables written this way are read with {@link #readFrom(FriendlyByteBuf, Function)}.
+     *
+     * @param buffer The buffer to write into.
+     * @param specWriter The writer for the individual entries.
+     */
+    public void serializeInto(final FriendlyByteBuf buffer, final BiConsumer<FriendlyByteBuf, CompoundTag> specWriter)
+    {
+        buffer.writeVarInt(this.specs.size());
+        for (final CompoundTag spec : this.specs)
+        {
+            specWriter.accept(buffer, spec);
+        }
+    }
+
+    private int add(final CompoundTag spec)
+    {
+        final int index = this.specs.size();
+        this.specs.add(spec);
+        this.indices.put(spec, index);
+        return index;
+    }
+}
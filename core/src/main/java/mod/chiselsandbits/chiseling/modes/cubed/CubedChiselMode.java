@@ -1,7 +1,6 @@
 package mod.chiselsandbits.chiseling.modes.cubed;
 
 import com.communi.suggestu.scena.core.registries.AbstractCustomRegistryEntry;
-import com.google.common.collect.Maps;
 import mod.chiselsandbits.api.axissize.CollisionType;
 import mod.chiselsandbits.api.blockinformation.IBlockInformation;
 import mod.chiselsandbits.api.change.IChangeTrackerManager;
@@ -18,6 +17,7 @@ import mod.chiselsandbits.api.util.BlockPosStreamProvider;
 import mod.chiselsandbits.api.util.LocalStrings;
 import mod.chiselsandbits.api.util.RayTracingUtils;
 import mod.chiselsandbits.api.util.VectorUtils;
+import mod.chiselsandbits.blockinformation.BlockInformation;
 import mod.chiselsandbits.registrars.ModChiselModeGroups;
 import mod.chiselsandbits.utils.BitInventoryUtils;
 import mod.chiselsandbits.utils.ItemStackUtils;
@@ -36,7 +36,6 @@ import net.minecraft.world.phys.shapes.Shapes;
 import net.minecraft.world.phys.shapes.VoxelShape;
 import org.jetbrains.annotations.NotNull;
 
-import java.util.Map;
 import java.util.Optional;
 import java.util.function.Function;
 
@@ -83,25 +82,17 @@ public class CubedChiselMode extends AbstractCustomRegistryEntry implements IChi
               try (IBatchMutation ignored =
                      mutator.batch(IChangeTrackerManager.getInstance().getChangeTracker(playerEntity)))
               {
-                  final Map<IBlockInformation, Integer> resultingBitCount = Maps.newHashMap();
-
-                  final int totalItemDamage = mutator.inWorldMutableStream()
-                    .mapToInt(state -> {
-                        final IBlockInformation currentState = state.getBlockInformation();
-                        return context.tryDamageItemAndDoOrSetBrokenError(
-                          () -> {
-                              resultingBitCount.putIfAbsent(currentState, 0);
-                              resultingBitCount.computeIfPresent(currentState, (s, currentCount) -> currentCount + 1);
-
-                              state.clear();
-                          });
-                    }).sum();
-
-                  resultingBitCount.forEach((blockState, count) -> BitInventoryUtils.insertIntoOrSpawn(
-                    playerEntity,
-                    blockState,
-                    count
-                  ));
+                  //Every entry of the area costs one point of damage, including the ones which are already empty.
+                  final int entryCount = (int) mutator.stream().count();
+                  context.tryDamageItemAndDo(
+                    entryCount,
+                    () -> mutator.replaceInArea(blockInformation -> !blockInformation.isAir(), BlockInformation.AIR)
+                      .forEach((blockState, count) -> BitInventoryUtils.insertIntoOrSpawn(
+                        playerEntity,
+                        blockState,
+                        count
+                      ))
+                  );
               }
 
               return ClickProcessingState.ALLOW;
@@ -155,9 +146,7 @@ public class CubedChiselMode extends AbstractCustomRegistryEntry implements IChi
                   try (IBatchMutation ignored =
                          mutator.batch(IChangeTrackerManager.getInstance().getChangeTracker(playerEntity)))
                   {
-                      mutator.inWorldMutableStream()
-                        .filter(state -> state.getBlockInformation().isAir())
-                        .forEach(state -> state.overrideState(heldBlockState)); //We can use override state here to prevent the try-catch block.
+                      mutator.replaceInArea(IBlockInformation::isAir, heldBlockState);
                   }
               }
               else
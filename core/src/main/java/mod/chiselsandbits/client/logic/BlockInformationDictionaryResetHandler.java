@@ -0,0 +1,17 @@
+package mod.chiselsandbits.client.logic;
+
+import mod.chiselsandbits.network.BlockInformationDictionary;
+import net.minecraft.client.Minecraft;
+
+public final class BlockInformationDictionaryResetHandler {
+
+    private BlockInformationDictionaryResetHandler() {
+        throw new IllegalStateException("Can not instantiate an instance of: BlockInformationDictionaryResetHandler. This is a utility class");
+    }
+
+    public static void checkAndDoReset() {
+        //Dictionary packets only arrive while the client is connected, so without a connection the received entries are stale.
+        if (Minecraft.getInstance().getConnection() == null)
+            BlockInformationDictionary.getInstance().clearReceivedEntries();
+    }
+}
@@ -28,6 +28,7 @@ public final class EventHandlers {
             KeyBindingManager.getInstance().handleKeyPresses();
             TickHandler.onClientTick();
             MeasurementTapeItemResetHandler.checkAndDoReset();
+            BlockInformationDictionaryResetHandler.checkAndDoReset();
         });
         IClientEvents.getInstance().getDrawHighlightEvent().register(SelectedObjectHighlightHandler::onDrawHighlight);
         IClientEvents.getInstance().getScrollEvent().register(ScrollBasedModeChangeHandler::onScroll);
@@ -0,0 +1,466 @@
+package mod.chiselsandbits.client.sharing;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hashing;
+import mod.chiselsandbits.api.client.sharing.PatternIOException;
+import mod.chiselsandbits.api.config.IClientConfiguration;
+import net.minecraft.Util;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Stream;
+
+/**
+ * A local library of patterns, which allows patterns to be looked up without reading and decoding their pattern files.
+ * <p>
+ * The library consists of two files in the pattern export directory:
+ * <ul>
+ *     <li>An append-only data file, which holds the chisel data of every distinct pattern exactly once, keyed by its content hash,
+ *     and records which bind a name to a content hash. A later binding of a name replaces the earlier one. The file is memory
+ *     mapped, so loading a pattern only copies its own bytes onto the heap.</li>
+ *     <li>An index file, which holds the position of every content record and the current binding of every name. It is only
+ *     a cache of the data file: records which were appended after the index was written are picked up by scanning the end of
+ *     the data file, and a missing or broken index is rebuilt from the data file as a whole.</li>
+ * </ul>
+ * Pattern files which are not in the library yet are imported in the background when the library is first used.
+ */
+public final class PatternLibrary
+{
+    private static final PatternLibrary INSTANCE = new PatternLibrary();
+    private static final Logger         LOGGER   = LogManager.getLogger();
+
+    private static final String DATA_FILE_NAME         = "library.dat";
+    private static final String INDEX_FILE_NAME        = "library.idx";
+    private static final String PATTERN_FILE_EXTENSION = ".cbsbp";
+
+    private static final int  DATA_MAGIC     = 0x4342504C;
+    private static final int  INDEX_MAGIC    = 0x43425049;
+    private static final int  FORMAT_VERSION = 1;
+    private static final int  HEADER_SIZE    = 2 * Integer.BYTES;
+    private static final int  HASH_SIZE      = 32;
+    private static final byte CONTENT_RECORD = 1;
+    private static final byte NAME_RECORD    = 2;
+
+    public static PatternLibrary getInstance()
+    {
+        return INSTANCE;
+    }
+
+    private final Map<String, HashCode>   names    = Maps.newHashMap();
+    private final Map<HashCode, Location> contents = Maps.newHashMap();
+
+    private Path             directory;
+    private FileChannel      channel;
+    private MappedByteBuffer mapped;
+    private long             dataLength;
+    private boolean          indexDirty;
+
+    private PatternLibrary()
+    {
+    }
+
+    /**
+     * Loads the chisel data of the pattern with the given name.
+     *
+     * @param name The name of the pattern.
+     * @return The chisel data, or an empty optional when the library does not contain a pattern with the given name.
+     * @throws IOException when the library could not be read.
+     */
+    public synchronized Optional<byte[]> load(final String name) throws IOException
+    {
+        ensureOpen();
+
+        final HashCode hash = names.get(name);
+        if (hash == null)
+            return Optional.empty();
+
+        final Location location = contents.get(hash);
+        if (location == null)
+            return Optional.empty();
+
+        final long end = location.offset() + location.length();
+        if (mapped == null || end > mapped.capacity())
+            remap();
+
+        final byte[] data = new byte[location.length()];
+        mapped.get((int) location.offset(), data);
+        return Optional.of(data);
+    }
+
+    /**
+     * Indicates if the library contains a pattern with the given name.
+     *
+     * @param name The name of the pattern.
+     * @return True when the library contains the pattern.
+     * @throws IOException when the library could not be opened.
+     */
+    public synchronized boolean contains(final String name) throws IOException
+    {
+        ensureOpen();
+        return names.containsKey(name);
+    }
+
+    /**
+     * Stores the given chisel data under the given name.
+     * Data which is already part of the library is not stored again, only the name is bound to it.
+     * The index is written on the next {@link #flushIndex()}.
+     *
+     * @param name The name of the pattern.
+     * @param chiselData The chisel data of the pattern.
+     * @throws IOException when the library could not be written.
+     */
+    public synchronized void store(final String name, final byte[] chiselData) throws IOException
+    {
+        ensureOpen();
+
+        final HashCode hash = Hashing.sha256().hashBytes(chiselData);
+        if (!contents.containsKey(hash))
+        {
+            final ByteBuffer record = ByteBuffer.allocate(1 + HASH_SIZE + Integer.BYTES + chiselData.length);
+            record.put(CONTENT_RECORD);
+            record.put(hash.asBytes());
+            record.putInt(chiselData.length);
+            record.put(chiselData);
+            final long offset = append(record);
+            contents.put(hash, new Location(offset + record.capacity() - chiselData.length, chiselData.length));
+        }
+
+        if (hash.equals(names.get(name)))
+            return;
+
+        final byte[] encodedName = name.getBytes(StandardCharsets.UTF_8);
+        final ByteBuffer record = ByteBuffer.allocate(1 + Integer.BYTES + encodedName.length + HASH_SIZE);
+        record.put(NAME_RECORD);
+        record.putInt(encodedName.length);
+        record.put(encodedName);
+        record.put(hash.asBytes());
+        append(record);
+        names.put(name, hash);
+    }
+
+    /**
+     * Writes the index, if it changed since it was last written.
+     *
+     * @throws IOException when the index could not be written.
+     */
+    public synchronized void flushIndex() throws IOException
+    {
+        if (!indexDirty || directory == null)
+            return;
+
+        final Path indexFile = directory.resolve(INDEX_FILE_NAME);
+        final Path temporaryFile = directory.resolve(INDEX_FILE_NAME + ".tmp");
+        try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporaryFile))))
+        {
+            output.writeInt(INDEX_MAGIC);
+            output.writeInt(FORMAT_VERSION);
+            output.writeLong(dataLength);
+
+            output.writeInt(contents.size());
+            for (final Map.Entry<HashCode, Location> entry : contents.entrySet())
+            {
+                output.write(entry.getKey().asBytes());
+                output.writeLong(entry.getValue().offset());
+                output.writeInt(entry.getValue().length());
+            }
+
+            output.writeInt(names.size());
+            for (final Map.Entry<String, HashCode> entry : names.entrySet())
+            {
+                output.writeUTF(entry.getKey());
+                output.write(entry.getValue().asBytes());
+            }
+        }
+
+        try
+        {
+            Files.move(temporaryFile, indexFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+        catch (AtomicMoveNotSupportedException e)
+        {
+            Files.move(temporaryFile, indexFile, StandardCopyOption.REPLACE_EXISTING);
+        }
+        indexDirty = false;
+    }
+
+    /**
+     * Imports all pattern files of the pattern export directory which are not part of the library yet, on a background thread.
+     * Pattern files are read one at a time, so the import never holds more than a single pattern in memory.
+     *
+     * @return A future which completes with the amount of imported patterns.
+     */
+    public CompletableFuture<Integer> importPatternFilesAsync()
+    {
+        return CompletableFuture.supplyAsync(this::importPatternFiles, Util.ioPool());
+    }
+
+    private int importPatternFiles()
+    {
+        final List<Path> patternFiles = Lists.newArrayList();
+        try (Stream<Path> files = Files.list(getDirectory()))
+        {
+            files.filter(file -> file.getFileName().toString().endsWith(PATTERN_FILE_EXTENSION)).forEach(patternFiles::add);
+        }
+        catch (IOException e)
+        {
+            LOGGER.warn("Failed to list the pattern files for the pattern library.", e);
+            return 0;
+        }
+
+        int imported = 0;
+        for (final Path patternFile : patternFiles)
+        {
+            final String fileName = patternFile.getFileName().toString();
+            final String name = fileName.substring(0, fileName.length() - PATTERN_FILE_EXTENSION.length());
+            try
+            {
+                if (contains(name))
+                    continue;
+
+                store(name, PatternSharingExecutor.readChiselData(patternFile));
+                imported++;
+            }
+            catch (IOException | PatternIOException e)
+            {
+                LOGGER.warn("Failed to import the pattern file %s into the pattern library.".formatted(patternFile), e);
+            }
+        }
+
+        try
+        {
+            flushIndex();
+        }
+        catch (IOException e)
+        {
+            LOGGER.warn("Failed to write the index of the pattern library.", e);
+        }
+
+        if (imported > 0)
+            LOGGER.info("Imported %d pattern files into the pattern library.".formatted(imported));
+
+        return imported;
+    }
+
+    private static Path getDirectory()
+    {
+        return Paths.get(IClientConfiguration.getInstance().getPatternExportPath().get());
+    }
+
+    private void ensureOpen() throws IOException
+    {
+        if (channel != null)
+            return;
+
+        final Path targetDirectory = getDirectory();
+        Files.createDirectories(targetDirectory);
+
+        final FileChannel dataChannel = FileChannel.open(
+          targetDirectory.resolve(DATA_FILE_NAME),
+          StandardOpenOption.CREATE,
+          StandardOpenOption.READ,
+          StandardOpenOption.WRITE
+        );
+
+        try
+        {
+            if (dataChannel.size() < HEADER_SIZE)
+            {
+                final ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+                header.putInt(DATA_MAGIC);
+                header.putInt(FORMAT_VERSION);
+                header.flip();
+                dataChannel.truncate(0);
+                dataChannel.write(header, 0);
+            }
+            else
+            {
+                final ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+                dataChannel.read(header, 0);
+                header.flip();
+                if (header.getInt() != DATA_MAGIC || header.getInt() != FORMAT_VERSION)
+                    throw new IOException("The pattern library data file is not in a supported format");
+            }
+        }
+        catch (IOException e)
+        {
+            dataChannel.close();
+            throw e;
+        }
+
+        this.directory = targetDirectory;
+        this.channel = dataChannel;
+        this.dataLength = dataChannel.size();
+        remap();
+
+        final long indexedLength = readIndex();
+        scan(indexedLength);
+
+        //Pattern files which were exported before the library existed, or by other means, are picked up in the background.
+        importPatternFilesAsync();
+    }
+
+    /**
+     * Reads the index file into memory.
+     *
+     * @return The length of the data file which is covered by the index, or the header size when no usable index exists.
+     */
+    private long readIndex()
+    {
+        final Path indexFile = directory.resolve(INDEX_FILE_NAME);
+        if (!Files.exists(indexFile))
+            return HEADER_SIZE;
+
+        try (DataInputStream input = new DataInputStream(new BufferedInputStream(Files.newInputStream(indexFile))))
+        {
+            if (input.readInt() != INDEX_MAGIC || input.readInt() != FORMAT_VERSION)
+                return HEADER_SIZE;
+
+            final long indexedLength = input.readLong();
+            if (indexedLength < HEADER_SIZE || indexedLength > dataLength)
+                return HEADER_SIZE;
+
+            final Map<HashCode, Location> indexedContents = Maps.newHashMap();
+            final int contentCount = input.readInt();
+            for (int i = 0; i < contentCount; i++)
+            {
+                final HashCode hash = readHash(input);
+                indexedContents.put(hash, new Location(input.readLong(), input.readInt()));
+            }
+
+            final Map<String, HashCode> indexedNames = Maps.newHashMap();
+            final int nameCount = input.readInt();
+            for (int i = 0; i < nameCount; i++)
+            {
+                indexedNames.put(input.readUTF(), readHash(input));
+            }
+
+            contents.putAll(indexedContents);
+            names.putAll(indexedNames);
+            return indexedLength;
+        }
+        catch (IOException e)
+        {
+            LOGGER.warn("The index of the pattern library could not be read, it will be rebuilt.", e);
+            return HEADER_SIZE;
+        }
+    }
+
+    private static HashCode readHash(final DataInputStream input) throws IOException
+    {
+        final byte[] hash = new byte[HASH_SIZE];
+        input.readFully(hash);
+        return HashCode.fromBytes(hash);
+    }
+
+    /**
+     * Reads all records of the data file, starting at the given position, into the in memory index.
+     * A record which was only partially written, because the game stopped while appending it, is cut off.
+     */
+    private void scan(final long start) throws IOException
+    {
+        long position = start;
+        try
+        {
+            while (position < dataLength)
+            {
+                final int recordStart = (int) position;
+                final byte type = mapped.get(recordStart);
+                if (type == CONTENT_RECORD)
+                {
+                    final HashCode hash = readHash(recordStart + 1);
+                    final int length = mapped.getInt(recordStart + 1 + HASH_SIZE);
+                    final long dataStart = recordStart + 1 + HASH_SIZE + Integer.BYTES;
+                    if (length < 0 || dataStart + length > dataLength)
+                        break;
+
+                    contents.putIfAbsent(hash, new Location(dataStart, length));
+                    position = dataStart + length;
+                }
+                else if (type == NAME_RECORD)
+                {
+                    final int nameLength = mapped.getInt(recordStart + 1);
+                    final long nameStart = recordStart + 1 + Integer.BYTES;
+                    if (nameLength < 0 || nameStart + nameLength + HASH_SIZE > dataLength)
+                        break;
+
+                    final byte[] encodedName = new byte[nameLength];
+                    mapped.get((int) nameStart, encodedName);
+                    names.put(new String(encodedName, StandardCharsets.UTF_8), readHash((int) (nameStart + nameLength)));
+                    position = nameStart + nameLength + HASH_SIZE;
+                }
+                else
+                {
+                    break;
+                }
+            }
+        }
+        catch (IndexOutOfBoundsException e)
+        {
+            //The header of the last record is incomplete.
+        }
+
+        if (position < dataLength)
+        {
+            LOGGER.warn("The pattern library data file ends with an incomplete record, it is removed.");
+            channel.truncate(position);
+            dataLength = position;
+            remap();
+        }
+
+        if (position > start)
+            indexDirty = true;
+    }
+
+    private HashCode readHash(final int offset)
+    {
+        final byte[] hash = new byte[HASH_SIZE];
+        mapped.get(offset, hash);
+        return HashCode.fromBytes(hash);
+    }
+
+    private long append(final ByteBuffer record) throws IOException
+    {
+        record.flip();
+        final long offset = dataLength;
+        long position = offset;
+        while (record.hasRemaining())
+        {
+            position += channel.write(record, position);
+        }
+
+        dataLength = position;
+        indexDirty = true;
+        return offset;
+    }
+
+    private void remap() throws IOException
+    {
+        if (dataLength > Integer.MAX_VALUE)
+            throw new IOException("The pattern library data file exceeds the maximal supported size");
+
+        mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, dataLength);
+    }
+
+    private record Location(long offset, int length) {}
+}
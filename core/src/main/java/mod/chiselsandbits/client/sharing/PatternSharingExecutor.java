@@ -27,6 +27,8 @@ import net.minecraft.nbt.NbtIo;
 import net.minecraft.util.RandomSource;
 import net.minecraft.world.inventory.InventoryMenu;
 import net.minecraft.world.item.ItemStack;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
 
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
@@ -40,12 +42,14 @@ import java.util.Arrays;
 import java.util.Base64;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 import java.util.zip.DataFormatException;
 
 public final class PatternSharingExecutor
 {
+    private static final Logger LOGGER = LogManager.getLogger();
 
     private PatternSharingExecutor()
     {
@@ -72,6 +76,21 @@ public final class PatternSharingExecutor
 
         final String dataString = toDataString(textureAtlasData, modelData, chiselData);
         writePatternDataToDisk(patternName, dataString);
+        storeInLibrary(patternName, chiselData);
+    }
+
+    private static void storeInLibrary(final String patternName, final byte[] chiselData)
+    {
+        //The pattern file is the source of truth, the library can always pick it up again later.
+        try
+        {
+            PatternLibrary.getInstance().store(patternName, chiselData);
+            PatternLibrary.getInstance().flushIndex();
+        }
+        catch (IOException e)
+        {
+            LOGGER.warn("Failed to store the pattern %s in the pattern library.".formatted(patternName), e);
+        }
     }
 
     private static void writePatternDataToDisk(final String patternName, final String dataString) throws PatternIOException
@@ -201,12 +220,35 @@ public final class PatternSharingExecutor
 
     private static IMultiStateItemStack importPattern(final String patternName) throws PatternIOException
     {
-        final String patternData = loadPatternDataFromDisk(patternName);
-        return getChiselData(patternData);
+        try
+        {
+            final Optional<byte[]> libraryData = PatternLibrary.getInstance().load(patternName);
+            if (libraryData.isPresent())
+                return toItemStack(libraryData.get());
+        }
+        catch (IOException e)
+        {
+            LOGGER.warn("Failed to load the pattern %s from the pattern library, reading the pattern file instead.".formatted(patternName), e);
+        }
+
+        final byte[] chiselData = readChiselData(Paths.get(IClientConfiguration.getInstance().getPatternExportPath().get(), patternName + ".cbsbp"));
+        storeInLibrary(patternName, chiselData);
+        return toItemStack(chiselData);
+    }
+
+    /**
+     * Reads the chisel data from the given pattern file.
+     *
+     * @param targetPath The path of the pattern file.
+     * @return The chisel data.
+     * @throws PatternIOException when the file could not be read.
+     */
+    static byte[] readChiselData(final Path targetPath) throws PatternIOException
+    {
+        return readChiselData(loadPatternDataFromDisk(targetPath));
     }
 
-    private static String loadPatternDataFromDisk(final String patternName) throws PatternIOException {
-        final Path targetPath = Paths.get(IClientConfiguration.getInstance().getPatternExportPath().get(), patternName + ".cbsbp");
+    private static String loadPatternDataFromDisk(final Path targetPath) throws PatternIOException {
         if (!Files.exists(targetPath)) {
             throw new PatternIOException(
               LocalStrings.PatternImportFailedFileNotFound.getText(),
@@ -254,7 +296,7 @@ public final class PatternSharingExecutor
         return new String(decodedData);
     }
 
-    private static IMultiStateItemStack getChiselData(final String dataString) throws PatternIOException
+    private static byte[] readChiselData(final String dataString) throws PatternIOException
     {
         final Gson gson = new GsonBuilder().create();
 
@@ -271,11 +313,14 @@ public final class PatternSharingExecutor
         );
     }
 
-    private static IMultiStateItemStack getVersion1ChiselData(final JsonObject dataObject) throws PatternIOException
+    private static byte[] getVersion1ChiselData(final JsonObject dataObject)
     {
         final String encodedChiselString = dataObject.get("chiselData").getAsString();
-        final byte[] chiselData = Base64.getDecoder().decode(encodedChiselString);
+        return Base64.getDecoder().decode(encodedChiselString);
+    }
 
+    private static IMultiStateItemStack toItemStack(final byte[] chiselData) throws PatternIOException
+    {
         final ByteArrayDataInput byteArrayDataInput = ByteStreams.newDataInput(chiselData);
         final CompoundTag compoundTag;
         try
@@ -25,9 +25,14 @@ import mod.chiselsandbits.api.profiling.IProfilingManager;
 import mod.chiselsandbits.api.util.BlockInformationUtils;
 import mod.chiselsandbits.api.util.LocalStrings;
 import mod.chiselsandbits.api.variant.state.IStateVariantManager;
+import mod.chiselsandbits.block.entities.ChiseledBlockSaveStatistics;
+import mod.chiselsandbits.block.entities.ChiseledBlockSyncManager;
+import mod.chiselsandbits.network.BlockInformationDictionary;
+import mod.chiselsandbits.network.PayloadStatistics;
 import mod.chiselsandbits.network.packets.ExportPatternCommandMessagePacket;
 import mod.chiselsandbits.network.packets.ImportPatternCommandMessagePacket;
 import mod.chiselsandbits.profiling.ProfilingManager;
+import mod.chiselsandbits.storage.StorageTaskExecutor;
 import mod.chiselsandbits.utils.CommandUtils;
 import net.minecraft.commands.CommandBuildContext;
 import net.minecraft.commands.CommandSourceStack;
@@ -45,6 +50,7 @@ import net.minecraft.world.phys.Vec3;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
+import java.util.Locale;
 import java.util.Optional;
 import java.util.function.Consumer;
 
@@ -96,6 +102,12 @@ public class CommandManager
                             )
                     )
             )
+            .then(Commands.literal("saving")
+                    .executes(this::runSavingStatsCommand)
+            )
+            .then(Commands.literal("network")
+                    .executes(this::runNetworkStatsCommand)
+            )
             .then(Commands.literal("give")
                     .then(Commands.argument("target", EntityArgument.player())
                             .then(Commands.argument("state", BlockStateArgument.block(pContext))
@@ -258,6 +270,51 @@ public class CommandManager
         return 0;
     }
 
+    private int runSavingStatsCommand(final CommandContext<CommandSourceStack> context)
+    {
+        context.getSource().sendSuccess(() -> Component.literal("Chiseled block data used by chunk saves since startup:"), true);
+        for (final ChiseledBlockSaveStatistics.SavePath path : ChiseledBlockSaveStatistics.SavePath.values())
+        {
+            final long count = ChiseledBlockSaveStatistics.getInstance().getCount(path);
+            context.getSource().sendSuccess(() -> Component.literal(" > " + path.name().toLowerCase(Locale.ROOT) + ": " + count), true);
+        }
+
+        final StorageTaskExecutor executor = StorageTaskExecutor.getInstance();
+        context.getSource().sendSuccess(() -> Component.literal("Save executor:"), true);
+        context.getSource().sendSuccess(() -> Component.literal(" > queued priority tasks: " + executor.getPriorityQueueDepth()), true);
+        context.getSource().sendSuccess(() -> Component.literal(" > queued saves: " + executor.getSaveQueueDepth() + " / " + executor.getSaveCapacity()), true);
+        context.getSource().sendSuccess(() -> Component.literal(" > submitted: " + executor.getSubmittedCount() + ", completed: " + executor.getCompletedCount()), true);
+        context.getSource().sendSuccess(() -> Component.literal(" > coalesced: " + executor.getCoalescedCount() + ", rejected: " + executor.getRejectedCount()), true);
+        context.getSource().sendSuccess(() -> Component.literal(" > wait: %.2fms average, %.2fms max".formatted(executor.getAverageWaitNanos() / 1_000_000d, executor.getMaxWaitNanos() / 1_000_000d)), true);
+        context.getSource().sendSuccess(() -> Component.literal(" > run: %.2fms average".formatted(executor.getAverageRunNanos() / 1_000_000d)), true);
+
+        return 0;
+    }
+
+    private int runNetworkStatsCommand(final CommandContext<CommandSourceStack> context)
+    {
+        final PayloadStatistics statistics = PayloadStatistics.getInstance();
+        final long uncompressedBytes = statistics.getUncompressedBytes();
+        final long payloadBytes = statistics.getPayloadBytes();
+        context.getSource().sendSuccess(() -> Component.literal("Chiseled block update payloads created since startup:"), true);
+        context.getSource().sendSuccess(() -> Component.literal(" > payloads: " + statistics.getPayloadCount() + ", compressed: " + statistics.getCompressedPayloadCount()), true);
+        context.getSource().sendSuccess(() -> Component.literal(" > bytes before compression: " + uncompressedBytes), true);
+        context.getSource().sendSuccess(() -> Component.literal(" > bytes after compression: " + payloadBytes), true);
+        if (uncompressedBytes > 0)
+            context.getSource().sendSuccess(() -> Component.literal(" > ratio: %.2f".formatted(payloadBytes / (double) uncompressedBytes)), true);
+
+        final ChiseledBlockSyncManager syncManager = ChiseledBlockSyncManager.getInstance();
+        final long requestedUpdates = syncManager.getRequestedUpdates();
+        final long sentUpdates = syncManager.getSentUpdates();
+        context.getSource().sendSuccess(() -> Component.literal("Chiseled block updates since startup:"), true);
+        context.getSource().sendSuccess(() -> Component.literal(" > requested: " + requestedUpdates + ", sent: " + sentUpdates + ", coalesced: " + (requestedUpdates - sentUpdates)), true);
+
+        final long sentDictionaryEntries = BlockInformationDictionary.getInstance().getSentEntries();
+        context.getSource().sendSuccess(() -> Component.literal(" > block information dictionary entries sent: " + sentDictionaryEntries), true);
+
+        return 0;
+    }
+
     private int runGiveCommand(final CommandContext<CommandSourceStack> context) throws CommandSyntaxException
     {
         final Player target = EntityArgument.getPlayer(context, "target");
@@ -15,6 +15,10 @@ public class CommonConfiguration implements ICommonConfiguration
     private final Supplier<Long> collisionBoxCacheSize;
     private final Supplier<Long> classMetadataCacheSize;
     private final Supplier<Integer> blockSaveThreadCount;
+    private final Supplier<Integer> blockSaveCoalescingInterval;
+    private final Supplier<Integer> blockSaveQueueCapacity;
+    private final Supplier<Boolean> lazyBlockDecoding;
+    private final Supplier<Integer> networkCompressionThreshold;
 
     public CommonConfiguration() {
         final IConfigurationBuilder builder = IConfigurationManager.getInstance().createBuilder(
@@ -26,6 +30,10 @@ public class CommonConfiguration implements ICommonConfiguration
         classMetadataCacheSize = builder.defineLong("performance.caches.sizes.class-metadata", 10000, 0, Long.MAX_VALUE);
         blockSaveThreadCount = builder.defineInteger("performance.saving.thread-count", Math.max(1, Runtime.getRuntime().availableProcessors()) / 2, 1, Runtime.getRuntime()
           .availableProcessors());
+        blockSaveCoalescingInterval = builder.defineInteger("performance.saving.coalescing-interval", 1000, 0, 60000);
+        blockSaveQueueCapacity = builder.defineInteger("performance.saving.queue-capacity", 4096, 16, 1048576);
+        lazyBlockDecoding = builder.defineBoolean("performance.loading.lazy-decoding", true);
+        networkCompressionThreshold = builder.defineInteger("performance.networking.compression-threshold", 256, 0, Integer.MAX_VALUE);
 
         builder.setup();
     }
@@ -52,4 +60,28 @@ public class CommonConfiguration implements ICommonConfiguration
     {
         return blockSaveThreadCount;
     }
+
+    @Override
+    public Supplier<Integer> getBlockSaveCoalescingInterval()
+    {
+        return blockSaveCoalescingInterval;
+    }
+
+    @Override
+    public Supplier<Integer> getBlockSaveQueueCapacity()
+    {
+        return blockSaveQueueCapacity;
+    }
+
+    @Override
+    public Supplier<Boolean> getLazyBlockDecoding()
+    {
+        return lazyBlockDecoding;
+    }
+
+    @Override
+    public Supplier<Integer> getNetworkCompressionThreshold()
+    {
+        return networkCompressionThreshold;
+    }
 }
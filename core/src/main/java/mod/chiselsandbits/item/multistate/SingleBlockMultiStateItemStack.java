@@ -24,6 +24,7 @@ import mod.chiselsandbits.api.util.VectorUtils;
 import mod.chiselsandbits.api.util.constants.NbtConstants;
 import mod.chiselsandbits.block.entities.storage.SimpleStateEntryStorage;
 import mod.chiselsandbits.blockinformation.BlockInformation;
+import mod.chiselsandbits.blockinformation.BlockInformationRegistry;
 import mod.chiselsandbits.item.ChiseledBlockItem;
 import mod.chiselsandbits.registrars.ModItems;
 import mod.chiselsandbits.storage.IStorageEngine;
@@ -462,13 +463,7 @@ public class SingleBlockMultiStateItemStack implements IMultiStateItemStack
     public void rotate(final Direction.Axis axis, final int rotationCount)
     {
         this.compressedSection.rotate(axis, rotationCount);
-        this.statistics.clear();
-
-        BlockPosStreamProvider.getForRange(StateEntrySize.current().getBitsPerBlockSide())
-          .forEach(position -> this.statistics.onBlockStateAdded(
-            this.compressedSection.getBlockInformation(position.getX(), position.getY(), position.getZ())
-          ));
-
+        //Rotating only moves bits around, the amount of each state and as such the statistics stay the same.
         this.sourceStack.getOrCreateTag().put(NbtConstants.CHISELED_DATA, serializeNBT());
     }
 
@@ -476,13 +471,6 @@ public class SingleBlockMultiStateItemStack implements IMultiStateItemStack
     public void mirror(final Direction.Axis axis)
     {
         this.compressedSection.mirror(axis);
-        this.statistics.clear();
-
-        BlockPosStreamProvider.getForRange(StateEntrySize.current().getBitsPerBlockSide())
-          .forEach(position -> this.statistics.onBlockStateAdded(
-            this.compressedSection.getBlockInformation(position.getX(), position.getY(), position.getZ())
-          ));
-
         this.sourceStack.getOrCreateTag().put(NbtConstants.CHISELED_DATA, serializeNBT());
     }
 
@@ -704,14 +692,14 @@ public class SingleBlockMultiStateItemStack implements IMultiStateItemStack
         {
             this.countMap.clear();
 
-            this.primaryState = new BlockInformation(nbt.getCompound(NbtConstants.PRIMARY_STATE));
+            this.primaryState = BlockInformationRegistry.getInstance().fromNBT(nbt.getCompound(NbtConstants.PRIMARY_STATE));
 
             final ListTag blockStateList = nbt.getList(NbtConstants.BLOCK_STATES, Tag.TAG_COMPOUND);
             for (int i = 0; i < blockStateList.size(); i++)
             {
                 final CompoundTag stateNbt = blockStateList.getCompound(i);
 
-                final BlockInformation blockInformation = new BlockInformation(stateNbt.getCompound(NbtConstants.BLOCK_INFORMATION));
+                final IBlockInformation blockInformation = BlockInformationRegistry.getInstance().fromNBT(stateNbt.getCompound(NbtConstants.BLOCK_INFORMATION));
 
                 this.countMap.put(
                   blockInformation,
@@ -1,5 +1,6 @@
 package mod.chiselsandbits.logic;
 
+import mod.chiselsandbits.block.entities.ChiseledBlockSyncManager;
 import mod.chiselsandbits.chiseling.ChiselingManager;
 
 public class ServerStartHandler
@@ -7,5 +8,6 @@ public class ServerStartHandler
 
     public static void onServerStart() {
         ChiselingManager.getInstance().onServerStarting();
+        ChiseledBlockSyncManager.getInstance().clear();
     }
 }
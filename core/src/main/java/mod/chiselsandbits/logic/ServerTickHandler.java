@@ -1,10 +1,12 @@
 package mod.chiselsandbits.logic;
 
+import mod.chiselsandbits.block.entities.ChiseledBlockSyncManager;
 import mod.chiselsandbits.change.ChangeTrackerSyncManager;
 
 public class ServerTickHandler {
 
     public static void onPostServerTick() {
         ChangeTrackerSyncManager.getInstance().sync();
+        ChiseledBlockSyncManager.getInstance().flush();
     }
 }
@@ -41,10 +41,15 @@ import net.minecraft.world.phys.Vec3;
 import net.minecraft.world.phys.shapes.Shapes;
 import net.minecraft.world.phys.shapes.VoxelShape;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.function.Consumer;
+import java.util.function.Predicate;
 import java.util.stream.Stream;
 
 public class ChiselAdaptingWorldMutator implements IWorldAreaMutator, IAreaAccessorWithVoxelShape
@@ -555,6 +560,74 @@ public class ChiselAdaptingWorldMutator implements IWorldAreaMutator, IAreaAcces
         this.clearInAreaTarget(inBlockTarget);
     }
 
+    @Override
+    public Map<IBlockInformation, Integer> replaceInArea(final Predicate<IBlockInformation> filter, final IBlockInformation blockInformation)
+    {
+        return replaceInArea(filter, blockInformation, null);
+    }
+
+    /**
+     * Replaces the block information of all entries selected by the mask which match the given filter, in a single operation.
+     * A block which is not chiseled yet is converted first, if any of its entries are replaced.
+     *
+     * @param filter           Selects the block information which is replaced.
+     * @param blockInformation The block information to replace it with.
+     * @param mask             The entries to consider, in the layout of the collision data, or null to consider all entries.
+     * @return The amount of replaced entries, per block information they contained before.
+     */
+    @SuppressWarnings("deprecation")
+    public Map<IBlockInformation, Integer> replaceInArea(final Predicate<IBlockInformation> filter, final IBlockInformation blockInformation, final @Nullable BitSet mask)
+    {
+        if (getWorld().isOutsideBuildHeight(getPos())) {
+            return Collections.emptyMap();
+        }
+
+        final BlockEntity blockEntity = getWorld().getBlockEntity(getPos());
+        if (blockEntity instanceof IMultiStateBlockEntity multiStateBlockEntity)
+        {
+            return multiStateBlockEntity.replaceInArea(filter, blockInformation, mask);
+        }
+
+        final BlockState blockState = getWorld().getBlockState(getPos());
+        final Optional<IStateVariant> stateVariant = IStateVariantManager.getInstance()
+                                                       .getStateVariant(blockState, Optional.ofNullable(blockEntity));
+
+        final BlockInformation currentInformation = new BlockInformation(blockState, stateVariant);
+        if (currentInformation.equals(blockInformation) || !filter.test(currentInformation) || (mask != null && mask.isEmpty()))
+        {
+            return Collections.emptyMap();
+        }
+
+        if (!IEligibilityManager.getInstance().canBeChiseled(currentInformation) && !currentInformation.isAir())
+        {
+            return Collections.emptyMap();
+        }
+
+        final Optional<Block> optionalWithConvertedBlock = IConversionManager.getInstance().getChiseledVariantOf(
+          currentInformation.isAir() ? blockInformation.getBlockState() : currentInformation.getBlockState()
+        );
+        if (optionalWithConvertedBlock.isPresent())
+        {
+            final Block convertedBlock = optionalWithConvertedBlock.get();
+            getWorld().setBlock(
+              getPos(),
+              convertedBlock.defaultBlockState(),
+              Block.UPDATE_ALL
+            );
+
+            final BlockEntity convertedTileEntity = getWorld().getBlockEntity(getPos());
+            if (convertedTileEntity instanceof IMultiStateBlockEntity multiStateBlockEntity)
+            {
+                multiStateBlockEntity.initializeWith(currentInformation);
+                return multiStateBlockEntity.replaceInArea(filter, blockInformation, mask);
+            }
+
+            throw new IllegalStateException("Conversion of the existing block of type: " + currentInformation + " into a chiseled variant failed.");
+        }
+
+        return Collections.emptyMap();
+    }
+
     /**
      * Returns all entries in the current area in a mutable fashion. Includes all empty areas as areas containing an air state.
      *
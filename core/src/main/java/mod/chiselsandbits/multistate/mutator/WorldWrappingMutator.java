@@ -1,10 +1,12 @@
 package mod.chiselsandbits.multistate.mutator;
 
+import com.google.common.collect.Maps;
 import mod.chiselsandbits.api.axissize.CollisionType;
 import mod.chiselsandbits.api.blockinformation.IBlockInformation;
 import mod.chiselsandbits.api.change.IChangeTracker;
 import mod.chiselsandbits.api.exceptions.SpaceOccupiedException;
 import mod.chiselsandbits.api.multistate.StateEntrySize;
+import mod.chiselsandbits.api.multistate.accessor.IAreaAccessor;
 import mod.chiselsandbits.api.multistate.accessor.IAreaAccessorWithVoxelShape;
 import mod.chiselsandbits.api.multistate.accessor.IStateEntryInfo;
 import mod.chiselsandbits.api.multistate.accessor.identifier.IAreaShapeIdentifier;
@@ -19,6 +21,7 @@ import mod.chiselsandbits.api.util.BlockPosStreamProvider;
 import mod.chiselsandbits.api.util.VectorUtils;
 import mod.chiselsandbits.api.voxelshape.IVoxelShapeManager;
 import mod.chiselsandbits.multistate.snapshot.MultiBlockMultiStateSnapshot;
+import mod.chiselsandbits.utils.BlockPosUtils;
 import net.minecraft.core.BlockPos;
 import net.minecraft.core.Vec3i;
 import net.minecraft.world.level.LevelAccessor;
@@ -28,13 +31,16 @@ import net.minecraft.world.phys.shapes.BooleanOp;
 import net.minecraft.world.phys.shapes.Shapes;
 import net.minecraft.world.phys.shapes.VoxelShape;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
+import java.util.BitSet;
 import java.util.Collection;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.function.Consumer;
 import java.util.function.Function;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -377,6 +383,98 @@ public class WorldWrappingMutator implements IWorldAreaMutator, IAreaAccessorWit
         innerMutator.clearInBlockTarget(BlockPos.ZERO, inBlockTarget);
     }
 
+    @Override
+    public Map<IBlockInformation, Integer> replaceInArea(final Predicate<IBlockInformation> filter, final IBlockInformation blockInformation)
+    {
+        final Map<IBlockInformation, Integer> replaced = Maps.newHashMap();
+        BlockPosStreamProvider.getForRange(
+          getInWorldStartPoint(), getInWorldEndPoint()
+        ).forEach(blockPos -> new ChiselAdaptingWorldMutator(getWorld(), blockPos)
+                                .replaceInArea(filter, blockInformation, createInAreaMask(blockPos))
+                                .forEach((currentInformation, count) -> replaced.merge(currentInformation, count, Integer::sum)));
+        return replaced;
+    }
+
+    @Override
+    public void imposeInArea(final IAreaAccessor source)
+    {
+        //Collect the positions of each block information per block, so that every block is written once per block information.
+        final Map<BlockPos, Map<IBlockInformation, BitSet>> masks = Maps.newLinkedHashMap();
+        source.stream()
+          .filter(entry -> !entry.getBlockInformation().isAir())
+          .forEach(entry -> {
+              final Vec3 target = getInWorldStartPoint().add(entry.getStartPoint());
+              if (!isInside(target))
+                  return;
+
+              final BlockPos blockPos = VectorUtils.toBlockPos(target);
+              final BlockPos inBlockPos = VectorUtils.toBlockPos(
+                target.subtract(Vec3.atLowerCornerOf(blockPos))
+                  .multiply(StateEntrySize.current().getBitsPerBlockSide(), StateEntrySize.current().getBitsPerBlockSide(), StateEntrySize.current().getBitsPerBlockSide())
+              );
+
+              masks.computeIfAbsent(blockPos, pos -> Maps.newHashMap())
+                .computeIfAbsent(entry.getBlockInformation(), blockInformation -> new BitSet(StateEntrySize.current().getBitsPerBlock()))
+                .set(BlockPosUtils.getCollisionIndex(inBlockPos));
+          });
+
+        masks.forEach((blockPos, blockMasks) -> {
+            final ChiselAdaptingWorldMutator innerMutator = new ChiselAdaptingWorldMutator(getWorld(), blockPos);
+            blockMasks.forEach((blockInformation, mask) -> innerMutator.replaceInArea(currentInformation -> true, blockInformation, mask));
+        });
+    }
+
+    /**
+     * Creates the mask of the entries of the given block which are part of the current area, in the layout of the collision data.
+     * An entry is part of the area when it intersects it, just like the entries returned by {@link #inWorldMutableStream()}.
+     *
+     * @param blockPos The position of the block.
+     * @return The mask, or null when the block is completely part of the area.
+     */
+    private @Nullable BitSet createInAreaMask(final BlockPos blockPos)
+    {
+        final AABB area = getInWorldBoundingBox();
+        final int bitsPerSide = StateEntrySize.current().getBitsPerBlockSide();
+        final double sizePerBit = StateEntrySize.current().getSizePerBit();
+
+        final int[] min = new int[] {bitsPerSide, bitsPerSide, bitsPerSide};
+        final int[] max = new int[3];
+        for (int i = 0; i < bitsPerSide; i++)
+        {
+            final double bitStart = i * sizePerBit;
+            final double bitEnd = (i + 1) * sizePerBit;
+            if (blockPos.getX() + bitStart < area.maxX && blockPos.getX() + bitEnd > area.minX)
+            {
+                min[0] = Math.min(min[0], i);
+                max[0] = i + 1;
+            }
+            if (blockPos.getY() + bitStart < area.maxY && blockPos.getY() + bitEnd > area.minY)
+            {
+                min[1] = Math.min(min[1], i);
+                max[1] = i + 1;
+            }
+            if (blockPos.getZ() + bitStart < area.maxZ && blockPos.getZ() + bitEnd > area.minZ)
+            {
+                min[2] = Math.min(min[2], i);
+                max[2] = i + 1;
+            }
+        }
+
+        if (min[0] == 0 && min[1] == 0 && min[2] == 0 && max[0] == bitsPerSide && max[1] == bitsPerSide && max[2] == bitsPerSide)
+            return null;
+
+        final BitSet mask = new BitSet(StateEntrySize.current().getBitsPerBlock());
+        for (int x = min[0]; x < max[0]; x++)
+        {
+            for (int y = min[1]; y < max[1]; y++)
+            {
+                final int rowStart = BlockPosUtils.getCollisionIndex(x, y, 0);
+                mask.set(rowStart + min[2], rowStart + Math.max(min[2], max[2]));
+            }
+        }
+        return mask;
+    }
+
     /**
      * Returns all entries in the current area in a mutable fashion. Includes all empty areas as areas containing an air state.
      *
@@ -0,0 +1,211 @@
+package mod.chiselsandbits.network;
+
+import it.unimi.dsi.fastutil.ints.Int2ObjectMap;
+import it.unimi.dsi.fastutil.ints.Int2ObjectMaps;
+import it.unimi.dsi.fastutil.ints.Int2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.ints.IntIterator;
+import it.unimi.dsi.fastutil.ints.IntOpenHashSet;
+import it.unimi.dsi.fastutil.ints.IntSet;
+import mod.chiselsandbits.ChiselsAndBits;
+import mod.chiselsandbits.api.blockinformation.IBlockInformation;
+import mod.chiselsandbits.blockinformation.BlockInformationRegistry;
+import mod.chiselsandbits.network.packets.BlockInformationDictionaryPacket;
+import net.minecraft.nbt.CompoundTag;
+import net.minecraft.network.FriendlyByteBuf;
+import net.minecraft.server.level.ServerPlayer;
+import net.minecraft.server.network.ServerGamePacketListenerImpl;
+
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lets chiseled block packets refer to block information by a compact id, instead of writing it out in full every time.
+ * <p>
+ * The ids are the ids of the {@link BlockInformationRegistry} of the server, which are stable for the lifetime of the server
+ * process. This allows a packet to be written once and be sent to any number of players. The server remembers per connection
+ * which ids the client already knows, and sends the missing block information in a {@link BlockInformationDictionaryPacket}
+ * in front of the packet which refers to it. The first dictionary packet of a connection resets the dictionary of the client.
+ */
+public final class BlockInformationDictionary
+{
+    private static final BlockInformationDictionary INSTANCE = new BlockInformationDictionary();
+
+    public static BlockInformationDictionary getInstance()
+    {
+        return INSTANCE;
+    }
+
+    private final Map<ServerGamePacketListenerImpl, IntSet> sentIds         = new WeakHashMap<>();
+    private final Int2ObjectMap<IBlockInformation>          receivedEntries = Int2ObjectMaps.synchronize(new Int2ObjectOpenHashMap<>());
+    private final LongAdder                                 sentEntries     = new LongAdder();
+
+    private BlockInformationDictionary()
+    {
+    }
+
+    /**
+     * Creates a writer which writes block information as dictionary ids and remembers which ids it wrote.
+     *
+     * @return The writer.
+     */
+    public Writer createWriter()
+    {
+        return new Writer();
+    }
+
+    /**
+     * Sends the block information with the given ids to the given player, unless the client of the player already knows them.
+     * Needs to be invoked on the server thread, right before the packet which refers to the ids is sent.
+     *
+     * @param referencedIds The ids the next packet refers to.
+     * @param player The player.
+     */
+    public void sendMissingEntries(final IntSet referencedIds, final ServerPlayer player)
+    {
+        if (player.connection == null)
+            return;
+
+        final IntSet knownIds = sentIds.get(player.connection);
+        final Int2ObjectMap<IBlockInformation> missingEntries = new Int2ObjectOpenHashMap<>();
+        final IntIterator iterator = referencedIds.iterator();
+        while (iterator.hasNext())
+        {
+            final int id = iterator.nextInt();
+            if (knownIds == null || !knownIds.contains(id))
+                missingEntries.put(id, BlockInformationRegistry.getInstance().getBlockInformation(id));
+        }
+
+        if (missingEntries.isEmpty())
+            return;
+
+        //The connection is only known once something was sent over it, so that its first packet always carries the reset.
+        final boolean isNewConnection = knownIds == null;
+        sentIds.computeIfAbsent(player.connection, connection -> new IntOpenHashSet()).addAll(missingEntries.keySet());
+        sentEntries.add(missingEntries.size());
+        ChiselsAndBits.getInstance().getNetworkChannel().sendToPlayer(
+          new BlockInformationDictionaryPacket(isNewConnection, missingEntries),
+          player
+        );
+    }
+
+    /**
+     * Adds the block information the server sent to the dictionary of the client.
+     * Needs to be invoked on the client thread, in the order the dictionary packets were received.
+     *
+     * @param reset True when the entries are the first of a new connection, which drops the entries of the previous connection.
+     * @param entries The block information, by id.
+     */
+    public void receive(final boolean reset, final Int2ObjectMap<IBlockInformation> entries)
+    {
+        synchronized (receivedEntries)
+        {
+            if (reset)
+                receivedEntries.clear();
+
+            receivedEntries.putAll(entries);
+        }
+    }
+
+    /**
+     * Drops all block information the client received, so nothing of the last server is kept once the client disconnected.
+     * The next connection starts with a reset anyway, this only frees the entries in between.
+     */
+    public void clearReceivedEntries()
+    {
+        synchronized (receivedEntries)
+        {
+            if (!receivedEntries.isEmpty())
+                receivedEntries.clear();
+        }
+    }
+
+    /**
+     * Reads a block information which was written by a {@link Writer}, on the client.
+     * Can be invoked from any thread.
+     *
+     * @param buffer The buffer to read from.
+     * @return The block information.
+     * @throws IllegalArgumentException when the server did not send the block information with the read id.
+     */
+    public IBlockInformation read(final FriendlyByteBuf buffer)
+    {
+        final int id = buffer.readVarInt();
+        final IBlockInformation blockInformation = receivedEntries.get(id);
+        if (blockInformation == null)
+            throw new IllegalArgumentException("The server did not send the block information with the id: " + id);
+
+        return blockInformation;
+    }
+
+    /**
+     * Reads a block information which was written by a {@link Writer}, on the client, in its serialized form.
+     * Can be invoked from any thread.
+     *
+     * @param buffer The buffer to read from.
+     * @return The shared serialized form of the block information.
+     * @throws IllegalArgumentException when the server did not send the block information with the read id.
+     */
+    public CompoundTag readSpec(final FriendlyByteBuf buffer)
+    {
+        return BlockInformationRegistry.getInstance().getSpec(read(buffer));
+    }
+
+    /**
+     * Returns how many block information entries were sent to clients since the game started.
+     *
+     * @return The number of sent entries.
+     */
+    public long getSentEntries()
+    {
+        return sentEntries.sum();
+    }
+
+    /**
+     * Writes block information as dictionary ids, and collects the ids it wrote.
+     * A packet keeps the collected ids, so that the missing entries can be sent in front of it to every player it is sent to.
+     */
+    public static final class Writer
+    {
+        private final IntSet referencedIds = new IntOpenHashSet();
+
+        private Writer()
+        {
+        }
+
+        /**
+         * Writes the id of the given block information.
+         *
+         * @param buffer The buffer to write into.
+         * @param blockInformation The block information.
+         */
+        public void write(final FriendlyByteBuf buffer, final IBlockInformation blockInformation)
+        {
+            final int id = BlockInformationRegistry.getInstance().getId(blockInformation);
+            referencedIds.add(id);
+            buffer.writeVarInt(id);
+        }
+
+        /**
+         * Writes the id of the given serialized block information.
+         * Block information which can not be resolved in the current session is sent as what it resolves to.
+         *
+         * @param buffer The buffer to write into.
+         * @param spec The serialized block information.
+         */
+        public void writeSpec(final FriendlyByteBuf buffer, final CompoundTag spec)
+        {
+            write(buffer, BlockInformationRegistry.getInstance().fromNBT(spec));
+        }
+
+        /**
+         * Gives access to the ids which were written so far.
+         *
+         * @return The written ids.
+         */
+        public IntSet getReferencedIds()
+        {
+            return referencedIds;
+        }
+    }
+}
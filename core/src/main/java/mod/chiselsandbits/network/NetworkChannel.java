@@ -4,6 +4,7 @@ import com.communi.suggestu.scena.core.network.INetworkChannel;
 import mod.chiselsandbits.network.packets.*;
 import net.minecraft.network.FriendlyByteBuf;
 import net.minecraft.resources.ResourceLocation;
+import net.minecraft.server.level.ServerLevel;
 import net.minecraft.server.level.ServerPlayer;
 import net.minecraft.world.level.chunk.LevelChunk;
 
@@ -14,7 +15,7 @@ import java.util.function.Function;
  */
 public class NetworkChannel
 {
-    private static final String        LATEST_PROTO_VER    = "1.0";
+    private static final String        LATEST_PROTO_VER    = "1.4";
     private static final String          ACCEPTED_PROTO_VERS = LATEST_PROTO_VER;
     /**
      * Forge network channel
@@ -65,6 +66,10 @@ public class NetworkChannel
         registerMessage(index++, ExportPatternCommandMessagePacket.class, ExportPatternCommandMessagePacket::new);
         registerMessage(index++, ImportPatternCommandMessagePacket.class, ImportPatternCommandMessagePacket::new);
         registerMessage(index++, GivePlayerPatternCommandPacket.class, GivePlayerPatternCommandPacket::new);
+        registerMessage(index++, ChiseledBlockDeltaPacket.class, ChiseledBlockDeltaPacket::new);
+        registerMessage(index++, RequestChiseledBlockSyncPacket.class, RequestChiseledBlockSyncPacket::new);
+        registerMessage(index++, ChiseledChunkDataPacket.class, ChiseledChunkDataPacket::new);
+        registerMessage(index++, BlockInformationDictionaryPacket.class, BlockInformationDictionaryPacket::new);
     }
 
     /**
@@ -104,6 +109,9 @@ public class NetworkChannel
      */
     public void sendToPlayer(final ModPacket msg, final ServerPlayer player)
     {
+        if (msg instanceof IBlockInformationReferencingPacket referencingPacket)
+            BlockInformationDictionary.getInstance().sendMissingEntries(referencingPacket.getReferencedBlockInformation(), player);
+
         rawChannel.sendToPlayer(msg, player);
     }
 
@@ -125,6 +133,13 @@ public class NetworkChannel
      */
     public void sendToTrackingChunk(final ModPacket msg, final LevelChunk chunk)
     {
+        //What each player is missing from the dictionary differs, so these packets are sent one player at a time.
+        if (msg instanceof IBlockInformationReferencingPacket && chunk.getLevel() instanceof ServerLevel serverLevel)
+        {
+            serverLevel.getChunkSource().chunkMap.getPlayers(chunk.getPos(), false).forEach(player -> sendToPlayer(msg, player));
+            return;
+        }
+
         rawChannel.sendToTrackingChunk(msg, chunk);
     }
 }
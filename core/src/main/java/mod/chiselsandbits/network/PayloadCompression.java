@@ -0,0 +1,152 @@
+package mod.chiselsandbits.network;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import mod.chiselsandbits.api.config.ICommonConfiguration;
+import net.jpountz.lz4.LZ4Compressor;
+import net.jpountz.lz4.LZ4Factory;
+import net.jpountz.lz4.LZ4FastDecompressor;
+import net.minecraft.network.FriendlyByteBuf;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+/**
+ * Turns the data of chiseled block packets into exactly sized, optionally compressed payloads.
+ * <p>
+ * A payload starts with a flag which indicates if the data is compressed. Compressed data is preceded by its uncompressed
+ * length and stored as a single LZ4 block. Data is only compressed if it is at least as large as the configured threshold,
+ * and only kept compressed if that makes it smaller. The palette indices of the blocks are already written as runs, the
+ * compression mostly removes the repeated block information of the palette and the statistics.
+ */
+public final class PayloadCompression
+{
+    private static final LZ4Compressor       COMPRESSOR   = LZ4Factory.fastestInstance().fastCompressor();
+    private static final LZ4FastDecompressor DECOMPRESSOR = LZ4Factory.fastestInstance().fastDecompressor();
+
+    /**
+     * Payloads which claim to decompress to more than this are rejected, a chiseled block never comes close to it.
+     */
+    private static final int MAX_UNCOMPRESSED_LENGTH = 16 * 1024 * 1024;
+
+    private PayloadCompression()
+    {
+        throw new IllegalStateException("Can not instantiate an instance of: PayloadCompression. This is a utility class");
+    }
+
+    /**
+     * Creates a payload from the data written by the given writer.
+     *
+     * @param writer The writer of the data.
+     * @return The payload, without any unused capacity.
+     */
+    public static byte[] encode(final Consumer<FriendlyByteBuf> writer)
+    {
+        final FriendlyByteBuf data = new FriendlyByteBuf(Unpooled.buffer());
+        try
+        {
+            writer.accept(data);
+            return encode(data);
+        }
+        finally
+        {
+            data.release();
+        }
+    }
+
+    /**
+     * Creates a payload from the readable bytes of the given buffer, without consuming them.
+     *
+     * @param data The buffer with the data.
+     * @return The payload, without any unused capacity.
+     */
+    public static byte[] encode(final ByteBuf data)
+    {
+        final int length = data.readableBytes();
+        if (length >= ICommonConfiguration.getInstance().getNetworkCompressionThreshold().get())
+        {
+            //The data is compressed straight out of the buffer, behind the flag and the uncompressed length.
+            final int headerLength = 1 + getVarIntSize(length);
+            final int maxCompressedLength = COMPRESSOR.maxCompressedLength(length);
+            final byte[] compressed = new byte[headerLength + maxCompressedLength];
+            final ByteBuffer source = data.nioBuffer(data.readerIndex(), length);
+            final int compressedLength = COMPRESSOR.compress(source, source.position(), length, ByteBuffer.wrap(compressed), headerLength, maxCompressedLength);
+            if (compressedLength < length)
+            {
+                compressed[0] = 1;
+                writeVarInt(compressed, 1, length);
+
+                final byte[] result = compressed.length == headerLength + compressedLength ? compressed : Arrays.copyOf(compressed, headerLength + compressedLength);
+                PayloadStatistics.getInstance().record(length, result.length, true);
+                return result;
+            }
+        }
+
+        //The leading zero byte is the flag of uncompressed data.
+        final byte[] result = new byte[length + 1];
+        data.getBytes(data.readerIndex(), result, 1, length);
+        PayloadStatistics.getInstance().record(length, result.length, false);
+        return result;
+    }
+
+    private static int getVarIntSize(final int value)
+    {
+        for (int size = 1; size < 5; size++)
+        {
+            if ((value & (-1 << (size * 7))) == 0)
+                return size;
+        }
+        return 5;
+    }
+
+    /**
+     * Writes the given value the same way {@link FriendlyByteBuf#writeVarInt(int)} does.
+     */
+    private static void writeVarInt(final byte[] target, final int offset, final int value)
+    {
+        int remaining = value;
+        int index = offset;
+        while ((remaining & -128) != 0)
+        {
+            target[index++] = (byte) (remaining & 127 | 128);
+            remaining >>>= 7;
+        }
+        target[index] = (byte) remaining;
+    }
+
+    /**
+     * Reads the data of a payload which was created by {@link #encode(Consumer)}.
+     *
+     * @param payload The payload.
+     * @return A buffer with the uncompressed data, which needs to be released by the caller.
+     * @throws IllegalArgumentException when the payload is malformed.
+     */
+    public static FriendlyByteBuf decode(final byte[] payload)
+    {
+        if (payload.length == 0)
+            throw new IllegalArgumentException("The payload is empty");
+
+        final FriendlyByteBuf buffer = new FriendlyByteBuf(Unpooled.wrappedBuffer(payload));
+        if (!buffer.readBoolean())
+            return buffer;
+
+        try
+        {
+            final int length = buffer.readVarInt();
+            if (length < 0 || length > MAX_UNCOMPRESSED_LENGTH)
+                throw new IllegalArgumentException("The payload claims an uncompressed length of %d bytes".formatted(length));
+
+            final byte[] uncompressed = new byte[length];
+            final int read = DECOMPRESSOR.decompress(payload, buffer.readerIndex(), uncompressed, 0, length);
+            if (buffer.readerIndex() + read != payload.length)
+                throw new IllegalArgumentException("The payload has %d trailing bytes".formatted(payload.length - buffer.readerIndex() - read));
+
+            return new FriendlyByteBuf(Unpooled.wrappedBuffer(uncompressed));
+        }
+        finally
+        {
+            buffer.release();
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package mod.chiselsandbits.network;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts the payloads created by {@link PayloadCompression}, and their sizes before and after compression.
+ * The counters are process wide and are reported by the {@code /candb network} command.
+ */
+public final class PayloadStatistics
+{
+    private static final PayloadStatistics INSTANCE = new PayloadStatistics();
+
+    public static PayloadStatistics getInstance()
+    {
+        return INSTANCE;
+    }
+
+    private final LongAdder payloadCount           = new LongAdder();
+    private final LongAdder compressedPayloadCount = new LongAdder();
+    private final LongAdder uncompressedBytes      = new LongAdder();
+    private final LongAdder payloadBytes           = new LongAdder();
+
+    private PayloadStatistics()
+    {
+    }
+
+    /**
+     * Records a created payload.
+     *
+     * @param uncompressedLength The length of the data before compression.
+     * @param payloadLength The length of the payload, including its header.
+     * @param compressed True when the payload is compressed.
+     */
+    public void record(final int uncompressedLength, final int payloadLength, final boolean compressed)
+    {
+        payloadCount.increment();
+        if (compressed)
+            compressedPayloadCount.increment();
+        uncompressedBytes.add(uncompressedLength);
+        payloadBytes.add(payloadLength);
+    }
+
+    /**
+     * Returns how many payloads were created since the game started.
+     *
+     * @return The number of payloads.
+     */
+    public long getPayloadCount()
+    {
+        return payloadCount.sum();
+    }
+
+    /**
+     * Returns how many payloads were compressed since the game started.
+     *
+     * @return The number of compressed payloads.
+     */
+    public long getCompressedPayloadCount()
+    {
+        return compressedPayloadCount.sum();
+    }
+
+    /**
+     * Returns the combined size of all payloads before compression.
+     *
+     * @return The size in bytes.
+     */
+    public long getUncompressedBytes()
+    {
+        return uncompressedBytes.sum();
+    }
+
+    /**
+     * Returns the combined size of all payloads as they are sent.
+     *
+     * @return The size in bytes.
+     */
+    public long getPayloadBytes()
+    {
+        return payloadBytes.sum();
+    }
+}
@@ -1,22 +1,29 @@
 package mod.chiselsandbits.network.handlers;
 
+import com.google.common.collect.Lists;
 import com.mojang.datafixers.util.Either;
 import mod.chiselsandbits.ChiselsAndBits;
 import mod.chiselsandbits.api.block.entity.IMultiStateBlockEntity;
-import mod.chiselsandbits.api.block.entity.INetworkUpdatableEntity;
 import mod.chiselsandbits.api.change.IChangeTrackerManager;
 import mod.chiselsandbits.api.client.screen.AbstractChiselsAndBitsScreen;
 import mod.chiselsandbits.api.client.sharing.IPatternSharingManager;
 import mod.chiselsandbits.api.client.sharing.PatternIOException;
 import mod.chiselsandbits.api.item.multistate.IMultiStateItemStack;
 import mod.chiselsandbits.api.profiling.IProfilerSection;
+import mod.chiselsandbits.block.entities.ChiseledBlockEntity;
+import mod.chiselsandbits.blockinformation.BlockInformationTable;
 import mod.chiselsandbits.client.screens.widgets.ChangeTrackerOperationsWidget;
 import mod.chiselsandbits.clipboard.CreativeClipboardUtils;
 import mod.chiselsandbits.item.multistate.SingleBlockMultiStateItemStack;
+import mod.chiselsandbits.network.BlockInformationDictionary;
+import mod.chiselsandbits.network.PayloadCompression;
 import mod.chiselsandbits.network.packets.GivePlayerPatternCommandPacket;
+import mod.chiselsandbits.network.packets.RequestChiseledBlockSyncPacket;
 import mod.chiselsandbits.profiling.ProfilingManager;
 import mod.chiselsandbits.registrars.ModBlocks;
+import net.minecraft.Util;
 import net.minecraft.client.Minecraft;
+import net.minecraft.client.multiplayer.ClientLevel;
 import net.minecraft.core.BlockPos;
 import net.minecraft.nbt.CompoundTag;
 import net.minecraft.network.FriendlyByteBuf;
@@ -24,9 +31,15 @@ import net.minecraft.network.chat.Component;
 import net.minecraft.world.item.ItemStack;
 import net.minecraft.world.level.block.Block;
 import net.minecraft.world.level.block.entity.BlockEntity;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 public final class ClientPacketHandlers
 {
+    private static final Logger LOGGER = LogManager.getLogger();
 
     private ClientPacketHandlers()
     {
@@ -42,13 +55,84 @@ public final class ClientPacketHandlers
                     tileEntity = Minecraft.getInstance().level.getBlockEntity(blockPos);
                 }
 
-                if (tileEntity instanceof INetworkUpdatableEntity networkUpdatableEntity) {
-                    networkUpdatableEntity.deserializeFrom(updateData);
+                if (tileEntity instanceof ChiseledBlockEntity chiseledBlockEntity) {
+                    final BlockInformationTable table = BlockInformationTable.readFrom(updateData, BlockInformationDictionary.getInstance()::readSpec);
+                    chiseledBlockEntity.prepareBatchedSync(updateData, table, chiseledBlockEntity.getSyncVersion()).run();
+                }
+            }
+        }
+    }
+
+    public static void handleChiseledBlockDelta(final BlockPos blockPos, final long baseVersion, final long version, final FriendlyByteBuf deltaData) {
+        try(IProfilerSection ignored = ProfilingManager.getInstance().withSection("Handling tile entity delta packet")) {
+            if (Minecraft.getInstance().level != null) {
+                final BlockEntity tileEntity = Minecraft.getInstance().level.getBlockEntity(blockPos);
+                if (!(tileEntity instanceof ChiseledBlockEntity chiseledBlockEntity) || !chiseledBlockEntity.applySyncDelta(baseVersion, version, deltaData)) {
+                    ChiselsAndBits.getInstance().getNetworkChannel().sendToServer(new RequestChiseledBlockSyncPacket(blockPos));
                 }
             }
         }
     }
 
+    public static void handleChiseledChunkData(final List<BlockPos> positions, final byte[] payload) {
+        final ClientLevel level = Minecraft.getInstance().level;
+        if (level == null)
+            return;
+
+        //Block entities are only created and looked up on the game thread, the payload itself is decoded in the background.
+        final ChiseledBlockEntity[] targets = new ChiseledBlockEntity[positions.size()];
+        final long[] expectedVersions = new long[positions.size()];
+        for (int i = 0; i < positions.size(); i++) {
+            final BlockPos blockPos = positions.get(i);
+            BlockEntity tileEntity = level.getBlockEntity(blockPos);
+            if (tileEntity == null) {
+                level.setBlock(blockPos, ModBlocks.CHISELED_BLOCK.get().defaultBlockState(), Block.UPDATE_ALL_IMMEDIATE);
+                tileEntity = level.getBlockEntity(blockPos);
+            }
+
+            if (tileEntity instanceof ChiseledBlockEntity chiseledBlockEntity) {
+                targets[i] = chiseledBlockEntity;
+                expectedVersions[i] = chiseledBlockEntity.getSyncVersion();
+            }
+        }
+
+        CompletableFuture.supplyAsync(() -> decodeChiseledChunkData(targets, expectedVersions, payload), Util.backgroundExecutor())
+          .thenAcceptAsync(updates -> {
+              try(IProfilerSection ignored = ProfilingManager.getInstance().withSection("Applying chunk tile entity data")) {
+                  if (Minecraft.getInstance().level == level) {
+                      updates.forEach(Runnable::run);
+                  }
+              }
+          }, Minecraft.getInstance())
+          .exceptionally(throwable -> {
+              LOGGER.error("Failed to read the chiseled blocks of a chunk.", throwable);
+              return null;
+          });
+    }
+
+    private static List<Runnable> decodeChiseledChunkData(final ChiseledBlockEntity[] targets, final long[] expectedVersions, final byte[] payload) {
+        final List<Runnable> updates = Lists.newArrayListWithCapacity(targets.length);
+        final FriendlyByteBuf buffer = PayloadCompression.decode(payload);
+        try {
+            final BlockInformationTable table = BlockInformationTable.readFrom(buffer, BlockInformationDictionary.getInstance()::readSpec);
+            for (int i = 0; i < targets.length; i++) {
+                final FriendlyByteBuf entry = new FriendlyByteBuf(buffer.readSlice(buffer.readVarInt()));
+                if (targets[i] == null)
+                    continue;
+
+                try {
+                    updates.add(targets[i].prepareBatchedSync(entry, table, expectedVersions[i]));
+                } catch (RuntimeException e) {
+                    LOGGER.error("Failed to read the chiseled block at %s.".formatted(targets[i].getBlockPos()), e);
+                }
+            }
+        } finally {
+            buffer.release();
+        }
+
+        return updates;
+    }
+
     public static void handleChangeTrackerUpdated(final CompoundTag tag) {
         IChangeTrackerManager.getInstance().getChangeTracker(Minecraft.getInstance().player).deserializeNBT(tag);
         if(Minecraft.getInstance().screen instanceof AbstractChiselsAndBitsScreen)
@@ -0,0 +1,59 @@
+package mod.chiselsandbits.network.packets;
+
+import it.unimi.dsi.fastutil.ints.Int2ObjectMap;
+import it.unimi.dsi.fastutil.ints.Int2ObjectOpenHashMap;
+import mod.chiselsandbits.api.blockinformation.IBlockInformation;
+import mod.chiselsandbits.blockinformation.BlockInformationRegistry;
+import mod.chiselsandbits.network.BlockInformationDictionary;
+import net.minecraft.network.FriendlyByteBuf;
+
+/**
+ * Adds block information to the {@link BlockInformationDictionary} of the client, so that later packets can refer to it by id.
+ */
+public final class BlockInformationDictionaryPacket extends ModPacket
+{
+    private boolean                          reset;
+    private Int2ObjectMap<IBlockInformation> entries;
+
+    public BlockInformationDictionaryPacket(final boolean reset, final Int2ObjectMap<IBlockInformation> entries)
+    {
+        this.reset = reset;
+        this.entries = entries;
+    }
+
+    public BlockInformationDictionaryPacket(final FriendlyByteBuf buffer)
+    {
+        readPayload(buffer);
+    }
+
+    @Override
+    public void writePayload(final FriendlyByteBuf buffer)
+    {
+        buffer.writeBoolean(reset);
+        buffer.writeVarInt(entries.size());
+        for (final Int2ObjectMap.Entry<IBlockInformation> entry : entries.int2ObjectEntrySet())
+        {
+            buffer.writeVarInt(entry.getIntKey());
+            entry.getValue().serializeInto(buffer);
+        }
+    }
+
+    @Override
+    public void readPayload(final FriendlyByteBuf buffer)
+    {
+        this.reset = buffer.readBoolean();
+        final int count = buffer.readVarInt();
+        this.entries = new Int2ObjectOpenHashMap<>(count);
+        for (int i = 0; i < count; i++)
+        {
+            final int id = buffer.readVarInt();
+            this.entries.put(id, BlockInformationRegistry.getInstance().fromBuffer(buffer));
+        }
+    }
+
+    @Override
+    public void client()
+    {
+        BlockInformationDictionary.getInstance().receive(reset, entries);
+    }
+}
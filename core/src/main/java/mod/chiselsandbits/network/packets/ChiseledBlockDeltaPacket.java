@@ -0,0 +1,70 @@
+package mod.chiselsandbits.network.packets;
+
+import com.communi.suggestu.scena.core.dist.DistExecutor;
+import it.unimi.dsi.fastutil.ints.IntSet;
+import mod.chiselsandbits.network.PayloadCompression;
+import mod.chiselsandbits.network.handlers.ClientPacketHandlers;
+import net.minecraft.core.BlockPos;
+import net.minecraft.network.FriendlyByteBuf;
+
+import static com.communi.suggestu.scena.core.dist.Dist.CLIENT;
+
+/**
+ * Brings the client side copy of a chiseled block from one sync version to the next, by only carrying the changed entries.
+ * Clients which do not hold the base version ask for a full update instead, using a {@link RequestChiseledBlockSyncPacket}.
+ */
+public final class ChiseledBlockDeltaPacket extends ModPacket implements IBlockInformationReferencingPacket
+{
+
+    private BlockPos blockPos;
+    private long baseVersion;
+    private long version;
+    private byte[] data;
+    private IntSet referencedBlockInformation;
+
+    public ChiseledBlockDeltaPacket(final BlockPos blockPos, final long baseVersion, final long version, final byte[] data, final IntSet referencedBlockInformation)
+    {
+        this.blockPos = blockPos;
+        this.baseVersion = baseVersion;
+        this.version = version;
+        this.data = data;
+        this.referencedBlockInformation = referencedBlockInformation;
+    }
+
+    public ChiseledBlockDeltaPacket(final FriendlyByteBuf buffer)
+    {
+        readPayload(buffer);
+    }
+
+    @Override
+    public void writePayload(final FriendlyByteBuf buffer)
+    {
+        buffer.writeBlockPos(blockPos);
+        buffer.writeVarLong(baseVersion);
+        buffer.writeVarLong(version);
+        buffer.writeByteArray(data);
+    }
+
+    @Override
+    public void readPayload(final FriendlyByteBuf buffer)
+    {
+        this.blockPos = buffer.readBlockPos();
+        this.baseVersion = buffer.readVarLong();
+        this.version = buffer.readVarLong();
+        this.data = buffer.readByteArray();
+    }
+
+    @Override
+    public IntSet getReferencedBlockInformation()
+    {
+        return referencedBlockInformation;
+    }
+
+    @Override
+    public void client()
+    {
+        final FriendlyByteBuf buf = PayloadCompression.decode(data);
+        DistExecutor.runWhenOn(CLIENT, () -> () -> ClientPacketHandlers.handleChiseledBlockDelta(blockPos, baseVersion, version, buf));
+        buf.release();
+    }
+}
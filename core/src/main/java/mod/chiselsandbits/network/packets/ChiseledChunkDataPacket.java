@@ -0,0 +1,141 @@
+package mod.chiselsandbits.network.packets;
+
+import com.communi.suggestu.scena.core.dist.DistExecutor;
+import com.google.common.collect.Lists;
+import io.netty.buffer.Unpooled;
+import it.unimi.dsi.fastutil.ints.IntSet;
+import mod.chiselsandbits.block.entities.ChiseledBlockEntity;
+import mod.chiselsandbits.blockinformation.BlockInformationTable;
+import mod.chiselsandbits.network.BlockInformationDictionary;
+import mod.chiselsandbits.network.PayloadCompression;
+import mod.chiselsandbits.network.handlers.ClientPacketHandlers;
+import net.minecraft.core.BlockPos;
+import net.minecraft.network.FriendlyByteBuf;
+import net.minecraft.server.level.ServerPlayer;
+
+import java.util.List;
+
+import static com.communi.suggestu.scena.core.dist.Dist.CLIENT;
+
+/**
+ * Carries the full contents of the chiseled blocks of a chunk to a single player, when the chunk is sent to that player.
+ * <p>
+ * All blocks share one {@link BlockInformationTable}, so block information which occurs in many blocks is only written once.
+ * The table itself only holds {@link BlockInformationDictionary} ids.
+ * The positions are written in front of the payload, which allows the client to prepare the block entities on the game thread
+ * and to decode the payload on a background thread. Every block in the payload is preceded by its length, so a block which
+ * can not be applied on the client can be skipped.
+ */
+public final class ChiseledChunkDataPacket extends ModPacket implements IBlockInformationReferencingPacket
+{
+    /**
+     * The maximal amount of uncompressed data per packet, which keeps even incompressible packets well below the payload limit of the game.
+     */
+    private static final int MAX_DATA_SIZE = 512 * 1024;
+
+    private List<BlockPos> positions;
+    private byte[]         data;
+    private IntSet         referencedBlockInformation;
+
+    private ChiseledChunkDataPacket(final List<BlockPos> positions, final byte[] data, final IntSet referencedBlockInformation)
+    {
+        this.positions = positions;
+        this.data = data;
+        this.referencedBlockInformation = referencedBlockInformation;
+    }
+
+    public ChiseledChunkDataPacket(final FriendlyByteBuf buffer)
+    {
+        readPayload(buffer);
+    }
+
+    /**
+     * Creates the packets which carry the given block entities.
+     * Usually that is a single packet, chunks with an exceptional amount of data are split into several packets.
+     * Needs to be invoked on the server thread.
+     *
+     * @param blockEntities The block entities of the chunk.
+     * @param recipient The player the chunk is sent to.
+     * @return The packets.
+     */
+    public static List<ChiseledChunkDataPacket> create(final List<ChiseledBlockEntity> blockEntities, final ServerPlayer recipient)
+    {
+        final List<ChiseledChunkDataPacket> packets = Lists.newArrayList();
+        final FriendlyByteBuf entry = new FriendlyByteBuf(Unpooled.buffer());
+        final FriendlyByteBuf body = new FriendlyByteBuf(Unpooled.buffer());
+        try
+        {
+            BlockInformationTable table = BlockInformationTable.forSharedSpecs();
+            List<BlockPos> positions = Lists.newArrayList();
+            for (final ChiseledBlockEntity blockEntity : blockEntities)
+            {
+                if (!positions.isEmpty() && body.readableBytes() >= MAX_DATA_SIZE)
+                {
+                    packets.add(createPacket(positions, table, body));
+                    table = BlockInformationTable.forSharedSpecs();
+                    positions = Lists.newArrayList();
+                    body.clear();
+                }
+
+                entry.clear();
+                blockEntity.serializeIntoBatch(entry, table, recipient);
+                body.writeVarInt(entry.readableBytes());
+                body.writeBytes(entry);
+                positions.add(blockEntity.getBlockPos());
+            }
+
+            if (!positions.isEmpty())
+                packets.add(createPacket(positions, table, body));
+        }
+        finally
+        {
+            entry.release();
+            body.release();
+        }
+
+        return packets;
+    }
+
+    private static ChiseledChunkDataPacket createPacket(final List<BlockPos> positions, final BlockInformationTable table, final FriendlyByteBuf body)
+    {
+        //The table is only complete once all blocks are written, but it needs to be read first.
+        final BlockInformationDictionary.Writer writer = BlockInformationDictionary.getInstance().createWriter();
+        final byte[] data = PayloadCompression.encode(buffer -> {
+            table.serializeInto(buffer, writer::writeSpec);
+            buffer.writeBytes(body, body.readerIndex(), body.readableBytes());
+        });
+        return new ChiseledChunkDataPacket(positions, data, writer.getReferencedIds());
+    }
+
+    @Override
+    public void writePayload(final FriendlyByteBuf buffer)
+    {
+        buffer.writeVarInt(positions.size());
+        positions.forEach(buffer::writeBlockPos);
+        buffer.writeByteArray(data);
+    }
+
+    @Override
+    public void readPayload(final FriendlyByteBuf buffer)
+    {
+        final int count = buffer.readVarInt();
+        this.positions = Lists.newArrayListWithCapacity(count);
+        for (int i = 0; i < count; i++)
+        {
+            this.positions.add(buffer.readBlockPos());
+        }
+        this.data = buffer.readByteArray();
+    }
+
+    @Override
+    public IntSet getReferencedBlockInformation()
+    {
+        return referencedBlockInformation;
+    }
+
+    @Override
+    public void client()
+    {
+        DistExecutor.runWhenOn(CLIENT, () -> () -> ClientPacketHandlers.handleChiseledChunkData(positions, data));
+    }
+}
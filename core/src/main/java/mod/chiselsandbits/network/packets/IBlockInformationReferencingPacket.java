@@ -0,0 +1,19 @@
+package mod.chiselsandbits.network.packets;
+
+import it.unimi.dsi.fastutil.ints.IntSet;
+import mod.chiselsandbits.network.BlockInformationDictionary;
+
+/**
+ * Marks a packet which refers to block information by their {@link BlockInformationDictionary} id.
+ * The network channel sends the block information a player does not know yet in front of such a packet.
+ */
+public interface IBlockInformationReferencingPacket
+{
+    /**
+     * Gives access to the dictionary ids the packet refers to.
+     * Only available on the side which created the packet.
+     *
+     * @return The referenced ids.
+     */
+    IntSet getReferencedBlockInformation();
+}
@@ -0,0 +1,42 @@
+package mod.chiselsandbits.network.packets;
+
+import mod.chiselsandbits.block.entities.ChiseledBlockSyncManager;
+import net.minecraft.core.BlockPos;
+import net.minecraft.network.FriendlyByteBuf;
+import net.minecraft.server.level.ServerPlayer;
+
+/**
+ * Sent by a client which received a {@link ChiseledBlockDeltaPacket} for a version it does not hold, asks for a full update.
+ */
+public final class RequestChiseledBlockSyncPacket extends ModPacket
+{
+    private BlockPos blockPos;
+
+    public RequestChiseledBlockSyncPacket(final BlockPos blockPos)
+    {
+        this.blockPos = blockPos;
+    }
+
+    public RequestChiseledBlockSyncPacket(final FriendlyByteBuf buffer)
+    {
+        readPayload(buffer);
+    }
+
+    @Override
+    public void writePayload(final FriendlyByteBuf buffer)
+    {
+        buffer.writeBlockPos(blockPos);
+    }
+
+    @Override
+    public void readPayload(final FriendlyByteBuf buffer)
+    {
+        this.blockPos = buffer.readBlockPos();
+    }
+
+    @Override
+    public void server(final ServerPlayer playerEntity)
+    {
+        ChiseledBlockSyncManager.getInstance().answerSyncRequest(playerEntity, blockPos);
+    }
+}
@@ -2,35 +2,52 @@ package mod.chiselsandbits.network.packets;
 
 import com.communi.suggestu.scena.core.dist.DistExecutor;
 import io.netty.buffer.Unpooled;
-import mod.chiselsandbits.api.block.entity.INetworkUpdatableEntity;
+import it.unimi.dsi.fastutil.ints.IntSet;
+import mod.chiselsandbits.block.entities.ChiseledBlockEntity;
+import mod.chiselsandbits.blockinformation.BlockInformationTable;
+import mod.chiselsandbits.network.BlockInformationDictionary;
+import mod.chiselsandbits.network.PayloadCompression;
 import mod.chiselsandbits.network.handlers.ClientPacketHandlers;
 import net.minecraft.core.BlockPos;
 import net.minecraft.network.FriendlyByteBuf;
-import org.jetbrains.annotations.NotNull;
-
-import java.util.function.Consumer;
+import net.minecraft.server.level.ServerPlayer;
+import org.jetbrains.annotations.Nullable;
 
 import static com.communi.suggestu.scena.core.dist.Dist.CLIENT;
 
-public final class UpdateChiseledBlockPacket extends ModPacket
+/**
+ * Carries the full contents of a chiseled block, in the same form a {@link ChiseledChunkDataPacket} carries a single block.
+ * The block information is written as a table of {@link BlockInformationDictionary} ids.
+ */
+public final class UpdateChiseledBlockPacket extends ModPacket implements IBlockInformationReferencingPacket
 {
 
     private BlockPos blockPos;
     private byte[] data;
-    private Consumer<byte[]> dataConsumer;
+    private IntSet referencedBlockInformation;
 
-    public UpdateChiseledBlockPacket(final INetworkUpdatableEntity tileEntity)
+    public UpdateChiseledBlockPacket(final ChiseledBlockEntity tileEntity, @Nullable final ServerPlayer recipient)
     {
         this.blockPos = tileEntity.getBlockPos();
-        this.data = writeBlockEntity(tileEntity);
-    }
 
-    private static byte @NotNull [] writeBlockEntity(INetworkUpdatableEntity tileEntity) {
-        final FriendlyByteBuf buf = new FriendlyByteBuf(Unpooled.buffer());
-        tileEntity.serializeInto(buf);
-        byte[] data = buf.array();
-        buf.release();
-        return data;
+        final BlockInformationTable table = BlockInformationTable.forSharedSpecs();
+        final FriendlyByteBuf body = new FriendlyByteBuf(Unpooled.buffer());
+        try
+        {
+            tileEntity.serializeIntoBatch(body, table, recipient);
+
+            //The table is only complete once the block is written, but it needs to be read first.
+            final BlockInformationDictionary.Writer writer = BlockInformationDictionary.getInstance().createWriter();
+            this.data = PayloadCompression.encode(buffer -> {
+                table.serializeInto(buffer, writer::writeSpec);
+                buffer.writeBytes(body, body.readerIndex(), body.readableBytes());
+            });
+            this.referencedBlockInformation = writer.getReferencedIds();
+        }
+        finally
+        {
+            body.release();
+        }
     }
 
     public UpdateChiseledBlockPacket(final FriendlyByteBuf buffer)
@@ -52,10 +69,16 @@ public final class UpdateChiseledBlockPacket extends ModPacket
         this.data = buffer.readByteArray();
     }
 
+    @Override
+    public IntSet getReferencedBlockInformation()
+    {
+        return referencedBlockInformation;
+    }
+
     @Override
     public void client()
     {
-        final FriendlyByteBuf buf = new FriendlyByteBuf(Unpooled.wrappedBuffer(data));
+        final FriendlyByteBuf buf = PayloadCompression.decode(data);
         DistExecutor.runWhenOn(CLIENT, () -> () -> ClientPacketHandlers.handleChiseledBlockUpdated(blockPos, buf));
         buf.release();
     }
@@ -150,16 +150,7 @@ public class ImposePatternPlacementType extends AbstractCustomRegistryEntry impl
 
         try (IBatchMutation ignored = areaMutator.batch(IChangeTrackerManager.getInstance().getChangeTracker(context.getPlayer())))
         {
-            source.stream()
-                    .filter(s -> !s.getBlockInformation().isAir())
-                    .forEach(
-                            stateEntryInfo ->
-                            {
-                                areaMutator.overrideInAreaTarget(
-                                        stateEntryInfo.getBlockInformation(),
-                                        stateEntryInfo.getStartPoint());
-                            }
-                    );
+            areaMutator.imposeInArea(source);
         }
 
         if (!context.getPlayer().isCreative())
@@ -6,7 +6,7 @@ import mod.chiselsandbits.ChiselsAndBits;
 import mod.chiselsandbits.api.item.click.ClickProcessingState;
 import mod.chiselsandbits.block.entities.ChiseledBlockEntity;
 import mod.chiselsandbits.logic.*;
-import mod.chiselsandbits.network.packets.UpdateChiseledBlockPacket;
+import mod.chiselsandbits.network.packets.ChiseledChunkDataPacket;
 import net.minecraft.core.BlockPos;
 import net.minecraft.core.Direction;
 import net.minecraft.world.InteractionHand;
@@ -15,6 +15,8 @@ import net.minecraft.world.item.ItemStack;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
+import java.util.List;
+
 public final class ModEventHandler {
 
     private static final Logger LOGGER = LogManager.getLogger();
@@ -115,17 +117,18 @@ public final class ModEventHandler {
         IGameEvents.getInstance().getServerPostTickEvent().register(minecraftServer -> ServerTickHandler.onPostServerTick());
 
         IGameEvents.getInstance().getChunkSentEvent().register((serverPlayer, levelChunk, serverLevel) -> {
-            IBlockEntityPositionManager.getInstance().getPositions(ChiseledBlockEntity.class, serverLevel, levelChunk.getPos())
+            //Only the receiving player needs the data, everybody else tracking the chunk already has it.
+            final List<ChiseledBlockEntity> chiseledBlockEntities = IBlockEntityPositionManager.getInstance().getPositions(ChiseledBlockEntity.class, serverLevel, levelChunk.getPos())
                     .stream()
                     .map(serverLevel::getBlockEntity)
                     .filter(ChiseledBlockEntity.class::isInstance)
                     .map(ChiseledBlockEntity.class::cast)
-                    .forEach(chiseledBlockEntity -> {
-                        ChiselsAndBits.getInstance().getNetworkChannel().sendToTrackingChunk(
-                                new UpdateChiseledBlockPacket(chiseledBlockEntity),
-                                serverLevel.getChunkAt(chiseledBlockEntity.getBlockPos())
-                        );
-                    });
+                    .toList();
+            if (chiseledBlockEntities.isEmpty())
+                return;
+
+            ChiseledChunkDataPacket.create(chiseledBlockEntities, serverPlayer)
+                    .forEach(packet -> ChiselsAndBits.getInstance().getNetworkChannel().sendToPlayer(packet, serverPlayer));
         });
     }
 }
@@ -13,6 +13,7 @@ public interface IMultiThreadedStorageEngine extends IStorageEngine, Executor
 {
     /**
      * Runs the save process off-thread and returns the scheduled task.
+     * The data to save is captured on the calling thread, which needs to be the thread which changes the data.
      *
      * @param resultSaver The builder which is able to produce a results processing task.
      * @return The off-thread save task.
@@ -26,4 +27,14 @@ public interface IMultiThreadedStorageEngine extends IStorageEngine, Executor
      * @return The off-thread deserialize task.
      */
     CompletableFuture<Void> deserializeOffThread(CompoundTag tag);
+
+    /**
+     * Reads the given nbt data on the calling thread, and returns the task which applies it.
+     * The returned task needs to be run on the game thread.
+     * This allows callers to read the data of many engines in a single off-thread task.
+     *
+     * @param tag The tag to deserialize.
+     * @return The task which applies the read data.
+     */
+    Runnable prepareDeserialization(CompoundTag tag);
 }
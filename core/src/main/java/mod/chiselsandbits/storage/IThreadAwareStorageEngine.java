@@ -4,6 +4,7 @@ import net.minecraft.nbt.CompoundTag;
 
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.Executor;
+import java.util.function.Supplier;
 
 /**
  * Represents a single threaded storage engine which is aware of the fact that it can be invoked from off-thread, which can process data for IO purposes.
@@ -19,4 +20,21 @@ public interface IThreadAwareStorageEngine extends IStorageEngine {
      * @return The scheduled tasks
      */
     CompletableFuture<Void> deserializeOffThread(CompoundTag tag, Executor ioExecutor, Executor gameExecutor);
+
+    /**
+     * Reads the given nbt data on the calling thread, and returns the task which applies it.
+     * The returned task needs to be run on the game thread.
+     *
+     * @param tag The tag to deserialize.
+     * @return The task which applies the read data.
+     */
+    Runnable prepareDeserialization(CompoundTag tag);
+
+    /**
+     * Captures the data to save on the calling thread, and returns the task which writes it.
+     * The returned task can be run on any thread, and is not affected by changes which are made after this call.
+     *
+     * @return The task which writes the captured data.
+     */
+    Supplier<CompoundTag> prepareSerialization();
 }
@@ -1,2 +1,28 @@
 package mod.chiselsandbits.storage;
 
+import net.minecraft.nbt.CompoundTag;
+
+/**
+ * Represents a storage handler which can capture its data on the game thread, so that the captured data can be written off-thread
+ * while the game keeps changing the data of the handler.
+ * @param <P> The payload holder type, which is used for both off-thread reads and captured data.
+ */
+public interface IThreadAwareStorageHandler<P> extends IStorageHandler<P>
+{
+    /**
+     * Captures the current data of the handler, invoked on the game thread.
+     * The returned payload must not be affected by later changes to the data of the handler.
+     *
+     * @return The captured payload.
+     */
+    P createPayloadSnapshot();
+
+    /**
+     * Writes a payload which was captured by {@link #createPayloadSnapshot()}, in the same form as {@link #serializeNBT()}.
+     * Can be invoked from any thread.
+     *
+     * @param payload The captured payload.
+     * @return The serialized payload.
+     */
+    CompoundTag serializePayload(P payload);
+}
@@ -1,7 +1,5 @@
 package mod.chiselsandbits.storage;
 
-import mod.chiselsandbits.ChiselsAndBits;
-import mod.chiselsandbits.api.config.ICommonConfiguration;
 import net.minecraft.nbt.CompoundTag;
 import net.minecraft.network.FriendlyByteBuf;
 import org.jetbrains.annotations.NotNull;
@@ -9,33 +7,11 @@ import org.jetbrains.annotations.NotNull;
 import java.util.Collection;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.Executor;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Function;
 
 final class MultiThreadAwareStorageEngine implements IMultiThreadedStorageEngine
 {
 
-    private static ExecutorService saveService;
-
-    private static synchronized void ensureThreadPoolSetup() {
-        if (saveService == null) {
-            final ClassLoader classLoader = ChiselsAndBits.class.getClassLoader();
-            final AtomicInteger genericThreadCounter = new AtomicInteger();
-            saveService = Executors.newFixedThreadPool(
-              ICommonConfiguration.getInstance().getBlockSaveThreadCount().get(),
-              runnable -> {
-                  final Thread thread = new Thread(runnable);
-                  thread.setContextClassLoader(classLoader);
-                  thread.setName(String.format("Chisels and Bits Block save handler #%s", genericThreadCounter.incrementAndGet()));
-                  thread.setDaemon(true);
-                  return thread;
-              }
-            );
-        }
-    }
-
     private final IThreadAwareStorageEngine internalEngine;
     private final Executor gameExecutor;
 
@@ -82,10 +58,10 @@ final class MultiThreadAwareStorageEngine implements IMultiThreadedStorageEngine
     @Override
     public CompletableFuture<Void> serializeOffThread(Function<CompoundTag, CompletableFuture<Void>> resultSaver)
     {
-        ensureThreadPoolSetup();
-        return CompletableFuture.supplyAsync(
-          this::serializeNBT,
-          saveService
+        //Only the writing happens off-thread, the data itself is captured right here.
+        return StorageTaskExecutor.getInstance().submitSave(
+          this,
+          internalEngine.prepareSerialization()
         )
        .thenComposeAsync(resultSaver);
     }
@@ -93,13 +69,17 @@ final class MultiThreadAwareStorageEngine implements IMultiThreadedStorageEngine
     @Override
     public void execute(@NotNull final Runnable command)
     {
-        ensureThreadPoolSetup();
-        saveService.execute(command);
+        StorageTaskExecutor.getInstance().execute(command);
     }
 
     @Override
     public CompletableFuture<Void> deserializeOffThread(CompoundTag tag) {
-        ensureThreadPoolSetup();
-        return internalEngine.deserializeOffThread(tag, saveService, gameExecutor);
+        return internalEngine.deserializeOffThread(tag, StorageTaskExecutor.getInstance(), gameExecutor);
+    }
+
+    @Override
+    public Runnable prepareDeserialization(final CompoundTag tag)
+    {
+        return internalEngine.prepareDeserialization(tag);
     }
 }
@@ -0,0 +1,301 @@
+package mod.chiselsandbits.storage;
+
+import mod.chiselsandbits.ChiselsAndBits;
+import mod.chiselsandbits.api.config.ICommonConfiguration;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayDeque;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * The executor which runs the off-thread work of all storage engines.
+ * <p>
+ * Work is split into two lanes:
+ * <ul>
+ *     <li>The priority lane, which carries chunk load and save result work. This work is demand driven and never rejected,
+ *     dropping it would lose data.</li>
+ *     <li>The save lane, which carries the saves triggered by edits. This lane is bounded by the configured capacity,
+ *     and a save which is requested while a save for the same owner is still queued is coalesced into the queued save,
+ *     which then writes the data of the latest request.</li>
+ * </ul>
+ * Priority work is always taken before save work.
+ */
+public final class StorageTaskExecutor implements Executor
+{
+    private static StorageTaskExecutor instance;
+
+    /**
+     * Returns the executor, creating its threads on first use.
+     *
+     * @return The executor.
+     */
+    public static synchronized StorageTaskExecutor getInstance()
+    {
+        if (instance == null)
+        {
+            instance = new StorageTaskExecutor(
+              ICommonConfiguration.getInstance().getBlockSaveThreadCount().get(),
+              ICommonConfiguration.getInstance().getBlockSaveQueueCapacity().get()
+            );
+        }
+
+        return instance;
+    }
+
+    private final Object                    lock          = new Object();
+    private final ArrayDeque<Task>          priorityQueue = new ArrayDeque<>();
+    private final ArrayDeque<Task>          saveQueue     = new ArrayDeque<>();
+    private final Map<Object, KeyedTask<?>> queuedSaves   = new IdentityHashMap<>();
+    private final int                       saveCapacity;
+
+    private final LongAdder  submitted      = new LongAdder();
+    private final LongAdder  coalesced      = new LongAdder();
+    private final LongAdder  rejected       = new LongAdder();
+    private final LongAdder  completed      = new LongAdder();
+    private final LongAdder  totalWaitNanos = new LongAdder();
+    private final LongAdder  totalRunNanos  = new LongAdder();
+    private final AtomicLong maxWaitNanos   = new AtomicLong();
+
+    private StorageTaskExecutor(final int threadCount, final int saveCapacity)
+    {
+        this.saveCapacity = saveCapacity;
+
+        final ClassLoader classLoader = ChiselsAndBits.class.getClassLoader();
+        for (int i = 0; i < threadCount; i++)
+        {
+            final Thread thread = new Thread(this::runWorker);
+            thread.setContextClassLoader(classLoader);
+            thread.setName(String.format("Chisels and Bits Block save handler #%s", i + 1));
+            thread.setDaemon(true);
+            thread.start();
+        }
+    }
+
+    /**
+     * Runs the given command in the priority lane.
+     *
+     * @param command The command to run.
+     */
+    @Override
+    public void execute(@NotNull final Runnable command)
+    {
+        synchronized (lock)
+        {
+            priorityQueue.addLast(new Task(command));
+            submitted.increment();
+            lock.notify();
+        }
+    }
+
+    /**
+     * Schedules a save in the save lane.
+     * If a save for the same owner is still queued, no new save is queued. The queued save runs the given save instead of its own,
+     * and its future is returned.
+     *
+     * @param owner The owner of the save, compared by identity.
+     * @param save The save to run.
+     * @param <T> The type of the save result.
+     * @return The future which completes with the save result, or exceptionally with a {@link RejectedExecutionException} when the
+     * save lane is full.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> CompletableFuture<T> submitSave(final Object owner, final Supplier<T> save)
+    {
+        synchronized (lock)
+        {
+            final KeyedTask<T> queued = (KeyedTask<T>) queuedSaves.get(owner);
+            if (queued != null)
+            {
+                //Saves write data which was captured when they were requested, so the latest request has the latest data.
+                coalesced.increment();
+                queued.save = save;
+                return queued.future;
+            }
+
+            if (saveQueue.size() >= saveCapacity)
+            {
+                rejected.increment();
+                return CompletableFuture.failedFuture(new RejectedExecutionException("The chiseled block save queue is full"));
+            }
+
+            final KeyedTask<T> task = new KeyedTask<>(owner, save);
+            queuedSaves.put(owner, task);
+            saveQueue.addLast(task);
+            submitted.increment();
+            lock.notify();
+            return task.future;
+        }
+    }
+
+    public int getPriorityQueueDepth()
+    {
+        synchronized (lock)
+        {
+            return priorityQueue.size();
+        }
+    }
+
+    public int getSaveQueueDepth()
+    {
+        synchronized (lock)
+        {
+            return saveQueue.size();
+        }
+    }
+
+    public int getSaveCapacity()
+    {
+        return saveCapacity;
+    }
+
+    public long getSubmittedCount()
+    {
+        return submitted.sum();
+    }
+
+    public long getCoalescedCount()
+    {
+        return coalesced.sum();
+    }
+
+    public long getRejectedCount()
+    {
+        return rejected.sum();
+    }
+
+    public long getCompletedCount()
+    {
+        return completed.sum();
+    }
+
+    /**
+     * @return The average time completed tasks spent in a queue, in nanoseconds.
+     */
+    public long getAverageWaitNanos()
+    {
+        final long count = completed.sum();
+        return count == 0 ? 0 : totalWaitNanos.sum() / count;
+    }
+
+    /**
+     * @return The longest time a completed task spent in a queue, in nanoseconds.
+     */
+    public long getMaxWaitNanos()
+    {
+        return maxWaitNanos.get();
+    }
+
+    /**
+     * @return The average time completed tasks took to run, in nanoseconds.
+     */
+    public long getAverageRunNanos()
+    {
+        final long count = completed.sum();
+        return count == 0 ? 0 : totalRunNanos.sum() / count;
+    }
+
+    private void runWorker()
+    {
+        while (true)
+        {
+            final Task task;
+            synchronized (lock)
+            {
+                while (priorityQueue.isEmpty() && saveQueue.isEmpty())
+                {
+                    try
+                    {
+                        lock.wait();
+                    }
+                    catch (InterruptedException e)
+                    {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                }
+
+                if (!priorityQueue.isEmpty())
+                {
+                    task = priorityQueue.pollFirst();
+                }
+                else
+                {
+                    task = saveQueue.pollFirst();
+                    //From here on new saves of the owner need to be queued again, this one might already miss their data.
+                    queuedSaves.remove(((KeyedTask<?>) task).owner);
+                }
+            }
+
+            final long startedAt = System.nanoTime();
+            final long waited = startedAt - task.queuedAt;
+            totalWaitNanos.add(waited);
+            maxWaitNanos.accumulateAndGet(waited, Math::max);
+
+            task.run();
+
+            totalRunNanos.add(System.nanoTime() - startedAt);
+            completed.increment();
+        }
+    }
+
+    private static class Task
+    {
+        private final Runnable runnable;
+        private final long     queuedAt = System.nanoTime();
+
+        private Task(final Runnable runnable)
+        {
+            this.runnable = runnable;
+        }
+
+        protected void run()
+        {
+            try
+            {
+                runnable.run();
+            }
+            catch (Throwable throwable)
+            {
+                Thread.currentThread().getUncaughtExceptionHandler().uncaughtException(Thread.currentThread(), throwable);
+            }
+        }
+    }
+
+    private static final class KeyedTask<T> extends Task
+    {
+        private final Object               owner;
+        private final CompletableFuture<T> future = new CompletableFuture<>();
+        /**
+         * The save to run, replaced by coalesced requests while the task is queued. Guarded by the lock of the executor.
+         */
+        private       Supplier<T>          save;
+
+        private KeyedTask(final Object owner, final Supplier<T> save)
+        {
+            super(null);
+            this.owner = owner;
+            this.save = save;
+        }
+
+        @Override
+        protected void run()
+        {
+            //The task was taken from the queue while holding the lock, so the last replaced save is visible here.
+            try
+            {
+                future.complete(save.get());
+            }
+            catch (Throwable throwable)
+            {
+                future.completeExceptionally(throwable);
+            }
+        }
+    }
+}
@@ -13,6 +13,7 @@ import org.slf4j.Logger;
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.Executor;
+import java.util.function.Supplier;
 
 final class VersionedStorageEngine implements IThreadAwareStorageEngine
 {
@@ -110,13 +111,41 @@ final class VersionedStorageEngine implements IThreadAwareStorageEngine
     public CompletableFuture<Void> deserializeOffThread(CompoundTag tag, Executor ioExecutor, Executor gameExecutor) {
         final IStorageHandler<?> storageHandler = readStorageHandler(tag);
         if (storageHandler == null) return CompletableFuture.completedFuture(null);
-        return doDeserializeOffThread(storageHandler, tag, ioExecutor, gameExecutor);
-    }
-
-    private <P> CompletableFuture<Void> doDeserializeOffThread(IStorageHandler<P> handler, CompoundTag tag, Executor ioExecutor, Executor gameExecutor) {
         return CompletableFuture.supplyAsync(
-                () -> handler.readPayloadOffThread(tag.getCompound(NbtConstants.DATA)),
+                () -> doPrepareDeserialization(storageHandler, tag),
                 ioExecutor
-        ).thenAcceptAsync(handler::syncPayloadOnGameThread, gameExecutor);
+        ).thenAcceptAsync(Runnable::run, gameExecutor);
+    }
+
+    @Override
+    public Runnable prepareDeserialization(final CompoundTag tag) {
+        final IStorageHandler<?> storageHandler = readStorageHandler(tag);
+        if (storageHandler == null) return () -> {};
+        return doPrepareDeserialization(storageHandler, tag);
+    }
+
+    private <P> Runnable doPrepareDeserialization(IStorageHandler<P> handler, CompoundTag tag) {
+        final P payload = handler.readPayloadOffThread(tag.getCompound(NbtConstants.DATA));
+        return () -> handler.syncPayloadOnGameThread(payload);
+    }
+
+    @Override
+    public Supplier<CompoundTag> prepareSerialization() {
+        if (saveHandler instanceof IThreadAwareStorageHandler<?> threadAwareStorageHandler)
+            return doPrepareSerialization(threadAwareStorageHandler);
+
+        //Handlers which can not capture their data are written right away, on the calling thread.
+        final CompoundTag tag = serializeNBT();
+        return () -> tag;
+    }
+
+    private <P> Supplier<CompoundTag> doPrepareSerialization(IThreadAwareStorageHandler<P> handler) {
+        final P payload = handler.createPayloadSnapshot();
+        return () -> {
+            final CompoundTag tag = new CompoundTag();
+            tag.putInt(NbtConstants.VERSION, currentVersion);
+            tag.put(NbtConstants.DATA, handler.serializePayload(payload));
+            return tag;
+        };
     }
 }
@@ -118,4 +118,34 @@ public class LZ4DataCompressionUtils
 
         return uncompressedConsumer.apply(uncompressedData);
     }
+
+    /**
+     * Compresses the given bytes into a single LZ4 frame.
+     *
+     * @param data The bytes to compress.
+     * @return The compressed bytes.
+     * @throws IOException When the compression failed.
+     */
+    public static byte[] compress(final byte[] data) throws IOException {
+        final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        try (OutputStream lz4Stream = new LZ4FrameOutputStream(outputStream))
+        {
+            lz4Stream.write(data);
+        }
+        return outputStream.toByteArray();
+    }
+
+    /**
+     * Decompresses the bytes of a single LZ4 frame, as created by {@link #compress(byte[])}.
+     *
+     * @param compressedData The compressed bytes.
+     * @return The decompressed bytes.
+     * @throws IOException When the decompression failed.
+     */
+    public static byte[] decompress(final byte[] compressedData) throws IOException {
+        try (InputStream lz4Stream = new LZ4FrameInputStream(new ByteArrayInputStream(compressedData)))
+        {
+            return lz4Stream.readAllBytes();
+        }
+    }
 }
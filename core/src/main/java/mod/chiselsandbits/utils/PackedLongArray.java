@@ -0,0 +1,708 @@
+package mod.chiselsandbits.utils;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * A fixed length array of unsigned integer entries, all of the same bit width, which are packed tightly into a {@code long[]}.
+ * <p>
+ * Entry {@code i} occupies bits {@code [i * bitsPerEntry, (i + 1) * bitsPerEntry)} of the backing array, where bit {@code n}
+ * lives in bit {@code n % 64} of word {@code n / 64}. An entry may as such straddle two words.
+ * This is the exact same layout as produced by {@link java.util.BitSet#toLongArray()} when the entries are written bit by bit,
+ * which keeps the raw data compatible with previously stored data.
+ * <p>
+ * Arrays created via {@link #share()} use the same backing words, which are reference counted.
+ * The first mutation of a shared array copies the words, so sharing is cheap and only writers pay for a copy.
+ */
+public final class PackedLongArray
+{
+    private final int entryCount;
+    private int    bitsPerEntry;
+    private long   mask;
+    private long[] data;
+    private AtomicInteger owners;
+
+    public PackedLongArray(final int entryCount)
+    {
+        this(entryCount, 0);
+    }
+
+    public PackedLongArray(final int entryCount, final int bitsPerEntry)
+    {
+        this(entryCount, bitsPerEntry, new long[getRequiredWordCount(entryCount, bitsPerEntry)]);
+    }
+
+    private PackedLongArray(final int entryCount, final int bitsPerEntry, final long[] data)
+    {
+        if (bitsPerEntry < 0 || bitsPerEntry > Integer.SIZE)
+            throw new IllegalArgumentException("The bits per entry need to be between 0 and 32, got: " + bitsPerEntry);
+
+        this.entryCount = entryCount;
+        this.bitsPerEntry = bitsPerEntry;
+        this.mask = createMask(bitsPerEntry);
+        this.data = data;
+        this.owners = new AtomicInteger(1);
+    }
+
+    private PackedLongArray(final PackedLongArray source)
+    {
+        this.entryCount = source.entryCount;
+        this.bitsPerEntry = source.bitsPerEntry;
+        this.mask = source.mask;
+        this.data = source.data;
+        this.owners = source.owners;
+        this.owners.incrementAndGet();
+    }
+
+    /**
+     * Creates a new packed array from the given raw words.
+     * The words are copied, missing trailing words (for example because they were trimmed by {@link java.util.BitSet#toLongArray()}) are treated as zero.
+     *
+     * @param entryCount The amount of entries in the array.
+     * @param bitsPerEntry The width of each entry.
+     * @param words The raw words.
+     * @return The packed array.
+     */
+    public static PackedLongArray fromWords(final int entryCount, final int bitsPerEntry, final long[] words)
+    {
+        return new PackedLongArray(entryCount, bitsPerEntry, Arrays.copyOf(words, getRequiredWordCount(entryCount, bitsPerEntry)));
+    }
+
+    /**
+     * Creates a new packed array from the given little endian bytes, as produced by {@link #toByteArray()} or {@link java.util.BitSet#toByteArray()}.
+     *
+     * @param entryCount The amount of entries in the array.
+     * @param bitsPerEntry The width of each entry.
+     * @param bytes The raw bytes.
+     * @return The packed array.
+     */
+    public static PackedLongArray fromBytes(final int entryCount, final int bitsPerEntry, final byte[] bytes)
+    {
+        final long[] words = new long[getRequiredWordCount(entryCount, bitsPerEntry)];
+        final int byteCount = Math.min(bytes.length, words.length * Long.BYTES);
+        for (int i = 0; i < byteCount; i++)
+        {
+            words[i >>> 3] |= (bytes[i] & 0xFFL) << ((i & 7) << 3);
+        }
+
+        return new PackedLongArray(entryCount, bitsPerEntry, words);
+    }
+
+    public static int getRequiredWordCount(final int entryCount, final int bitsPerEntry)
+    {
+        return (int) (((long) entryCount * bitsPerEntry + Long.SIZE - 1) / Long.SIZE);
+    }
+
+    private static long createMask(final int bitsPerEntry)
+    {
+        return bitsPerEntry == 0 ? 0L : (-1L >>> (Long.SIZE - bitsPerEntry));
+    }
+
+    public int getEntryCount()
+    {
+        return entryCount;
+    }
+
+    public int getBitsPerEntry()
+    {
+        return bitsPerEntry;
+    }
+
+    /**
+     * Gives access to the backing words of this array.
+     * The returned array might be shared with other arrays and must not be modified.
+     *
+     * @return The backing words.
+     */
+    public long[] getWords()
+    {
+        return data;
+    }
+
+    public int get(final int index)
+    {
+        if (bitsPerEntry == 0)
+            return 0;
+
+        final long bitIndex = (long) index * bitsPerEntry;
+        final int wordIndex = (int) (bitIndex >>> 6);
+        final int bitOffset = (int) (bitIndex & 63);
+
+        long value = data[wordIndex] >>> bitOffset;
+        if (bitOffset + bitsPerEntry > Long.SIZE)
+        {
+            value |= data[wordIndex + 1] << (Long.SIZE - bitOffset);
+        }
+
+        return (int) (value & mask);
+    }
+
+    public void set(final int index, final int value)
+    {
+        if (bitsPerEntry == 0)
+            return;
+
+        final long bitIndex = (long) index * bitsPerEntry;
+        final int wordIndex = (int) (bitIndex >>> 6);
+        final int bitOffset = (int) (bitIndex & 63);
+        final long maskedValue = value & mask;
+
+        ensureExclusive();
+        data[wordIndex] = (data[wordIndex] & ~(mask << bitOffset)) | (maskedValue << bitOffset);
+        if (bitOffset + bitsPerEntry > Long.SIZE)
+        {
+            final int overflowShift = Long.SIZE - bitOffset;
+            data[wordIndex + 1] = (data[wordIndex + 1] & ~(mask >>> overflowShift)) | (maskedValue >>> overflowShift);
+        }
+    }
+
+    /**
+     * Reads {@code length} consecutive entries starting at {@code start} into the target array.
+     *
+     * @param start The index of the first entry to read.
+     * @param target The array to read into.
+     * @param targetOffset The offset in the target array to start writing at.
+     * @param length The amount of entries to read.
+     */
+    public void getRange(final int start, final int[] target, final int targetOffset, final int length)
+    {
+        checkRange(start, length);
+
+        if (length == 0)
+            return;
+
+        if (bitsPerEntry == 0)
+        {
+            Arrays.fill(target, targetOffset, targetOffset + length, 0);
+            return;
+        }
+
+        long bitIndex = (long) start * bitsPerEntry;
+        int wordIndex = (int) (bitIndex >>> 6);
+        int bitOffset = (int) (bitIndex & 63);
+        long word = data[wordIndex];
+
+        for (int i = 0; i < length; i++)
+        {
+            long value = word >>> bitOffset;
+            bitOffset += bitsPerEntry;
+            if (bitOffset >= Long.SIZE)
+            {
+                bitOffset -= Long.SIZE;
+                wordIndex++;
+                if (wordIndex < data.length)
+                {
+                    word = data[wordIndex];
+                    if (bitOffset > 0)
+                    {
+                        value |= word << (bitsPerEntry - bitOffset);
+                    }
+                }
+            }
+
+            target[targetOffset + i] = (int) (value & mask);
+        }
+    }
+
+    /**
+     * Writes {@code length} consecutive entries starting at {@code start} from the source array.
+     *
+     * @param start The index of the first entry to write.
+     * @param source The array to read the values from.
+     * @param sourceOffset The offset in the source array to start reading at.
+     * @param length The amount of entries to write.
+     */
+    public void setRange(final int start, final int[] source, final int sourceOffset, final int length)
+    {
+        checkRange(start, length);
+
+        if (bitsPerEntry == 0)
+            return;
+
+        ensureExclusive();
+        for (int i = 0; i < length; i++)
+        {
+            set(start + i, source[sourceOffset + i]);
+        }
+    }
+
+    /**
+     * Sets all entries of the array to the given value.
+     *
+     * @param value The value to set.
+     */
+    public void fill(final int value)
+    {
+        if (bitsPerEntry == 0)
+            return;
+
+        final long maskedValue = value & mask;
+        if (maskedValue == 0)
+        {
+            replaceData(new long[data.length]);
+            return;
+        }
+
+        //When the width divides the word size the pattern repeats in every word, so it can be calculated once.
+        if (Long.SIZE % bitsPerEntry == 0)
+        {
+            final long[] filled = new long[data.length];
+            Arrays.fill(filled, createPattern(maskedValue));
+            replaceData(filled);
+            clearTrailingBits();
+            return;
+        }
+
+        for (int i = 0; i < entryCount; i++)
+        {
+            set(i, value);
+        }
+    }
+
+    /**
+     * Sets {@code length} consecutive entries starting at {@code start} to the given value.
+     *
+     * @param start The index of the first entry to set.
+     * @param length The amount of entries to set.
+     * @param value The value to set.
+     */
+    public void fillRange(final int start, final int length, final int value)
+    {
+        checkRange(start, length);
+
+        if (bitsPerEntry == 0 || length == 0)
+            return;
+
+        if (start == 0 && length == entryCount)
+        {
+            fill(value);
+            return;
+        }
+
+        ensureExclusive();
+        final int end = start + length;
+        if (Long.SIZE % bitsPerEntry != 0)
+        {
+            for (int i = start; i < end; i++)
+            {
+                set(i, value);
+            }
+            return;
+        }
+
+        //Entries never straddle two words here, so all words which are completely covered can be written at once.
+        final int entriesPerWord = Long.SIZE / bitsPerEntry;
+        final long pattern = createPattern(value & mask);
+        final int firstFullWord = (start + entriesPerWord - 1) / entriesPerWord;
+        final int lastFullWord = end / entriesPerWord;
+        if (firstFullWord >= lastFullWord)
+        {
+            for (int i = start; i < end; i++)
+            {
+                set(i, value);
+            }
+            return;
+        }
+
+        for (int i = start; i < firstFullWord * entriesPerWord; i++)
+        {
+            set(i, value);
+        }
+        Arrays.fill(data, firstFullWord, lastFullWord, pattern);
+        for (int i = lastFullWord * entriesPerWord; i < end; i++)
+        {
+            set(i, value);
+        }
+    }
+
+    /**
+     * Counts how many of the {@code length} consecutive entries starting at {@code start} have the given value.
+     *
+     * @param start The index of the first entry to check.
+     * @param length The amount of entries to check.
+     * @param value The value to count.
+     * @return The amount of entries with the given value.
+     */
+    public int countRange(final int start, final int length, final int value)
+    {
+        checkRange(start, length);
+
+        if (bitsPerEntry == 0)
+            return value == 0 ? length : 0;
+
+        final int end = start + length;
+        if (Long.SIZE % bitsPerEntry != 0)
+        {
+            int count = 0;
+            for (int i = start; i < end; i++)
+            {
+                if (get(i) == value)
+                    count++;
+            }
+            return count;
+        }
+
+        final int entriesPerWord = Long.SIZE / bitsPerEntry;
+        final long pattern = createPattern(value & mask);
+        final int firstFullWord = Math.min((start + entriesPerWord - 1) / entriesPerWord, end / entriesPerWord);
+        final int lastFullWord = end / entriesPerWord;
+
+        int count = 0;
+        for (int i = start; i < Math.min(end, firstFullWord * entriesPerWord); i++)
+        {
+            if (get(i) == value)
+                count++;
+        }
+        for (int wordIndex = firstFullWord; wordIndex < lastFullWord; wordIndex++)
+        {
+            count += entriesPerWord - Long.bitCount(getNonMatchingEntries(data[wordIndex], pattern));
+        }
+        for (int i = Math.max(start, lastFullWord * entriesPerWord); i < end; i++)
+        {
+            if (get(i) == value)
+                count++;
+        }
+        return count;
+    }
+
+    /**
+     * Replaces all entries with the value {@code from} with the value {@code to}.
+     *
+     * @param from The value to replace.
+     * @param to The value to replace it with.
+     * @return The amount of entries which were replaced.
+     */
+    public int replace(final int from, final int to)
+    {
+        if (bitsPerEntry == 0 || from == to)
+            return 0;
+
+        if (Long.SIZE % bitsPerEntry != 0)
+        {
+            int count = 0;
+            for (int i = 0; i < entryCount; i++)
+            {
+                if (get(i) == from)
+                {
+                    set(i, to);
+                    count++;
+                }
+            }
+            return count;
+        }
+
+        final long fromPattern = createPattern(from & mask);
+        final long toPattern = createPattern(to & mask);
+        final int fullWords = entryCount / (Long.SIZE / bitsPerEntry);
+
+        int count = 0;
+        for (int wordIndex = 0; wordIndex < data.length; wordIndex++)
+        {
+            long matches = ~getNonMatchingEntries(data[wordIndex], fromPattern) & createPattern(1);
+            if (wordIndex >= fullWords)
+            {
+                //Only the entries which are actually in use in the last word are allowed to match.
+                final int usedBits = (entryCount * bitsPerEntry) & 63;
+                if (usedBits != 0)
+                    matches &= -1L >>> (Long.SIZE - usedBits);
+            }
+
+            if (matches == 0)
+                continue;
+
+            //Expand the lowest bit of each matching entry into a mask covering the whole entry.
+            final long entryMask = matches * mask;
+            ensureExclusive();
+            data[wordIndex] = (data[wordIndex] & ~entryMask) | (toPattern & entryMask);
+            count += Long.bitCount(matches);
+        }
+        return count;
+    }
+
+    /**
+     * Reorders all entries in a single pass, so that entry {@code i} afterwards holds the value entry {@code sourceIndices[i]} held before.
+     *
+     * @param sourceIndices The index to take the value from, for each entry.
+     */
+    public void permute(final int[] sourceIndices)
+    {
+        if (sourceIndices.length != entryCount)
+            throw new IllegalArgumentException("The permutation needs to have %d entries, got: %d".formatted(entryCount, sourceIndices.length));
+
+        if (bitsPerEntry == 0)
+            return;
+
+        final int[] values = new int[entryCount];
+        getRange(0, values, 0, entryCount);
+
+        replaceData(pack(i -> values[sourceIndices[i]]));
+    }
+
+    /**
+     * Replaces the values of all entries in a single pass, so that an entry which held {@code v} before afterwards holds {@code mapping[v]}.
+     * Values outside the mapping, or which are mapped to a negative value, are kept.
+     *
+     * @param mapping The new value, for each value.
+     */
+    public void remap(final int[] mapping)
+    {
+        if (bitsPerEntry == 0)
+            return;
+
+        final int[] values = new int[entryCount];
+        getRange(0, values, 0, entryCount);
+
+        boolean changed = false;
+        for (int i = 0; i < entryCount; i++)
+        {
+            final int value = values[i];
+            if (value >= 0 && value < mapping.length && mapping[value] >= 0 && mapping[value] != value)
+            {
+                values[i] = mapping[value];
+                changed = true;
+            }
+        }
+
+        if (changed)
+            replaceData(pack(i -> values[i]));
+    }
+
+    /**
+     * Packs the given values into a newly allocated word array, in the current width.
+     */
+    private long[] pack(final IntUnaryOperator valueForEntry)
+    {
+        final long[] packed = new long[data.length];
+        long bitIndex = 0;
+        for (int i = 0; i < entryCount; i++)
+        {
+            final long value = valueForEntry.applyAsInt(i) & mask;
+            final int wordIndex = (int) (bitIndex >>> 6);
+            final int bitOffset = (int) (bitIndex & 63);
+
+            packed[wordIndex] |= value << bitOffset;
+            if (bitOffset + bitsPerEntry > Long.SIZE)
+            {
+                packed[wordIndex + 1] |= value >>> (Long.SIZE - bitOffset);
+            }
+            bitIndex += bitsPerEntry;
+        }
+        return packed;
+    }
+
+    /**
+     * Creates a word in which every entry slot holds the given value.
+     * Only valid when the entry width divides the word size.
+     */
+    private long createPattern(final long maskedValue)
+    {
+        long pattern = 0;
+        for (int offset = 0; offset < Long.SIZE; offset += bitsPerEntry)
+        {
+            pattern |= maskedValue << offset;
+        }
+        return pattern;
+    }
+
+    /**
+     * Calculates a word which has the lowest bit of every entry set, for which the entry differs from the entry in the pattern.
+     * Only valid when the entry width divides the word size.
+     */
+    private long getNonMatchingEntries(final long word, final long pattern)
+    {
+        long difference = word ^ pattern;
+        for (int shift = 1; shift < bitsPerEntry; shift <<= 1)
+        {
+            difference |= difference >>> shift;
+        }
+        return difference & createPattern(1);
+    }
+
+    /**
+     * Changes the width of all entries, converting the existing entries into the new width.
+     * When shrinking all entries need to fit into the new width.
+     * <p>
+     * The entries are streamed word by word from the old words into a single newly allocated word array,
+     * so no per entry work beyond a few shifts is needed and nothing else is allocated.
+     *
+     * @param newBitsPerEntry The new width of the entries.
+     */
+    public void resize(final int newBitsPerEntry)
+    {
+        if (newBitsPerEntry == this.bitsPerEntry)
+            return;
+
+        if (newBitsPerEntry < 0 || newBitsPerEntry > Integer.SIZE)
+            throw new IllegalArgumentException("The bits per entry need to be between 0 and 32, got: " + newBitsPerEntry);
+
+        final long newMask = createMask(newBitsPerEntry);
+        final long[] resized = new long[getRequiredWordCount(entryCount, newBitsPerEntry)];
+        if (bitsPerEntry != 0 && newBitsPerEntry != 0)
+        {
+            int sourceWordIndex = 0;
+            int sourceBitOffset = 0;
+            long sourceWord = data[0];
+
+            int targetWordIndex = 0;
+            int targetBitOffset = 0;
+            long targetWord = 0;
+
+            for (int i = 0; i < entryCount; i++)
+            {
+                long value = sourceWord >>> sourceBitOffset;
+                sourceBitOffset += bitsPerEntry;
+                if (sourceBitOffset >= Long.SIZE)
+                {
+                    sourceBitOffset -= Long.SIZE;
+                    sourceWordIndex++;
+                    if (sourceWordIndex < data.length)
+                    {
+                        sourceWord = data[sourceWordIndex];
+                        if (sourceBitOffset > 0)
+                        {
+                            value |= sourceWord << (bitsPerEntry - sourceBitOffset);
+                        }
+                    }
+                }
+                value &= mask & newMask;
+
+                targetWord |= value << targetBitOffset;
+                targetBitOffset += newBitsPerEntry;
+                if (targetBitOffset >= Long.SIZE)
+                {
+                    resized[targetWordIndex++] = targetWord;
+                    targetBitOffset -= Long.SIZE;
+                    targetWord = targetBitOffset > 0 ? value >>> (newBitsPerEntry - targetBitOffset) : 0;
+                }
+            }
+
+            if (targetBitOffset > 0)
+            {
+                resized[targetWordIndex] = targetWord;
+            }
+        }
+
+        this.bitsPerEntry = newBitsPerEntry;
+        this.mask = newMask;
+        replaceData(resized);
+    }
+
+    /**
+     * Converts the array into its little endian byte representation, trimmed after the last none zero byte.
+     * This is the same format as {@link java.util.BitSet#toByteArray()}.
+     *
+     * @return The bytes.
+     */
+    public byte[] toByteArray()
+    {
+        int lastWord = data.length - 1;
+        while (lastWord >= 0 && data[lastWord] == 0)
+        {
+            lastWord--;
+        }
+
+        if (lastWord < 0)
+            return new byte[0];
+
+        final int byteCount = lastWord * Long.BYTES + (Long.SIZE - Long.numberOfLeadingZeros(data[lastWord]) + Byte.SIZE - 1) / Byte.SIZE;
+        final byte[] result = new byte[byteCount];
+        for (int i = 0; i < byteCount; i++)
+        {
+            result[i] = (byte) (data[i >>> 3] >>> ((i & 7) << 3));
+        }
+
+        return result;
+    }
+
+    public PackedLongArray copy()
+    {
+        return new PackedLongArray(entryCount, bitsPerEntry, data.clone());
+    }
+
+    /**
+     * Creates a new array which shares the backing words with this array.
+     * Whichever of the two is written to first will copy the words before doing so.
+     *
+     * @return The sharing array.
+     */
+    public PackedLongArray share()
+    {
+        return new PackedLongArray(this);
+    }
+
+    /**
+     * Indicates if the backing words are currently shared with another array.
+     *
+     * @return True when shared, false when not.
+     */
+    public boolean isShared()
+    {
+        return owners.get() > 1;
+    }
+
+    private void ensureExclusive()
+    {
+        if (owners.get() > 1)
+        {
+            replaceData(data.clone());
+        }
+    }
+
+    private void replaceData(final long[] newData)
+    {
+        final AtomicInteger previousOwners = this.owners;
+        this.data = newData;
+        this.owners = new AtomicInteger(1);
+        previousOwners.decrementAndGet();
+    }
+
+    private void clearTrailingBits()
+    {
+        final long usedBits = (long) entryCount * bitsPerEntry;
+        final int trailingBits = (int) (usedBits & 63);
+        if (trailingBits != 0 && data.length > 0)
+        {
+            data[data.length - 1] &= -1L >>> (Long.SIZE - trailingBits);
+        }
+    }
+
+    private void checkRange(final int start, final int length)
+    {
+        if (start < 0 || length < 0 || start + length > entryCount)
+            throw new IndexOutOfBoundsException("Range [%d, %d) is out of bounds for length %d".formatted(start, start + length, entryCount));
+    }
+
+    @Override
+    public boolean equals(final Object o)
+    {
+        if (this == o)
+        {
+            return true;
+        }
+        if (!(o instanceof final PackedLongArray that))
+        {
+            return false;
+        }
+
+        return entryCount == that.entryCount && bitsPerEntry == that.bitsPerEntry && Arrays.equals(data, that.data);
+    }
+
+    @Override
+    public int hashCode()
+    {
+        int result = entryCount;
+        result = 31 * result + bitsPerEntry;
+        result = 31 * result + Arrays.hashCode(data);
+        return result;
+    }
+
+    @Override
+    public String toString()
+    {
+        return "PackedLongArray{" +
+                 "entryCount=" + entryCount +
+                 ", bitsPerEntry=" + bitsPerEntry +
+                 '}';
+    }
+}
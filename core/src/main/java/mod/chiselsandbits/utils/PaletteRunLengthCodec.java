@@ -0,0 +1,184 @@
+package mod.chiselsandbits.utils;
+
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import net.minecraft.network.FriendlyByteBuf;
+
+/**
+ * Encodes the palette indices of a block as runs, walking the block in Morton (Z-order) order.
+ * <p>
+ * Chiseled blocks mostly consist of a few large, connected areas of one material. The Morton order visits the block cube by
+ * cube, so such areas turn into a few long runs, where the layer by layer order would cut them into one run per row.
+ * Every run is written as its palette index and its length, both as var ints, until all entries of the block are covered.
+ * <p>
+ * The runs are byte aligned, unlike the packed words, so a general purpose compression like LZ4 which is applied on top of them
+ * can still find repetitions between them. Blocks which are too noisy for runs to pay off are written as their packed words
+ * instead, which is indicated by a leading flag, so the encoded form is never much larger than the packed words.
+ */
+public final class PaletteRunLengthCodec
+{
+    private static final int[][] MORTON_ORDERS = new int[5][];
+
+    static
+    {
+        for (int sideBits = 0; sideBits < MORTON_ORDERS.length; sideBits++)
+        {
+            MORTON_ORDERS[sideBits] = createMortonOrder(sideBits);
+        }
+    }
+
+    private PaletteRunLengthCodec()
+    {
+        throw new IllegalStateException("Can not instantiate an instance of: PaletteRunLengthCodec. This is a utility class");
+    }
+
+    /**
+     * Writes the given palette indices as runs, or as packed words if those are smaller.
+     *
+     * @param indices The palette indices, in the {@code x * size * size + y * size + z} order of the packed storages.
+     * @param sideLength The amount of entries on each side of the block, needs to be a power of two.
+     * @param buffer The buffer to write into.
+     */
+    public static void encode(final PackedLongArray indices, final int sideLength, final FriendlyByteBuf buffer)
+    {
+        final int[] order = getMortonOrder(sideLength);
+        if (indices.getEntryCount() != order.length)
+            throw new IllegalArgumentException("Expected %d entries for a side length of %d, got: %d".formatted(order.length, sideLength, indices.getEntryCount()));
+
+        final long[] words = indices.getWords();
+        final int packedSize = words.length * Long.BYTES;
+        final IntArrayList runs = new IntArrayList();
+        int encodedSize = 0;
+        int currentIndex = indices.get(order[0]);
+        int runLength = 1;
+        for (int i = 1; i < order.length && encodedSize <= packedSize; i++)
+        {
+            final int index = indices.get(order[i]);
+            if (index == currentIndex)
+            {
+                runLength++;
+                continue;
+            }
+
+            encodedSize += addRun(runs, currentIndex, runLength);
+            currentIndex = index;
+            runLength = 1;
+        }
+
+        //Runs only ever grow, so the loop stops as soon as they can no longer beat the packed words.
+        if (encodedSize <= packedSize)
+            encodedSize += addRun(runs, currentIndex, runLength);
+
+        if (encodedSize > packedSize)
+        {
+            buffer.writeBoolean(false);
+            for (final long word : words)
+            {
+                buffer.writeLong(word);
+            }
+            return;
+        }
+
+        buffer.writeBoolean(true);
+        for (int i = 0; i < runs.size(); i++)
+        {
+            buffer.writeVarInt(runs.getInt(i));
+        }
+    }
+
+    private static int addRun(final IntArrayList runs, final int index, final int runLength)
+    {
+        runs.add(index);
+        runs.add(runLength);
+        return getVarIntSize(index) + getVarIntSize(runLength);
+    }
+
+    private static int getVarIntSize(final int value)
+    {
+        for (int size = 1; size < 5; size++)
+        {
+            if ((value & (-1 << (size * 7))) == 0)
+                return size;
+        }
+        return 5;
+    }
+
+    /**
+     * Reads palette indices which were written by {@link #encode(PackedLongArray, int, FriendlyByteBuf)}.
+     *
+     * @param buffer The buffer to read from.
+     * @param sideLength The amount of entries on each side of the block, needs to be a power of two.
+     * @param bitsPerEntry The width of the entries of the returned array.
+     * @return The palette indices, in the {@code x * size * size + y * size + z} order of the packed storages.
+     * @throws IllegalArgumentException when the runs do not exactly cover the block, or contain an index which does not fit the width.
+     */
+    public static PackedLongArray decode(final FriendlyByteBuf buffer, final int sideLength, final int bitsPerEntry)
+    {
+        final int[] order = getMortonOrder(sideLength);
+        if (!buffer.readBoolean())
+        {
+            final long[] words = new long[PackedLongArray.getRequiredWordCount(order.length, bitsPerEntry)];
+            for (int i = 0; i < words.length; i++)
+            {
+                words[i] = buffer.readLong();
+            }
+            return PackedLongArray.fromWords(order.length, bitsPerEntry, words);
+        }
+
+        final PackedLongArray indices = new PackedLongArray(order.length, bitsPerEntry);
+        final long maxIndex = (1L << bitsPerEntry) - 1;
+
+        int position = 0;
+        while (position < order.length)
+        {
+            final int index = buffer.readVarInt();
+            final int runLength = buffer.readVarInt();
+            if (index < 0 || index > maxIndex)
+                throw new IllegalArgumentException("The palette index %d does not fit into %d bits".formatted(index, bitsPerEntry));
+            if (runLength <= 0 || runLength > order.length - position)
+                throw new IllegalArgumentException("The run of length %d at entry %d exceeds the %d entries of the block".formatted(runLength, position, order.length));
+
+            //The array starts out zeroed, so runs of the first palette entry need no writes at all.
+            if (index != 0)
+            {
+                for (int i = position; i < position + runLength; i++)
+                {
+                    indices.set(order[i], index);
+                }
+            }
+            position += runLength;
+        }
+
+        return indices;
+    }
+
+    private static int[] getMortonOrder(final int sideLength)
+    {
+        final int sideBits = Integer.numberOfTrailingZeros(sideLength);
+        if (sideLength <= 0 || Integer.bitCount(sideLength) != 1 || sideBits >= MORTON_ORDERS.length)
+            throw new IllegalArgumentException("The side length needs to be a power of two, up to %d, got: %d".formatted(1 << (MORTON_ORDERS.length - 1), sideLength));
+
+        return MORTON_ORDERS[sideBits];
+    }
+
+    private static int[] createMortonOrder(final int sideBits)
+    {
+        final int sideLength = 1 << sideBits;
+        final int[] order = new int[sideLength * sideLength * sideLength];
+        for (int mortonIndex = 0; mortonIndex < order.length; mortonIndex++)
+        {
+            int x = 0;
+            int y = 0;
+            int z = 0;
+            for (int bit = 0; bit < sideBits; bit++)
+            {
+                z |= ((mortonIndex >>> (3 * bit)) & 1) << bit;
+                y |= ((mortonIndex >>> (3 * bit + 1)) & 1) << bit;
+                x |= ((mortonIndex >>> (3 * bit + 2)) & 1) << bit;
+            }
+
+            order[mortonIndex] = x * sideLength * sideLength + y * sideLength + z;
+        }
+
+        return order;
+    }
+}
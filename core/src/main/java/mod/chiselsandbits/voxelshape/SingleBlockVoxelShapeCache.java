@@ -31,7 +31,7 @@ public class SingleBlockVoxelShapeCache {
         final VoxelShape shape = IVoxelShapeManager.getInstance().get(blockEntity, CollisionType.COLLIDEABLE_ONLY);
 
         if (type.canBeEmptyWithJustFluids() && shape.isEmpty()) {
-            final boolean justFluids = blockEntity.stream().allMatch(stateEntry -> stateEntry.getBlockInformation().isAir() || !stateEntry.getBlockInformation().getBlockState().getFluidState().isEmpty());
+            final boolean justFluids = blockEntity.getStatistics().getStateCounts().keySet().stream().allMatch(blockInformation -> blockInformation.isAir() || !blockInformation.getBlockState().getFluidState().isEmpty());
             return justFluids ? shape : Shapes.block();
         }
 
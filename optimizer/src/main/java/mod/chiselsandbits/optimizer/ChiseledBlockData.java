@@ -0,0 +1,526 @@
+package mod.chiselsandbits.optimizer;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.math.LongMath;
+import io.netty.buffer.Unpooled;
+import mod.chiselsandbits.api.axissize.CollisionType;
+import mod.chiselsandbits.api.multistate.StateEntrySize;
+import mod.chiselsandbits.api.util.constants.NbtConstants;
+import mod.chiselsandbits.blockinformation.BlockInformationTable;
+import mod.chiselsandbits.utils.LZ4DataCompressionUtils;
+import mod.chiselsandbits.utils.PackedLongArray;
+import mod.chiselsandbits.utils.PaletteRunLengthCodec;
+import net.minecraft.nbt.CompoundTag;
+import net.minecraft.nbt.ListTag;
+import net.minecraft.nbt.Tag;
+import net.minecraft.network.FriendlyByteBuf;
+
+import java.io.IOException;
+import java.math.RoundingMode;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+/**
+ * The stored data of a single chiseled block, kept entirely in its serialized form.
+ * <p>
+ * Block information is never resolved, every palette and statistics entry stays the spec it was stored as. This allows the data
+ * to be rewritten without a running game, and without the mods whose blocks it contains.
+ */
+final class ChiseledBlockData
+{
+    /**
+     * The version of the LZ4 compressed NBT format, which was written before the binary format existed.
+     */
+    static final int LZ4_VERSION        = 0;
+    /**
+     * The version of the binary format, which stores the palette indices as packed words.
+     */
+    static final int BINARY_VERSION     = 1;
+    /**
+     * The version of the binary format which stores the palette indices as runs, which is the newest format the game writes.
+     */
+    static final int RUN_LENGTH_VERSION = 2;
+
+    private final StateEntrySize           size;
+    private final List<CompoundTag>        palette;
+    private final PackedLongArray          data;
+    private final CompoundTag              primarySpec;
+    private final List<StateCount>         stateCounts;
+    private final List<ColumnData>         columns;
+    private final int                      totalBlockCount;
+    private final int                      totalShouldCheckWeakPowerCount;
+    private final int                      totalLightLevel;
+    private final int                      totalLightBlockLevel;
+    private final Map<Integer, BitSet>     collisionData;
+    private final boolean                  canBeFlooded;
+    private final boolean                  emitsLightBasedOnFullBlock;
+
+    private ChiseledBlockData(
+      final StateEntrySize size,
+      final List<CompoundTag> palette,
+      final PackedLongArray data,
+      final CompoundTag primarySpec,
+      final List<StateCount> stateCounts,
+      final List<ColumnData> columns,
+      final int totalBlockCount,
+      final int totalShouldCheckWeakPowerCount,
+      final int totalLightLevel,
+      final int totalLightBlockLevel,
+      final Map<Integer, BitSet> collisionData,
+      final boolean canBeFlooded,
+      final boolean emitsLightBasedOnFullBlock)
+    {
+        this.size = size;
+        this.palette = palette;
+        this.data = data;
+        this.primarySpec = primarySpec;
+        this.stateCounts = stateCounts;
+        this.columns = columns;
+        this.totalBlockCount = totalBlockCount;
+        this.totalShouldCheckWeakPowerCount = totalShouldCheckWeakPowerCount;
+        this.totalLightLevel = totalLightLevel;
+        this.totalLightBlockLevel = totalLightBlockLevel;
+        this.collisionData = collisionData;
+        this.canBeFlooded = canBeFlooded;
+        this.emitsLightBasedOnFullBlock = emitsLightBasedOnFullBlock;
+    }
+
+    /**
+     * Reads the data of a chiseled block entity, in any version the game can load.
+     *
+     * @param tag The block entity tag.
+     * @param size The size of the entries, as configured for the world.
+     * @return The data, or an empty optional if the stored statistics are incomplete and need to be recalculated by the game.
+     * @throws IllegalArgumentException when the data is of an unknown version or can not be read.
+     */
+    static Optional<ChiseledBlockData> read(final CompoundTag tag, final StateEntrySize size)
+    {
+        final int version = tag.contains(NbtConstants.VERSION) ? tag.getInt(NbtConstants.VERSION) : LZ4_VERSION;
+        final CompoundTag payload = tag.getCompound(NbtConstants.DATA);
+        return switch (version)
+        {
+            case LZ4_VERSION -> readLZ4(payload, size);
+            case BINARY_VERSION -> Optional.of(readBinary(payload, size, false));
+            case RUN_LENGTH_VERSION -> Optional.of(readBinary(payload, size, true));
+            default -> throw new IllegalArgumentException("The chiseled block data is of the unknown version %d".formatted(version));
+        };
+    }
+
+    /**
+     * Indicates if the given block entity tag is already stored the way {@link #writeInto(CompoundTag)} would store it.
+     * This says nothing about the content, which might still be optimizable.
+     *
+     * @param tag The block entity tag.
+     * @return True when the tag is in the newest, compressed format and carries a summary.
+     */
+    static boolean isInNewestFormat(final CompoundTag tag)
+    {
+        return tag.getInt(NbtConstants.VERSION) == RUN_LENGTH_VERSION
+                 && tag.getCompound(NbtConstants.DATA).getBoolean(NbtConstants.COMPRESSED)
+                 && tag.contains(NbtConstants.SUMMARY, Tag.TAG_COMPOUND);
+    }
+
+    private static Optional<ChiseledBlockData> readLZ4(final CompoundTag payload, final StateEntrySize size)
+    {
+        //Older versions stored the compound as is, so those are read the same way the game does.
+        final CompoundTag content;
+        if (!payload.contains(NbtConstants.COMPRESSED) || !payload.contains(NbtConstants.DATA))
+            content = payload;
+        else if (!payload.getBoolean(NbtConstants.COMPRESSED))
+            content = payload.getCompound(NbtConstants.DATA);
+        else
+            content = LZ4DataCompressionUtils.decompress(payload, Function.identity());
+
+        final CompoundTag storageNbt = content.getCompound(NbtConstants.CHISELED_DATA);
+        final CompoundTag statisticsNbt = content.getCompound(NbtConstants.STATISTICS);
+        if (!storageNbt.contains(NbtConstants.PALETTE, Tag.TAG_LIST) || !storageNbt.contains(NbtConstants.DATA))
+            throw new IllegalArgumentException("The chiseled block data does not contain a storage");
+
+        //These are the same conditions which make the game recalculate the statistics on load.
+        if (!statisticsNbt.contains(NbtConstants.COLUMN_STATISTICS, Tag.TAG_COMPOUND)
+              || !statisticsNbt.contains(NbtConstants.TOTAL_LIGHT_BLOCK_LEVEL)
+              || !statisticsNbt.contains(NbtConstants.COLLISION_DATA))
+            return Optional.empty();
+
+        final List<CompoundTag> palette = Lists.newArrayList();
+        final ListTag paletteNbt = storageNbt.getList(NbtConstants.PALETTE, Tag.TAG_COMPOUND);
+        for (int i = 0; i < paletteNbt.size(); i++)
+        {
+            palette.add(paletteNbt.getCompound(i));
+        }
+
+        final PackedLongArray data = storageNbt.getTagType(NbtConstants.DATA) == Tag.TAG_BYTE_ARRAY ?
+          PackedLongArray.fromBytes(size.getBitsPerBlock(), getEntryWidth(palette.size()), storageNbt.getByteArray(NbtConstants.DATA)) :
+          PackedLongArray.fromWords(size.getBitsPerBlock(), getEntryWidth(palette.size()), storageNbt.getLongArray(NbtConstants.DATA));
+
+        final List<StateCount> stateCounts = Lists.newArrayList();
+        final ListTag blockStateList = statisticsNbt.getList(NbtConstants.BLOCK_STATES, Tag.TAG_COMPOUND);
+        for (int i = 0; i < blockStateList.size(); i++)
+        {
+            final CompoundTag stateNbt = blockStateList.getCompound(i);
+            stateCounts.add(new StateCount(stateNbt.getCompound(NbtConstants.BLOCK_INFORMATION), stateNbt.getInt(NbtConstants.COUNT)));
+        }
+
+        final List<ColumnData> columns = Lists.newArrayList();
+        final CompoundTag columnStatisticsTableNbt = statisticsNbt.getCompound(NbtConstants.COLUMN_STATISTICS);
+        for (final String rowKey : columnStatisticsTableNbt.getAllKeys())
+        {
+            final CompoundTag rowNbt = columnStatisticsTableNbt.getCompound(rowKey);
+            for (final String columnKey : rowNbt.getAllKeys())
+            {
+                final CompoundTag columnNbt = rowNbt.getCompound(columnKey);
+                columns.add(new ColumnData(
+                  Integer.parseInt(rowKey),
+                  Integer.parseInt(columnKey),
+                  BitSet.valueOf(columnNbt.getByteArray(NbtConstants.SKYLIGHT_BLOCKING_BITS)),
+                  BitSet.valueOf(columnNbt.getByteArray(NbtConstants.NONE_AIR_BITS)),
+                  columnNbt.getShort(NbtConstants.HIGHEST_BIT),
+                  columnNbt.getFloat(NbtConstants.HIGHEST_BIT_FRICTION),
+                  columnNbt.getBoolean(NbtConstants.CAN_PROPAGATE_SKYLIGHT_DOWN),
+                  columnNbt.getBoolean(NbtConstants.LOWEST_BIT_CAN_SUSTAIN_GRASS)
+                ));
+            }
+        }
+
+        final Map<Integer, BitSet> collisionData = Maps.newLinkedHashMap();
+        final CompoundTag collisionDataNbt = statisticsNbt.getCompound(NbtConstants.COLLISION_DATA);
+        for (final String collisionTypeName : collisionDataNbt.getAllKeys())
+        {
+            collisionData.put(CollisionType.valueOf(collisionTypeName).ordinal(), BitSet.valueOf(collisionDataNbt.getLongArray(collisionTypeName)));
+        }
+
+        return Optional.of(new ChiseledBlockData(
+          size,
+          palette,
+          data,
+          statisticsNbt.getCompound(NbtConstants.PRIMARY_BLOCK_INFORMATION),
+          stateCounts,
+          columns,
+          statisticsNbt.getInt(NbtConstants.TOTAL_BLOCK_COUNT),
+          statisticsNbt.getInt(NbtConstants.TOTAL_SHOULD_CHECK_WEAK_POWER_COUNT),
+          statisticsNbt.getInt(NbtConstants.TOTAL_LIGHT_LEVEL),
+          statisticsNbt.getInt(NbtConstants.TOTAL_LIGHT_BLOCK_LEVEL),
+          collisionData,
+          !statisticsNbt.contains(NbtConstants.CAN_BE_FLOODED) || statisticsNbt.getBoolean(NbtConstants.CAN_BE_FLOODED),
+          statisticsNbt.contains(NbtConstants.EMITS_LIGHT_BASED_ON_FULL_BLOCK) && statisticsNbt.getBoolean(NbtConstants.EMITS_LIGHT_BASED_ON_FULL_BLOCK)
+        ));
+    }
+
+    private static ChiseledBlockData readBinary(final CompoundTag payload, final StateEntrySize size, final boolean isRunLengthEncoded)
+    {
+        byte[] bytes = payload.getByteArray(NbtConstants.DATA);
+        if (payload.getBoolean(NbtConstants.COMPRESSED))
+        {
+            try
+            {
+                bytes = LZ4DataCompressionUtils.decompress(bytes);
+            }
+            catch (IOException e)
+            {
+                throw new IllegalArgumentException("Failed to decompress the chiseled block data", e);
+            }
+        }
+
+        final FriendlyByteBuf buffer = new FriendlyByteBuf(Unpooled.wrappedBuffer(bytes));
+        final List<CompoundTag> table = BlockInformationTable.readSpecs(buffer);
+
+        final int paletteSize = buffer.readVarInt();
+        final List<CompoundTag> palette = Lists.newArrayListWithCapacity(paletteSize);
+        for (int i = 0; i < paletteSize; i++)
+        {
+            palette.add(table.get(buffer.readVarInt()));
+        }
+
+        final PackedLongArray data = isRunLengthEncoded ?
+          PaletteRunLengthCodec.decode(buffer, size.getBitsPerBlockSide(), getEntryWidth(palette.size())) :
+          PackedLongArray.fromWords(size.getBitsPerBlock(), getEntryWidth(palette.size()), buffer.readLongArray());
+
+        final CompoundTag primarySpec = table.get(buffer.readVarInt());
+
+        final int stateCount = buffer.readVarInt();
+        final List<StateCount> stateCounts = Lists.newArrayListWithCapacity(stateCount);
+        for (int i = 0; i < stateCount; i++)
+        {
+            stateCounts.add(new StateCount(table.get(buffer.readVarInt()), buffer.readVarInt()));
+        }
+
+        final int columnCount = buffer.readVarInt();
+        final List<ColumnData> columns = Lists.newArrayListWithCapacity(columnCount);
+        for (int i = 0; i < columnCount; i++)
+        {
+            columns.add(new ColumnData(
+              buffer.readVarInt(),
+              buffer.readVarInt(),
+              buffer.readBitSet(),
+              buffer.readBitSet(),
+              buffer.readShort(),
+              buffer.readFloat(),
+              buffer.readBoolean(),
+              buffer.readBoolean()
+            ));
+        }
+
+        final int totalBlockCount = buffer.readVarInt();
+        final int totalShouldCheckWeakPowerCount = buffer.readVarInt();
+        final int totalLightLevel = buffer.readVarInt();
+        final int totalLightBlockLevel = buffer.readVarInt();
+
+        final int collisionTypeCount = buffer.readVarInt();
+        final Map<Integer, BitSet> collisionData = Maps.newLinkedHashMap();
+        for (int i = 0; i < collisionTypeCount; i++)
+        {
+            collisionData.put(buffer.readVarInt(), BitSet.valueOf(buffer.readLongArray()));
+        }
+
+        final boolean canBeFlooded = buffer.readBoolean();
+        final boolean emitsLightBasedOnFullBlock = buffer.readBoolean();
+
+        return new ChiseledBlockData(
+          size,
+          palette,
+          data,
+          primarySpec,
+          stateCounts,
+          columns,
+          totalBlockCount,
+          totalShouldCheckWeakPowerCount,
+          totalLightLevel,
+          totalLightBlockLevel,
+          collisionData,
+          canBeFlooded,
+          emitsLightBasedOnFullBlock
+        );
+    }
+
+    private static int getEntryWidth(final int paletteSize)
+    {
+        if (paletteSize == 0)
+            throw new IllegalArgumentException("The chiseled block data has an empty palette");
+
+        return LongMath.log2(paletteSize, RoundingMode.CEILING);
+    }
+
+    public int getPaletteSize()
+    {
+        return palette.size();
+    }
+
+    /**
+     * Indicates if all entries of the block refer to the same palette entry.
+     *
+     * @return True when the block is uniform.
+     */
+    public boolean isUniform()
+    {
+        return palette.size() == 1;
+    }
+
+    /**
+     * Creates a copy of this data, which has no unused or duplicate palette entries.
+     * If all entries of the block are the same, the palette is reduced to a single entry, which does not need any data words.
+     * The statistics are kept as they are, they do not depend on the layout of the palette.
+     *
+     * @return The compacted data.
+     * @throws IllegalArgumentException when the data refers to palette entries which do not exist.
+     */
+    public ChiseledBlockData compact()
+    {
+        final int[] remapping = new int[palette.size()];
+        Arrays.fill(remapping, -1);
+
+        final List<CompoundTag> compactedPalette = Lists.newArrayList();
+        final Map<CompoundTag, Integer> compactedIndices = Maps.newHashMap();
+        for (int i = 0; i < data.getEntryCount(); i++)
+        {
+            final int index = data.get(i);
+            if (index >= palette.size())
+                throw new IllegalArgumentException("The chiseled block data refers to the palette entry %d, but the palette only has %d entries".formatted(index, palette.size()));
+
+            if (remapping[index] < 0)
+            {
+                remapping[index] = compactedIndices.computeIfAbsent(palette.get(index), spec -> {
+                    compactedPalette.add(spec);
+                    return compactedPalette.size() - 1;
+                });
+            }
+        }
+
+        final PackedLongArray compactedData = new PackedLongArray(data.getEntryCount(), getEntryWidth(compactedPalette.size()));
+        if (compactedPalette.size() > 1)
+        {
+            for (int i = 0; i < data.getEntryCount(); i++)
+            {
+                compactedData.set(i, remapping[data.get(i)]);
+            }
+        }
+
+        return new ChiseledBlockData(
+          size,
+          compactedPalette,
+          compactedData,
+          primarySpec,
+          stateCounts,
+          columns,
+          totalBlockCount,
+          totalShouldCheckWeakPowerCount,
+          totalLightLevel,
+          totalLightBlockLevel,
+          collisionData,
+          canBeFlooded,
+          emitsLightBasedOnFullBlock
+        );
+    }
+
+    /**
+     * Writes this data into the given block entity tag, in the run length encoded binary format, together with the summary which
+     * allows the game to decode the block lazily.
+     * This is the same layout the newest storage handler of the chiseled block entity writes.
+     *
+     * @param tag The block entity tag to write into.
+     */
+    public void writeInto(final CompoundTag tag)
+    {
+        final BlockInformationTable table = new BlockInformationTable();
+        final FriendlyByteBuf body = new FriendlyByteBuf(Unpooled.buffer());
+
+        body.writeVarInt(palette.size());
+        for (final CompoundTag spec : palette)
+        {
+            body.writeVarInt(table.getIndex(spec));
+        }
+        PaletteRunLengthCodec.encode(data, size.getBitsPerBlockSide(), body);
+        writeStatistics(body, (buffer, spec) -> buffer.writeVarInt(table.getIndex(spec)));
+
+        //The table is only complete once everything else is written, but it needs to be read first.
+        final FriendlyByteBuf payload = new FriendlyByteBuf(Unpooled.buffer());
+        table.serializeInto(payload);
+        payload.writeBytes(body);
+
+        final byte[] uncompressedData = new byte[payload.readableBytes()];
+        payload.readBytes(uncompressedData);
+
+        final CompoundTag dataNbt = new CompoundTag();
+        try
+        {
+            dataNbt.putByteArray(NbtConstants.DATA, LZ4DataCompressionUtils.compress(uncompressedData));
+            dataNbt.putBoolean(NbtConstants.COMPRESSED, true);
+        }
+        catch (IOException e)
+        {
+            throw new IllegalStateException("Failed to compress the chiseled block data", e);
+        }
+
+        final CompoundTag summary = new CompoundTag();
+        summary.put(NbtConstants.PRIMARY_BLOCK_INFORMATION, primarySpec.copy());
+        summary.putInt(NbtConstants.TOTAL_BLOCK_COUNT, totalBlockCount);
+        summary.putInt(NbtConstants.TOTAL_SHOULD_CHECK_WEAK_POWER_COUNT, totalShouldCheckWeakPowerCount);
+        summary.putInt(NbtConstants.TOTAL_LIGHT_LEVEL, totalLightLevel);
+        summary.putInt(NbtConstants.TOTAL_LIGHT_BLOCK_LEVEL, totalLightBlockLevel);
+        summary.putBoolean(NbtConstants.CAN_BE_FLOODED, canBeFlooded);
+        summary.putBoolean(NbtConstants.EMITS_LIGHT_BASED_ON_FULL_BLOCK, emitsLightBasedOnFullBlock);
+
+        tag.putInt(NbtConstants.VERSION, RUN_LENGTH_VERSION);
+        tag.put(NbtConstants.DATA, dataNbt);
+        tag.put(NbtConstants.SUMMARY, summary);
+    }
+
+    private void writeStatistics(final FriendlyByteBuf buffer, final BiConsumer<FriendlyByteBuf, CompoundTag> specWriter)
+    {
+        specWriter.accept(buffer, primarySpec);
+
+        buffer.writeVarInt(stateCounts.size());
+        for (final StateCount stateCount : stateCounts)
+        {
+            specWriter.accept(buffer, stateCount.spec());
+            buffer.writeVarInt(stateCount.count());
+        }
+
+        buffer.writeVarInt(columns.size());
+        for (final ColumnData column : columns)
+        {
+            buffer.writeVarInt(column.row());
+            buffer.writeVarInt(column.column());
+            buffer.writeBitSet(column.skylightBlockingBits());
+            buffer.writeBitSet(column.noneAirBits());
+            buffer.writeShort(column.highestBit());
+            buffer.writeFloat(column.highestBitFriction());
+            buffer.writeBoolean(column.canPropagateSkylightDown());
+            buffer.writeBoolean(column.canLowestBitSustainGrass());
+        }
+
+        buffer.writeVarInt(totalBlockCount);
+        buffer.writeVarInt(totalShouldCheckWeakPowerCount);
+        buffer.writeVarInt(totalLightLevel);
+        buffer.writeVarInt(totalLightBlockLevel);
+
+        buffer.writeVarInt(collisionData.size());
+        collisionData.forEach((ordinal, bitSet) -> {
+            buffer.writeVarInt(ordinal);
+            buffer.writeLongArray(bitSet.toLongArray());
+        });
+
+        buffer.writeBoolean(canBeFlooded);
+        buffer.writeBoolean(emitsLightBasedOnFullBlock);
+    }
+
+    /**
+     * Checks if the given data describes the same block as this data.
+     * Every entry needs to refer to an equal spec, and the statistics need to be identical.
+     * The layout of the palettes is not compared.
+     *
+     * @param other The data to compare with.
+     * @return True when both describe the same block.
+     */
+    public boolean describesSameBlockAs(final ChiseledBlockData other)
+    {
+        if (data.getEntryCount() != other.data.getEntryCount())
+            return false;
+
+        final int[] mapping = new int[palette.size()];
+        Arrays.fill(mapping, -1);
+        for (int i = 0; i < data.getEntryCount(); i++)
+        {
+            final int index = data.get(i);
+            final int otherIndex = other.data.get(i);
+            //Most entries repeat a pairing which was already compared, so only new pairings compare the specs.
+            if (mapping[index] == otherIndex)
+                continue;
+
+            if (!palette.get(index).equals(other.palette.get(otherIndex)))
+                return false;
+
+            mapping[index] = otherIndex;
+        }
+
+        return Arrays.equals(getStatisticsBytes(), other.getStatisticsBytes());
+    }
+
+    private byte[] getStatisticsBytes()
+    {
+        final FriendlyByteBuf buffer = new FriendlyByteBuf(Unpooled.buffer());
+        writeStatistics(buffer, FriendlyByteBuf::writeNbt);
+
+        final byte[] bytes = new byte[buffer.readableBytes()];
+        buffer.readBytes(bytes);
+        return bytes;
+    }
+
+    private record StateCount(CompoundTag spec, int count) {}
+
+    private record ColumnData(
+      int row,
+      int column,
+      BitSet skylightBlockingBits,
+      BitSet noneAirBits,
+      short highestBit,
+      float highestBitFriction,
+      boolean canPropagateSkylightDown,
+      boolean canLowestBitSustainGrass
+    ) {}
+}
@@ -0,0 +1,57 @@
+package mod.chiselsandbits.optimizer;
+
+import java.io.PrintStream;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Collects the results of an optimizer run. All counters can be updated from any thread.
+ */
+final class OptimizationReport
+{
+    final LongAdder regionFiles           = new LongAdder();
+    final LongAdder failedRegionFiles     = new LongAdder();
+    final LongAdder regionBytesBefore     = new LongAdder();
+    final LongAdder regionBytesAfter      = new LongAdder();
+    final LongAdder chunks                = new LongAdder();
+    final LongAdder rewrittenChunks       = new LongAdder();
+    final LongAdder blocks                = new LongAdder();
+    final LongAdder rewrittenBlocks       = new LongAdder();
+    final LongAdder upgradedBlocks        = new LongAdder();
+    final LongAdder collapsedBlocks       = new LongAdder();
+    final LongAdder droppedPaletteEntries = new LongAdder();
+    final LongAdder recalculationBlocks   = new LongAdder();
+    final LongAdder failedBlocks          = new LongAdder();
+    final LongAdder blockBytesBefore      = new LongAdder();
+    final LongAdder blockBytesAfter       = new LongAdder();
+
+    void print(final PrintStream out, final boolean dryRun)
+    {
+        out.printf("Region files: %d processed, %d failed%n", regionFiles.sum(), failedRegionFiles.sum());
+        out.printf("Chunks: %d read, %d %s%n", chunks.sum(), rewrittenChunks.sum(), dryRun ? "would be rewritten" : "rewritten");
+        out.printf("Chiseled blocks: %d found, %d %s%n", blocks.sum(), rewrittenBlocks.sum(), dryRun ? "would be rewritten" : "rewritten");
+        out.printf("  %d upgraded from an older format%n", upgradedBlocks.sum());
+        out.printf("  %d collapsed into uniform blocks%n", collapsedBlocks.sum());
+        out.printf("  %d unused or duplicate palette entries dropped%n", droppedPaletteEntries.sum());
+        out.printf("  %d skipped, their statistics need to be recalculated by the game%n", recalculationBlocks.sum());
+        out.printf("  %d skipped, their data could not be read or verified%n", failedBlocks.sum());
+
+        final long before = blockBytesBefore.sum();
+        final long after = blockBytesAfter.sum();
+        out.printf("Chiseled block data of rewritten blocks: %s -> %s, %s saved%n", formatBytes(before), formatBytes(after), formatBytes(before - after));
+
+        if (!dryRun)
+        {
+            //Region files reuse freed sectors instead of shrinking, so this is mostly space which new chunks can use.
+            out.printf("Region files on disk: %s -> %s%n", formatBytes(regionBytesBefore.sum()), formatBytes(regionBytesAfter.sum()));
+        }
+    }
+
+    private static String formatBytes(final long bytes)
+    {
+        if (Math.abs(bytes) < 1024)
+            return bytes + " B";
+        if (Math.abs(bytes) < 1024 * 1024)
+            return "%.1f KiB".formatted(bytes / 1024d);
+        return "%.1f MiB".formatted(bytes / (1024d * 1024d));
+    }
+}
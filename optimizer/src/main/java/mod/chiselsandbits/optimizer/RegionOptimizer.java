@@ -0,0 +1,330 @@
+package mod.chiselsandbits.optimizer;
+
+import com.google.common.collect.Lists;
+import mod.chiselsandbits.api.multistate.StateEntrySize;
+import net.minecraft.SharedConstants;
+import net.minecraft.nbt.CompoundTag;
+import net.minecraft.nbt.ListTag;
+import net.minecraft.nbt.NbtIo;
+import net.minecraft.nbt.Tag;
+import net.minecraft.server.Bootstrap;
+import net.minecraft.world.level.ChunkPos;
+import net.minecraft.world.level.chunk.storage.RegionFile;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Rewrites all chiseled blocks of a stopped world into the newest storage format.
+ * <p>
+ * While doing so unused and duplicate palette entries are dropped and blocks which only consist of a single state are collapsed,
+ * which the game otherwise only does once a block is edited. Every rewritten block is read back and compared with the original
+ * before it is written, blocks which do not compare equal are left untouched.
+ * <p>
+ * The tool works on the stored specs of the blocks and never resolves them, so it does not need the mods whose blocks are chiseled.
+ * Region files are processed in parallel, each region file by a single thread.
+ * <p>
+ * Usage: {@code <world directory> [--dry-run] [--threads <count>] [--bit-size <bits per block side>]}
+ * <ul>
+ *     <li>{@code --dry-run} reports what would be rewritten, without writing anything.</li>
+ *     <li>{@code --threads} sets the amount of region files which are processed at the same time, defaults to the amount of cores.</li>
+ *     <li>{@code --bit-size} needs to match the bit size the world was played with, defaults to 16.</li>
+ * </ul>
+ */
+public final class RegionOptimizer
+{
+    private static final String  CHISELED_BLOCK_ENTITY_ID = "chiselsandbits:chiseled_block";
+    private static final String  BLOCK_ENTITIES           = "block_entities";
+    private static final String  ID                       = "id";
+    private static final Pattern REGION_FILE_NAME         = Pattern.compile("r\\.(-?\\d+)\\.(-?\\d+)\\.mca");
+    private static final int     REGION_SIZE              = 32;
+
+    private final StateEntrySize     size;
+    private final boolean            dryRun;
+    private final OptimizationReport report = new OptimizationReport();
+
+    private RegionOptimizer(final StateEntrySize size, final boolean dryRun)
+    {
+        this.size = size;
+        this.dryRun = dryRun;
+    }
+
+    public static void main(final String[] args) throws IOException, InterruptedException
+    {
+        Path world = null;
+        boolean dryRun = false;
+        int threads = Runtime.getRuntime().availableProcessors();
+        int bitSize = StateEntrySize.ONE_SIXTEENTH.getBitsPerBlockSide();
+        for (int i = 0; i < args.length; i++)
+        {
+            switch (args[i])
+            {
+                case "--dry-run" -> dryRun = true;
+                case "--threads" -> threads = Integer.parseInt(args[++i]);
+                case "--bit-size" -> bitSize = Integer.parseInt(args[++i]);
+                default -> world = Paths.get(args[i]);
+            }
+        }
+
+        if (world == null || !Files.isDirectory(world))
+        {
+            System.err.println("Usage: <world directory> [--dry-run] [--threads <count>] [--bit-size <bits per block side>]");
+            System.exit(1);
+            return;
+        }
+
+        final int requestedBitSize = bitSize;
+        final Optional<StateEntrySize> size = Arrays.stream(StateEntrySize.values())
+          .filter(candidate -> candidate.getBitsPerBlockSide() == requestedBitSize)
+          .findFirst();
+        if (size.isEmpty())
+        {
+            System.err.printf("The bit size %d is not supported.%n", bitSize);
+            System.exit(1);
+            return;
+        }
+
+        if (isLocked(world))
+        {
+            System.err.println("The world is in use. Stop the game or server before optimizing it.");
+            System.exit(1);
+            return;
+        }
+
+        //The collision types of the statistics refer to vanilla blocks, nothing else of the game is needed.
+        SharedConstants.tryDetectVersion();
+        Bootstrap.bootStrap();
+
+        final List<Path> regionFiles = findRegionFiles(world);
+        System.out.printf("Optimizing %d region files with %d threads%s.%n", regionFiles.size(), threads, dryRun ? " (dry run)" : "");
+
+        final RegionOptimizer optimizer = new RegionOptimizer(size.get(), dryRun);
+        final ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try
+        {
+            final List<Future<?>> futures = Lists.newArrayList();
+            for (final Path regionFile : regionFiles)
+            {
+                futures.add(executor.submit(() -> optimizer.optimizeRegionFile(regionFile)));
+            }
+
+            for (final Future<?> future : futures)
+            {
+                try
+                {
+                    future.get();
+                }
+                catch (ExecutionException e)
+                {
+                    System.err.println("Unexpected failure while optimizing a region file: " + e.getCause());
+                }
+            }
+        }
+        finally
+        {
+            executor.shutdown();
+        }
+
+        optimizer.report.print(System.out, dryRun);
+    }
+
+    private static boolean isLocked(final Path world) throws IOException
+    {
+        final Path lockFile = world.resolve("session.lock");
+        if (!Files.exists(lockFile))
+            return false;
+
+        try (FileChannel channel = FileChannel.open(lockFile, StandardOpenOption.WRITE); FileLock lock = channel.tryLock())
+        {
+            return lock == null;
+        }
+    }
+
+    private static List<Path> findRegionFiles(final Path world) throws IOException
+    {
+        //Covers the overworld, the legacy nether and end folders and all dimensions below the dimensions folder.
+        final List<Path> regionFiles = Lists.newArrayList();
+        try (Stream<Path> paths = Files.walk(world, 5))
+        {
+            paths.filter(path -> path.getParent() != null && path.getParent().getFileName().toString().equals("region"))
+              .filter(path -> REGION_FILE_NAME.matcher(path.getFileName().toString()).matches())
+              .forEach(regionFiles::add);
+        }
+        return regionFiles;
+    }
+
+    private void optimizeRegionFile(final Path regionFile)
+    {
+        final Matcher matcher = REGION_FILE_NAME.matcher(regionFile.getFileName().toString());
+        if (!matcher.matches())
+            return;
+
+        final int regionX = Integer.parseInt(matcher.group(1));
+        final int regionZ = Integer.parseInt(matcher.group(2));
+
+        try
+        {
+            report.regionBytesBefore.add(Files.size(regionFile));
+            try (RegionFile region = new RegionFile(regionFile, regionFile.getParent(), false))
+            {
+                for (int x = 0; x < REGION_SIZE; x++)
+                {
+                    for (int z = 0; z < REGION_SIZE; z++)
+                    {
+                        //The absolute position is needed, oversized chunks are stored in external files named after it.
+                        final ChunkPos chunkPos = new ChunkPos(regionX * REGION_SIZE + x, regionZ * REGION_SIZE + z);
+                        if (region.doesChunkExist(chunkPos))
+                            optimizeChunk(region, chunkPos);
+                    }
+                }
+            }
+            report.regionBytesAfter.add(Files.size(regionFile));
+            report.regionFiles.increment();
+        }
+        catch (IOException | RuntimeException e)
+        {
+            report.failedRegionFiles.increment();
+            System.err.printf("Failed to optimize the region file %s: %s%n", regionFile, e);
+        }
+    }
+
+    private void optimizeChunk(final RegionFile region, final ChunkPos chunkPos) throws IOException
+    {
+        final CompoundTag chunk;
+        try (DataInputStream inputStream = region.getChunkDataInputStream(chunkPos))
+        {
+            if (inputStream == null)
+                return;
+
+            chunk = NbtIo.read(inputStream);
+        }
+
+        report.chunks.increment();
+
+        boolean changed = false;
+        final ListTag blockEntities = chunk.getList(BLOCK_ENTITIES, Tag.TAG_COMPOUND);
+        for (int i = 0; i < blockEntities.size(); i++)
+        {
+            final CompoundTag blockEntity = blockEntities.getCompound(i);
+            if (CHISELED_BLOCK_ENTITY_ID.equals(blockEntity.getString(ID)))
+                changed |= optimizeBlockEntity(chunkPos, blockEntity);
+        }
+
+        if (!changed)
+            return;
+
+        report.rewrittenChunks.increment();
+        if (dryRun)
+            return;
+
+        try (DataOutputStream outputStream = region.getChunkDataOutputStream(chunkPos))
+        {
+            NbtIo.write(chunk, outputStream);
+        }
+    }
+
+    /**
+     * Rewrites the given chiseled block entity tag in place, if that makes a difference.
+     *
+     * @return True when the tag was changed.
+     */
+    private boolean optimizeBlockEntity(final ChunkPos chunkPos, final CompoundTag blockEntity)
+    {
+        report.blocks.increment();
+
+        final ChiseledBlockData original;
+        final ChiseledBlockData compacted;
+        try
+        {
+            final Optional<ChiseledBlockData> data = ChiseledBlockData.read(blockEntity, size);
+            if (data.isEmpty())
+            {
+                report.recalculationBlocks.increment();
+                return false;
+            }
+
+            original = data.get();
+            compacted = original.compact();
+        }
+        catch (RuntimeException e)
+        {
+            report.failedBlocks.increment();
+            System.err.printf("Skipping the unreadable chiseled block at %s in chunk %s: %s%n", describePosition(blockEntity), chunkPos, e);
+            return false;
+        }
+
+        final boolean isUpgrade = !ChiseledBlockData.isInNewestFormat(blockEntity);
+        final boolean isCompacted = compacted.getPaletteSize() != original.getPaletteSize();
+        if (!isUpgrade && !isCompacted)
+            return false;
+
+        final CompoundTag optimized = blockEntity.copy();
+        compacted.writeInto(optimized);
+
+        //Everything which is written is read back first, a block which does not survive that is better left as it is.
+        try
+        {
+            final Optional<ChiseledBlockData> written = ChiseledBlockData.read(optimized, size);
+            if (written.isEmpty() || !original.describesSameBlockAs(written.get()))
+                throw new IllegalStateException("The rewritten data does not describe the same block");
+        }
+        catch (RuntimeException e)
+        {
+            report.failedBlocks.increment();
+            System.err.printf("Skipping the chiseled block at %s in chunk %s, it failed verification: %s%n", describePosition(blockEntity), chunkPos, e);
+            return false;
+        }
+
+        report.rewrittenBlocks.increment();
+        if (isUpgrade)
+            report.upgradedBlocks.increment();
+        if (compacted.isUniform() && !original.isUniform())
+            report.collapsedBlocks.increment();
+        report.droppedPaletteEntries.add(original.getPaletteSize() - compacted.getPaletteSize());
+        report.blockBytesBefore.add(getSerializedSize(blockEntity));
+        report.blockBytesAfter.add(getSerializedSize(optimized));
+
+        for (final String key : optimized.getAllKeys())
+        {
+            blockEntity.put(key, optimized.get(key));
+        }
+        return true;
+    }
+
+    private static String describePosition(final CompoundTag blockEntity)
+    {
+        return "%d, %d, %d".formatted(blockEntity.getInt("x"), blockEntity.getInt("y"), blockEntity.getInt("z"));
+    }
+
+    private static long getSerializedSize(final CompoundTag tag)
+    {
+        final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        try (DataOutputStream dataOutput = new DataOutputStream(outputStream))
+        {
+            NbtIo.write(tag, dataOutput);
+        }
+        catch (IOException e)
+        {
+            throw new IllegalStateException("Failed to measure the size of a tag", e);
+        }
+        return outputStream.size();
+    }
+}
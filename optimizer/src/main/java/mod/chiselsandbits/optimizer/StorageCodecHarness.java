@@ -0,0 +1,400 @@
+package mod.chiselsandbits.optimizer;
+
+import com.google.common.collect.Lists;
+import io.netty.buffer.Unpooled;
+import mod.chiselsandbits.utils.LZ4DataCompressionUtils;
+import mod.chiselsandbits.utils.PackedLongArray;
+import mod.chiselsandbits.utils.PaletteRunLengthCodec;
+import net.minecraft.network.FriendlyByteBuf;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Checks the packed storage primitives and the run length codec against naive models, and times them against the naive way of
+ * doing the same work.
+ * <p>
+ * The project has no test or benchmark setup, so this is a plain program which runs without a game: it fails with an exception
+ * on the first mismatch, and prints the timings once every check passed. The timings are averages over repeated runs after a
+ * warm up, good enough to compare approaches on the same machine, not to compare machines.
+ * <p>
+ * Usage: {@code [--iterations <count>] [--seed <seed>]}
+ * <ul>
+ *     <li>{@code --iterations} sets how often each timed operation is repeated, defaults to 2000.</li>
+ *     <li>{@code --seed} sets the seed of the random contents, defaults to a fixed seed so runs are repeatable.</li>
+ * </ul>
+ */
+public final class StorageCodecHarness
+{
+    private static final int SIDE_LENGTH  = 16;
+    private static final int ENTRY_COUNT  = SIDE_LENGTH * SIDE_LENGTH * SIDE_LENGTH;
+    private static final int WARMUP_RUNS  = 2000;
+
+    private final Random random;
+    private final int    iterations;
+
+    /**
+     * Keeps the results of timed operations reachable, so the JIT can not drop the work.
+     */
+    private long sink;
+
+    private StorageCodecHarness(final long seed, final int iterations)
+    {
+        this.random = new Random(seed);
+        this.iterations = iterations;
+    }
+
+    public static void main(final String[] args)
+    {
+        long seed = 0x43414E44L;
+        int iterations = 2000;
+        for (int i = 0; i < args.length; i++)
+        {
+            switch (args[i])
+            {
+                case "--iterations" -> iterations = Integer.parseInt(args[++i]);
+                case "--seed" -> seed = Long.parseLong(args[++i]);
+                default -> {
+                    System.err.println("Usage: [--iterations <count>] [--seed <seed>]");
+                    System.exit(1);
+                    return;
+                }
+            }
+        }
+
+        final StorageCodecHarness harness = new StorageCodecHarness(seed, iterations);
+        harness.verifyPackedLongArray();
+        harness.verifyRunLengthCodec();
+        System.out.println("All checks passed.");
+
+        harness.timeResize();
+        harness.timeRunLengthCodec();
+    }
+
+    private void verifyPackedLongArray()
+    {
+        //Odd entry counts make the last entry end in the middle of a word, which the word wise paths need to handle.
+        for (final int entryCount : new int[] {ENTRY_COUNT, ENTRY_COUNT - 1, 1000, 1})
+        {
+            for (int bitsPerEntry = 0; bitsPerEntry <= Integer.SIZE; bitsPerEntry++)
+            {
+                verifyPackedLongArray(entryCount, bitsPerEntry);
+            }
+        }
+    }
+
+    private void verifyPackedLongArray(final int entryCount, final int bitsPerEntry)
+    {
+        final String context = "%d entries of %d bits".formatted(entryCount, bitsPerEntry);
+        final int[] model = randomValues(entryCount, bitsPerEntry);
+        final PackedLongArray array = new PackedLongArray(entryCount, bitsPerEntry);
+        for (int i = 0; i < entryCount; i++)
+        {
+            array.set(i, model[i]);
+        }
+        check(array, model, "set, " + context);
+
+        final int rangeStart = random.nextInt(entryCount);
+        final int rangeLength = random.nextInt(entryCount - rangeStart + 1);
+        final int rangeValue = randomValue(bitsPerEntry);
+        array.fillRange(rangeStart, rangeLength, rangeValue);
+        Arrays.fill(model, rangeStart, rangeStart + rangeLength, rangeValue);
+        check(array, model, "fillRange, " + context);
+
+        int expectedCount = 0;
+        for (int i = rangeStart; i < rangeStart + rangeLength; i++)
+        {
+            if (model[i] == rangeValue)
+                expectedCount++;
+        }
+        checkEqual(expectedCount, array.countRange(rangeStart, rangeLength, rangeValue), "countRange, " + context);
+
+        final int replacedValue = model[random.nextInt(entryCount)];
+        final int replacement = randomValue(bitsPerEntry);
+        int expectedReplaced = 0;
+        for (int i = 0; i < entryCount; i++)
+        {
+            if (model[i] == replacedValue && replacedValue != replacement)
+            {
+                model[i] = replacement;
+                expectedReplaced++;
+            }
+        }
+        checkEqual(expectedReplaced, array.replace(replacedValue, replacement), "replace, " + context);
+        check(array, model, "replace, " + context);
+
+        final int[] sourceIndices = new int[entryCount];
+        for (int i = 0; i < entryCount; i++)
+        {
+            sourceIndices[i] = i;
+        }
+        for (int i = entryCount - 1; i > 0; i--)
+        {
+            final int other = random.nextInt(i + 1);
+            final int swap = sourceIndices[i];
+            sourceIndices[i] = sourceIndices[other];
+            sourceIndices[other] = swap;
+        }
+        final int[] permuted = new int[entryCount];
+        for (int i = 0; i < entryCount; i++)
+        {
+            permuted[i] = model[sourceIndices[i]];
+        }
+        array.permute(sourceIndices);
+        System.arraycopy(permuted, 0, model, 0, entryCount);
+        check(array, model, "permute, " + context);
+
+        //Mappings only make sense for palette sized widths, wider values are kept as they are outside of the mapping.
+        final int[] mapping = new int[1 << Math.min(bitsPerEntry, 8)];
+        for (int i = 0; i < mapping.length; i++)
+        {
+            mapping[i] = random.nextInt(4) == 0 ? -1 : random.nextInt(mapping.length);
+        }
+        for (int i = 0; i < entryCount; i++)
+        {
+            if (model[i] >= 0 && model[i] < mapping.length && mapping[model[i]] >= 0)
+                model[i] = mapping[model[i]];
+        }
+        array.remap(mapping);
+        check(array, model, "remap, " + context);
+
+        if (bitsPerEntry > 0)
+        {
+            final PackedLongArray snapshot = array.share();
+            final int[] snapshotModel = model.clone();
+            model[0] = model[0] == 0 ? 1 : 0;
+            array.set(0, model[0]);
+            check(array, model, "writing to a shared array, " + context);
+            check(snapshot, snapshotModel, "writing to the source of a snapshot, " + context);
+        }
+
+        if (bitsPerEntry < Integer.SIZE)
+        {
+            array.resize(bitsPerEntry + 1);
+            check(array, model, "resize to %d bits, %s".formatted(bitsPerEntry + 1, context));
+        }
+
+        int requiredBits = 0;
+        for (final int value : model)
+        {
+            requiredBits = Math.max(requiredBits, Integer.SIZE - Integer.numberOfLeadingZeros(value));
+        }
+        array.resize(requiredBits);
+        check(array, model, "resize to %d bits, %s".formatted(requiredBits, context));
+    }
+
+    private void timeResize()
+    {
+        System.out.printf("Growing %d entries by one bit, %d iterations:%n", ENTRY_COUNT, iterations);
+        for (int bitsPerEntry = 1; bitsPerEntry < 8; bitsPerEntry++)
+        {
+            final PackedLongArray source = new PackedLongArray(ENTRY_COUNT, bitsPerEntry);
+            final int[] values = randomValues(ENTRY_COUNT, bitsPerEntry);
+            for (int i = 0; i < ENTRY_COUNT; i++)
+            {
+                source.set(i, values[i]);
+            }
+
+            final int newBitsPerEntry = bitsPerEntry + 1;
+            //Both include copying the source words, which is needed for the resize to not grow the source itself.
+            final double resize = time(() -> {
+                final PackedLongArray resized = source.copy();
+                resized.resize(newBitsPerEntry);
+                sink += resized.getWords()[0];
+            });
+            final double perEntry = time(() -> {
+                final PackedLongArray copy = source.copy();
+                final PackedLongArray resized = new PackedLongArray(ENTRY_COUNT, newBitsPerEntry);
+                for (int i = 0; i < ENTRY_COUNT; i++)
+                {
+                    resized.set(i, copy.get(i));
+                }
+                sink += resized.getWords()[0];
+            });
+
+            System.out.printf("  %d -> %d bits: resize %.1f us, per entry get and set %.1f us%n", bitsPerEntry, newBitsPerEntry, resize, perEntry);
+        }
+    }
+
+    private void verifyRunLengthCodec()
+    {
+        for (int sideLength = 1; sideLength <= SIDE_LENGTH; sideLength <<= 1)
+        {
+            for (int bitsPerEntry = 0; bitsPerEntry <= 8; bitsPerEntry++)
+            {
+                for (final Sample sample : createSamples(sideLength, bitsPerEntry))
+                {
+                    final String context = "%s of side length %d with %d bits".formatted(sample.name(), sideLength, bitsPerEntry);
+                    final FriendlyByteBuf buffer = new FriendlyByteBuf(Unpooled.wrappedBuffer(encodeRuns(sample)));
+                    final PackedLongArray decoded = PaletteRunLengthCodec.decode(buffer, sideLength, bitsPerEntry);
+
+                    checkEqual(0, buffer.readableBytes(), "the remaining bytes after decoding the " + context);
+                    final int[] model = new int[sample.indices().getEntryCount()];
+                    sample.indices().getRange(0, model, 0, model.length);
+                    check(decoded, model, "a run length round trip of the " + context);
+                }
+            }
+        }
+    }
+
+    private void timeRunLengthCodec()
+    {
+        //Two bits is a block of up to four materials, which is what most builds consist of.
+        final int bitsPerEntry = 2;
+        System.out.printf("Encoding %d entries of %d bits, %d iterations:%n", ENTRY_COUNT, bitsPerEntry, iterations);
+        for (final Sample sample : createSamples(SIDE_LENGTH, bitsPerEntry))
+        {
+            final byte[] words = encodeWords(sample);
+            final byte[] runs = encodeRuns(sample);
+            final double encode = time(() -> sink += encodeRuns(sample).length);
+            final double decode = time(() -> sink += PaletteRunLengthCodec.decode(new FriendlyByteBuf(Unpooled.wrappedBuffer(runs)), SIDE_LENGTH, bitsPerEntry).getWords().length);
+
+            System.out.printf("  %-10s words %4d B (LZ4 %4d B), runs %4d B (LZ4 %4d B), encode %.1f us, decode %.1f us%n",
+              sample.name(), words.length, compress(words).length, runs.length, compress(runs).length, encode, decode);
+        }
+    }
+
+    private List<Sample> createSamples(final int sideLength, final int bitsPerEntry)
+    {
+        final int valueCount = 1 << bitsPerEntry;
+        final float center = (sideLength - 1) / 2f;
+        final float radius = sideLength / 2f;
+        final int[] noise = randomValues(sideLength * sideLength * sideLength, bitsPerEntry);
+
+        final List<Sample> samples = Lists.newArrayList();
+        samples.add(createSample("uniform", sideLength, bitsPerEntry, (x, y, z) -> valueCount - 1));
+        samples.add(createSample("slab", sideLength, bitsPerEntry, (x, y, z) -> y < sideLength / 2 ? 1 % valueCount : 0));
+        samples.add(createSample("stairs", sideLength, bitsPerEntry, (x, y, z) -> y < sideLength / 2 || z < sideLength / 2 ? 1 % valueCount : 0));
+        samples.add(createSample("sphere", sideLength, bitsPerEntry, (x, y, z) -> {
+            final float dx = x - center;
+            final float dy = y - center;
+            final float dz = z - center;
+            return dx * dx + dy * dy + dz * dz <= radius * radius ? 1 % valueCount : 0;
+        }));
+        samples.add(createSample("layers", sideLength, bitsPerEntry, (x, y, z) -> y % valueCount));
+        samples.add(createSample("noise", sideLength, bitsPerEntry, (x, y, z) -> noise[(x * sideLength + y) * sideLength + z]));
+        return samples;
+    }
+
+    private static Sample createSample(final String name, final int sideLength, final int bitsPerEntry, final IndexFunction indexFunction)
+    {
+        final PackedLongArray indices = new PackedLongArray(sideLength * sideLength * sideLength, bitsPerEntry);
+        for (int x = 0; x < sideLength; x++)
+        {
+            for (int y = 0; y < sideLength; y++)
+            {
+                for (int z = 0; z < sideLength; z++)
+                {
+                    indices.set((x * sideLength + y) * sideLength + z, indexFunction.apply(x, y, z));
+                }
+            }
+        }
+        return new Sample(name, sideLength, indices);
+    }
+
+    private static byte[] encodeRuns(final Sample sample)
+    {
+        final FriendlyByteBuf buffer = new FriendlyByteBuf(Unpooled.buffer());
+        PaletteRunLengthCodec.encode(sample.indices(), sample.sideLength(), buffer);
+        return toBytes(buffer);
+    }
+
+    /**
+     * Writes the packed words the way the binary storage format before the run length encoding did.
+     */
+    private static byte[] encodeWords(final Sample sample)
+    {
+        final FriendlyByteBuf buffer = new FriendlyByteBuf(Unpooled.buffer());
+        for (final long word : sample.indices().getWords())
+        {
+            buffer.writeLong(word);
+        }
+        return toBytes(buffer);
+    }
+
+    private static byte[] toBytes(final FriendlyByteBuf buffer)
+    {
+        final byte[] bytes = new byte[buffer.readableBytes()];
+        buffer.readBytes(bytes);
+        return bytes;
+    }
+
+    private static byte[] compress(final byte[] bytes)
+    {
+        try
+        {
+            return LZ4DataCompressionUtils.compress(bytes);
+        }
+        catch (IOException e)
+        {
+            throw new IllegalStateException("Failed to compress a sample", e);
+        }
+    }
+
+    /**
+     * Runs the given action repeatedly, and returns the average time of a single run in microseconds.
+     */
+    private double time(final Runnable action)
+    {
+        for (int i = 0; i < WARMUP_RUNS; i++)
+        {
+            action.run();
+        }
+
+        final long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++)
+        {
+            action.run();
+        }
+        return (System.nanoTime() - start) / 1000d / iterations;
+    }
+
+    private int[] randomValues(final int entryCount, final int bitsPerEntry)
+    {
+        final int[] values = new int[entryCount];
+        for (int i = 0; i < entryCount; i++)
+        {
+            values[i] = randomValue(bitsPerEntry);
+        }
+        return values;
+    }
+
+    private int randomValue(final int bitsPerEntry)
+    {
+        if (bitsPerEntry == 0)
+            return 0;
+
+        return random.nextInt() >>> (Integer.SIZE - bitsPerEntry);
+    }
+
+    private static void check(final PackedLongArray array, final int[] model, final String context)
+    {
+        checkEqual(model.length, array.getEntryCount(), "entry count after " + context);
+        for (int i = 0; i < model.length; i++)
+        {
+            if (array.get(i) != model[i])
+                throw new IllegalStateException("Entry %d is %d instead of %d after %s".formatted(i, array.get(i), model[i], context));
+        }
+
+        final int[] range = new int[model.length];
+        array.getRange(0, range, 0, model.length);
+        if (!Arrays.equals(range, model))
+            throw new IllegalStateException("getRange does not match get after " + context);
+    }
+
+    private static void checkEqual(final int expected, final int actual, final String context)
+    {
+        if (expected != actual)
+            throw new IllegalStateException("Expected %d but got %d for %s".formatted(expected, actual, context));
+    }
+
+    private record Sample(String name, int sideLength, PackedLongArray indices) {}
+
+    @FunctionalInterface
+    private interface IndexFunction
+    {
+        int apply(int x, int y, int z);
+    }
+}